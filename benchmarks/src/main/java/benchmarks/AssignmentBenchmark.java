@@ -0,0 +1,74 @@
+package benchmarks;
+
+import models.GeoPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.AssignmentSolver;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch dispatch solve time: exact Hungarian, greedy only, and exact with the
+ * default budget (greedy finishes whatever the budget did not cover). Orders
+ * and couriers are random points in a 40 km city; no database involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class AssignmentBenchmark {
+
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Param({"100", "1000"})
+    public int orders;
+
+    private double[][] cost;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        GeoPoint[] pickups = new GeoPoint[orders];
+        GeoPoint[] couriers = new GeoPoint[orders];
+        for (int i = 0; i < orders; i++) {
+            pickups[i] = randomPoint(random);
+            couriers[i] = randomPoint(random);
+        }
+        cost = new double[orders][orders];
+        for (int i = 0; i < orders; i++) {
+            for (int j = 0; j < orders; j++) cost[i][j] = couriers[j].distanceKm(pickups[i]);
+        }
+    }
+
+    @Benchmark
+    public int[] exact() {
+        return AssignmentSolver.solve(cost, Long.MAX_VALUE / 2, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int[] greedy() {
+        return AssignmentSolver.solve(cost, Long.MAX_VALUE / 2, 0);
+    }
+
+    @Benchmark
+    public int[] budgeted() {
+        return AssignmentSolver.solve(cost, BUDGET_NANOS);
+    }
+
+    private static GeoPoint randomPoint(Random random) {
+        return new GeoPoint(12.8 + random.nextDouble() * 0.36, 77.4 + random.nextDouble() * 0.36);
+    }
+}
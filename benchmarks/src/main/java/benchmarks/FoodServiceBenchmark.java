@@ -0,0 +1,37 @@
+package benchmarks;
+
+import models.Cart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import services.FoodService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and sampled latency (p50/p90/p99/...) of the FoodService hot paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", SeededDatabase.H2_URL, SeededDatabase.H2_USER, SeededDatabase.H2_PASSWORD})
+public class FoodServiceBenchmark {
+
+    private final FoodService foodService = new FoodService();
+
+    @Benchmark
+    public List<Cart> getCartItems(SeededDatabase db) {
+        int customerId = db.firstCustomerId() + ThreadLocalRandom.current().nextInt(db.customers);
+        return foodService.getCartItems(customerId);
+    }
+}
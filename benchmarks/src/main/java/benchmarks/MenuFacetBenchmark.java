@@ -0,0 +1,76 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.FacetIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Facet filtering over a synthetic million-item menu (40 categories with a
+ * skewed spread, 15 cuisines, 5 price bands): the matching items plus the
+ * counts for every facet value, with nothing, one and three facets picked.
+ * No database involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class MenuFacetBenchmark {
+
+    private static final int ITEMS = 1_000_000;
+    private static final int PAGE = 1000;
+
+    private static final List<Set<String>> NOTHING = List.of(Set.of(), Set.of(), Set.of());
+    private static final List<Set<String>> ONE = List.of(Set.of("category3"), Set.of(), Set.of());
+    private static final List<Set<String>> THREE =
+            List.of(Set.of("category3"), Set.of("cuisine2", "cuisine5"), Set.of("band1"));
+
+    private FacetIndex facets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        facets = new FacetIndex(3);
+        for (int i = 0; i < ITEMS; i++) {
+            int category = (int) Math.min(39, Math.abs(random.nextGaussian() * 10));
+            facets.add(i, "category" + category, "cuisine" + random.nextInt(15), "band" + random.nextInt(5));
+        }
+    }
+
+    @Benchmark
+    public Object nothingPicked() {
+        return browse(NOTHING);
+    }
+
+    @Benchmark
+    public Object onePicked() {
+        return browse(ONE);
+    }
+
+    @Benchmark
+    public Object threePicked() {
+        return browse(THREE);
+    }
+
+    private Object browse(List<Set<String>> selected) {
+        int[] page = facets.filter(selected).toArray(0, PAGE);
+        List<Map<String, Integer>> counts = facets.counts(selected);
+        return counts.size() + page.length;
+    }
+}
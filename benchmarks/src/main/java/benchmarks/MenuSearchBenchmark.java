@@ -0,0 +1,76 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.InvertedIndex;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Menu search latency over a synthetic catalog: common two-word queries,
+ * prefixes while typing, and misspellings that need the typo scan. No
+ * database involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class MenuSearchBenchmark {
+
+    private static final int LIMIT = 200;
+
+    private static final String[] DISHES = {"paneer", "chicken", "mutton", "veg", "egg", "prawn", "fish",
+            "mushroom", "aloo", "gobi", "dal", "butter", "masala", "tikka", "kadai", "schezwan", "garlic"};
+    private static final String[] KINDS = {"biryani", "curry", "pizza", "burger", "noodles", "fried rice",
+            "dosa", "idli", "roll", "wrap", "naan", "paratha", "soup", "salad", "momos", "kebab", "thali"};
+    private static final String[] CATEGORIES = {"North Indian", "South Indian", "Chinese", "Italian",
+            "Fast Food", "Desserts", "Beverages", "Mughlai", "Street Food"};
+
+    @Param({"10000", "200000"})
+    public int items;
+
+    private InvertedIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new InvertedIndex(3, 2, 1);
+        for (int id = 1; id <= items; id++) {
+            String name = pick(random, DISHES) + " " + pick(random, KINDS);
+            String description = "Made with " + pick(random, DISHES) + " and house spices";
+            index.add(id, name, pick(random, CATEGORIES), description);
+        }
+    }
+
+    @Benchmark
+    public int[] exact() {
+        return index.search("paneer tikka", LIMIT);
+    }
+
+    @Benchmark
+    public int[] prefix() {
+        return index.search("chicken bir", LIMIT);
+    }
+
+    @Benchmark
+    public int[] typo() {
+        return index.search("chiken biryni", LIMIT);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import events.OrderEventBus;
+import models.Cart;
+import models.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.Repositories;
+import services.OrderIngestionQueue;
+import services.OrderService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Peak-load order placement from many threads: one transaction per order
+ * versus the group-commit ingestion queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", SeededDatabase.H2_URL, SeededDatabase.H2_USER, SeededDatabase.H2_PASSWORD})
+public class OrderIngestionBenchmark {
+
+    private OrderService direct;
+    private OrderIngestionQueue queue;
+    private OrderService grouped;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        direct = new OrderService(Repositories.orders(), Repositories.carts(), OrderEventBus.get());
+        queue = new OrderIngestionQueue(Repositories.orders(),
+                OrderIngestionQueue.DEFAULT_CAPACITY, OrderIngestionQueue.DEFAULT_MAX_BATCH,
+                OrderIngestionQueue.DEFAULT_LINGER_MILLIS, OrderIngestionQueue.DEFAULT_ENQUEUE_TIMEOUT_MILLIS);
+        grouped = new OrderService(Repositories.orders(), Repositories.carts(), OrderEventBus.get(), queue);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queue.shutdown();
+    }
+
+    @Benchmark
+    public boolean placeOrderDirect(SeededDatabase db) {
+        List<Cart> cart = new ArrayList<>(db.itemsPerOrder);
+        Order order = OrderServiceBenchmark.randomOrder(db, cart);
+        return direct.placeOrder(order, cart);
+    }
+
+    @Benchmark
+    public boolean placeOrderGroupCommit(SeededDatabase db) {
+        List<Cart> cart = new ArrayList<>(db.itemsPerOrder);
+        Order order = OrderServiceBenchmark.randomOrder(db, cart);
+        return grouped.placeOrder(order, cart);
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import models.Cart;
+import models.FoodItem;
+import models.Order;
+import models.OrderPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import services.OrderService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and sampled latency (p50/p90/p99/...) of the OrderService hot paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", SeededDatabase.H2_URL, SeededDatabase.H2_USER, SeededDatabase.H2_PASSWORD})
+public class OrderServiceBenchmark {
+
+    private final OrderService orderService = new OrderService();
+
+    @Benchmark
+    public List<Order> getOrdersByRestaurant(SeededDatabase db) {
+        int restaurantId = 1 + ThreadLocalRandom.current().nextInt(db.restaurants);
+        return orderService.getOrdersByRestaurant(restaurantId);
+    }
+
+    @Benchmark
+    public OrderPage getOrdersByRestaurantFirstPage(SeededDatabase db) {
+        int restaurantId = 1 + ThreadLocalRandom.current().nextInt(db.restaurants);
+        return orderService.getOrdersByRestaurant(restaurantId, null, 50);
+    }
+
+    @Benchmark
+    public boolean placeOrder(SeededDatabase db) {
+        List<Cart> cart = new ArrayList<>(db.itemsPerOrder);
+        Order order = randomOrder(db, cart);
+        return orderService.placeOrder(order, cart);
+    }
+
+    /** An order for a random customer and restaurant; its lines are added to cart. */
+    static Order randomOrder(SeededDatabase db, List<Cart> cart) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int customerId = db.firstCustomerId() + rnd.nextInt(db.customers);
+        int restaurantId = 1 + rnd.nextInt(db.restaurants);
+        int firstFood = (restaurantId - 1) * db.foodPerRestaurant + 1;
+
+        double total = 0;
+        for (int i = 0; i < db.itemsPerOrder; i++) {
+            FoodItem food = new FoodItem();
+            food.setFoodId(firstFood + i % db.foodPerRestaurant);
+            food.setRestaurantId(restaurantId);
+            food.setPrice(100 + i);
+
+            Cart line = new Cart(customerId, food.getFoodId(), 1 + i % 3);
+            line.setFoodItem(food);
+            cart.add(line);
+            total += food.getPrice() * line.getQuantity();
+        }
+
+        return new Order(customerId, restaurantId, total, "Benchmark Street");
+    }
+}
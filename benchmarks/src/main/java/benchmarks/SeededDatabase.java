@@ -0,0 +1,119 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Embedded H2 database (MySQL mode) loaded with sql/schema.sql and seeded
+ * with synthetic but realistically sized data, once per benchmark fork.
+ *
+ * Volumes can be scaled down with system properties, e.g.
+ * java -Dbench.orders=100000 -jar benchmarks/target/benchmarks.jar
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    /** JVM flags pointing DatabaseConnection at the embedded database. */
+    public static final String H2_URL =
+            "-Dfooddb.url=jdbc:h2:mem:fooddb;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    public static final String H2_USER = "-Dfooddb.user=sa";
+    public static final String H2_PASSWORD = "-Dfooddb.password=";
+
+    public final int restaurants = Integer.getInteger("bench.restaurants", 10_000);
+    public final int customers = Integer.getInteger("bench.customers", 100_000);
+    public final int foodPerRestaurant = Integer.getInteger("bench.foodPerRestaurant", 10);
+    public final int orders = Integer.getInteger("bench.orders", 1_000_000);
+    public final int itemsPerOrder = Integer.getInteger("bench.itemsPerOrder", 5);
+    public final int cartLinesPerCustomer = Integer.getInteger("bench.cartLines", 3);
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        long start = System.nanoTime();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+
+            st.execute("RUNSCRIPT FROM 'classpath:/sql/schema.sql'");
+            st.execute("SET REFERENTIAL_INTEGRITY FALSE");
+
+            int r = restaurants;
+            int c = customers;
+            int f = foodPerRestaurant;
+            int foods = r * f;
+
+            // user ids 1..r are restaurants, r+1..r+c are customers
+            st.executeUpdate(
+                    "INSERT INTO users (user_id, username, email, password, phone, user_type) " +
+                    "SELECT X, CONCAT('rest', X), CONCAT('rest', X, '@example.com'), 'pw', '9000000000', 'RESTAURANT' " +
+                    "FROM SYSTEM_RANGE(1, " + r + ")");
+            st.executeUpdate(
+                    "INSERT INTO restaurants (restaurant_id, name, address, cuisine_type) " +
+                    "SELECT X, CONCAT('Restaurant ', X), CONCAT(X, ' Main Road'), CONCAT('Cuisine ', MOD(X, 12)) " +
+                    "FROM SYSTEM_RANGE(1, " + r + ")");
+            st.executeUpdate(
+                    "INSERT INTO users (user_id, username, email, password, phone, user_type) " +
+                    "SELECT X, CONCAT('cust', X), CONCAT('cust', X, '@example.com'), 'pw', '9100000000', 'CUSTOMER' " +
+                    "FROM SYSTEM_RANGE(" + (r + 1) + ", " + (r + c) + ")");
+            st.executeUpdate(
+                    "INSERT INTO customers (customer_id, address) " +
+                    "SELECT X, CONCAT(X, ' Park Street') FROM SYSTEM_RANGE(" + (r + 1) + ", " + (r + c) + ")");
+
+            st.executeUpdate(
+                    "INSERT INTO food_items (food_id, restaurant_id, name, description, price, category, is_available) " +
+                    "SELECT X, FLOOR((X - 1) / " + f + ") + 1, CONCAT('Dish ', X), 'Chef special', " +
+                    "50 + MOD(X * 37, 450), CONCAT('Category ', MOD(X, 20)), MOD(X, 10) <> 0 " +
+                    "FROM SYSTEM_RANGE(1, " + foods + ")");
+
+            String orderRestaurant = "(1 + MOD(X * 104729, " + r + "))";
+            st.executeUpdate(
+                    "INSERT INTO orders (order_id, customer_id, restaurant_id, status, total_amount, delivery_address, order_date) " +
+                    "SELECT X, " + (r + 1) + " + MOD(X * 7919, " + c + "), " + orderRestaurant + ", " +
+                    "CASE MOD(X, 20) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'PREPARING' WHEN 2 THEN 'CANCELLED' ELSE 'DELIVERED' END, " +
+                    "250 + MOD(X, 900), 'Somewhere', DATEADD('SECOND', X - " + orders + ", CURRENT_TIMESTAMP) " +
+                    "FROM SYSTEM_RANGE(1, " + orders + ")");
+
+            // every item comes from the menu of its order's restaurant
+            String itemOrder = "(FLOOR((X - 1) / " + itemsPerOrder + ") + 1)";
+            String itemRestaurant = "(1 + MOD(" + itemOrder + " * 104729, " + r + "))";
+            st.executeUpdate(
+                    "INSERT INTO order_items (order_item_id, order_id, food_id, quantity, price) " +
+                    "SELECT X, " + itemOrder + ", (" + itemRestaurant + " - 1) * " + f + " + 1 + MOD(X, " + f + "), " +
+                    "1 + MOD(X, 3), 50 + MOD(X * 37, 450) " +
+                    "FROM SYSTEM_RANGE(1, " + ((long) orders * itemsPerOrder) + ")");
+
+            st.executeUpdate(
+                    "INSERT INTO cart (cart_id, customer_id, food_id, quantity) " +
+                    "SELECT X, " + (r + 1) + " + FLOOR((X - 1) / " + cartLinesPerCustomer + "), " +
+                    "1 + MOD(X * 31, " + foods + "), 1 + MOD(X, 4) " +
+                    "FROM SYSTEM_RANGE(1, " + ((long) c * cartLinesPerCustomer) + ")");
+
+            st.execute("SET REFERENTIAL_INTEGRITY TRUE");
+
+            // explicit ids were inserted, so move the identity columns past them
+            restart(st, "users", "user_id", r + c);
+            restart(st, "food_items", "food_id", foods);
+            restart(st, "orders", "order_id", orders);
+            restart(st, "order_items", "order_item_id", (long) orders * itemsPerOrder);
+            restart(st, "cart", "cart_id", (long) c * cartLinesPerCustomer);
+        }
+
+        System.out.printf("%nSeeded %d restaurants, %d customers, %d orders, %d order_items in %.1f s%n",
+                restaurants, customers, orders, (long) orders * itemsPerOrder,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void restart(Statement st, String table, String column, long last) throws SQLException {
+        st.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + (last + 1));
+    }
+
+    public int firstCustomerId() {
+        return restaurants + 1;
+    }
+}
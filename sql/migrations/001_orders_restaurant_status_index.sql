@@ -0,0 +1,2 @@
+-- Restaurant dashboard status filter and per-status counts
+CREATE INDEX idx_orders_restaurant_status ON orders (restaurant_id, status, order_date, order_id);
@@ -0,0 +1,7 @@
+-- Incremental order refresh: every insert / status / courier change stamps updated_at
+ALTER TABLE orders ADD COLUMN updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+UPDATE orders SET updated_at = order_date;
+
+CREATE INDEX idx_orders_customer_updated ON orders (customer_id, updated_at);
+CREATE INDEX idx_orders_restaurant_updated ON orders (restaurant_id, updated_at);
+CREATE INDEX idx_orders_delivery_updated ON orders (delivery_id, updated_at);
@@ -0,0 +1,11 @@
+-- Cart upsert: one line per (customer, food), so INSERT ... ON DUPLICATE KEY UPDATE can merge quantities.
+-- Fold duplicate lines left by the old check-then-insert race into the oldest line first.
+UPDATE cart c
+JOIN (SELECT MIN(cart_id) AS keep_id, SUM(quantity) AS total
+      FROM cart GROUP BY customer_id, food_id HAVING COUNT(*) > 1) d ON c.cart_id = d.keep_id
+SET c.quantity = d.total;
+
+DELETE c FROM cart c
+JOIN cart k ON k.customer_id = c.customer_id AND k.food_id = c.food_id AND k.cart_id < c.cart_id;
+
+ALTER TABLE cart ADD CONSTRAINT uk_cart_customer_food UNIQUE (customer_id, food_id);
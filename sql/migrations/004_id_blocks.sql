@@ -0,0 +1,9 @@
+-- Block-allocated ids for orders and users: each app instance reserves ranges here
+-- and inserts with explicit primary keys instead of reading generated keys.
+-- Rows are created on first use, starting after the table's current MAX(id).
+-- Deploy to all app instances together: an older instance still relying on
+-- AUTO_INCREMENT could take an id inside a reserved block.
+CREATE TABLE id_blocks (
+    name    VARCHAR(50) PRIMARY KEY,
+    next_id BIGINT NOT NULL
+);
@@ -0,0 +1,18 @@
+-- Coordinates for distance-aware dispatch and "restaurants near me".
+-- All nullable: rows without a position keep working, they are just not
+-- found by nearest-neighbour searches.
+ALTER TABLE customers
+    ADD COLUMN latitude  DOUBLE,
+    ADD COLUMN longitude DOUBLE;
+
+ALTER TABLE restaurants
+    ADD COLUMN latitude  DOUBLE,
+    ADD COLUMN longitude DOUBLE;
+
+ALTER TABLE delivery_persons
+    ADD COLUMN latitude  DOUBLE,
+    ADD COLUMN longitude DOUBLE;
+
+ALTER TABLE orders
+    ADD COLUMN delivery_latitude  DOUBLE,
+    ADD COLUMN delivery_longitude DOUBLE;
@@ -0,0 +1,4 @@
+-- Optimistic concurrency: every status / courier change bumps version, and a
+-- status change applies only if the version is still the one the caller read
+-- (UPDATE ... WHERE order_id = ? AND version = ?), so no row locks are held.
+ALTER TABLE orders ADD COLUMN version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,107 @@
+-- Food Delivery System schema (MySQL 8; also loads in H2 with MODE=MySQL)
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id     INT AUTO_INCREMENT PRIMARY KEY,
+    username    VARCHAR(50)  NOT NULL UNIQUE,
+    email       VARCHAR(100),
+    password    VARCHAR(100) NOT NULL,
+    phone       VARCHAR(20),
+    user_type   VARCHAR(20)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS customers (
+    customer_id INT PRIMARY KEY,
+    address     VARCHAR(255),
+    latitude    DOUBLE,
+    longitude   DOUBLE,
+    FOREIGN KEY (customer_id) REFERENCES users(user_id)
+);
+
+CREATE TABLE IF NOT EXISTS restaurants (
+    restaurant_id INT PRIMARY KEY,
+    name          VARCHAR(100) NOT NULL,
+    address       VARCHAR(255),
+    cuisine_type  VARCHAR(50),
+    latitude      DOUBLE,
+    longitude     DOUBLE,
+    FOREIGN KEY (restaurant_id) REFERENCES users(user_id)
+);
+
+CREATE TABLE IF NOT EXISTS delivery_persons (
+    delivery_id INT AUTO_INCREMENT PRIMARY KEY,
+    name        VARCHAR(50)  NOT NULL UNIQUE,
+    email       VARCHAR(100),
+    phone       VARCHAR(20),
+    password    VARCHAR(100) NOT NULL,
+    status      VARCHAR(20)  NOT NULL DEFAULT 'AVAILABLE',
+    latitude    DOUBLE,
+    longitude   DOUBLE
+);
+
+CREATE TABLE IF NOT EXISTS food_items (
+    food_id       INT AUTO_INCREMENT PRIMARY KEY,
+    restaurant_id INT NOT NULL,
+    name          VARCHAR(100) NOT NULL,
+    description   VARCHAR(255),
+    price         DECIMAL(10, 2) NOT NULL,
+    category      VARCHAR(50),
+    is_available  BOOLEAN NOT NULL DEFAULT TRUE,
+    FOREIGN KEY (restaurant_id) REFERENCES restaurants(restaurant_id)
+);
+
+-- hi-lo id blocks: next unreserved id per table (see repository.BlockIdAllocator);
+-- rows are created on first use from the table's current MAX(id)
+CREATE TABLE IF NOT EXISTS id_blocks (
+    name    VARCHAR(50) PRIMARY KEY,
+    next_id BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS cart (
+    cart_id     INT AUTO_INCREMENT PRIMARY KEY,
+    customer_id INT NOT NULL,
+    food_id     INT NOT NULL,
+    quantity    INT NOT NULL,
+    CONSTRAINT uk_cart_customer_food UNIQUE (customer_id, food_id),
+    FOREIGN KEY (customer_id) REFERENCES customers(customer_id),
+    FOREIGN KEY (food_id) REFERENCES food_items(food_id)
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    order_id         INT AUTO_INCREMENT PRIMARY KEY,
+    customer_id      INT NOT NULL,
+    restaurant_id    INT NOT NULL,
+    delivery_id      INT,
+    status           VARCHAR(20) NOT NULL,
+    total_amount     DECIMAL(10, 2) NOT NULL,
+    delivery_address VARCHAR(255),
+    delivery_latitude  DOUBLE,
+    delivery_longitude DOUBLE,
+    order_date       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at       TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    version          INT NOT NULL DEFAULT 0,
+    FOREIGN KEY (customer_id) REFERENCES customers(customer_id),
+    FOREIGN KEY (restaurant_id) REFERENCES restaurants(restaurant_id),
+    FOREIGN KEY (delivery_id) REFERENCES delivery_persons(delivery_id)
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    order_item_id INT AUTO_INCREMENT PRIMARY KEY,
+    order_id      INT NOT NULL,
+    food_id       INT NOT NULL,
+    quantity      INT NOT NULL,
+    price         DECIMAL(10, 2) NOT NULL,
+    FOREIGN KEY (order_id) REFERENCES orders(order_id),
+    FOREIGN KEY (food_id) REFERENCES food_items(food_id)
+);
+
+-- order history is read newest first and paged by keyset on (order_date, order_id)
+CREATE INDEX idx_orders_customer ON orders (customer_id, order_date, order_id);
+CREATE INDEX idx_orders_restaurant ON orders (restaurant_id, order_date, order_id);
+CREATE INDEX idx_orders_delivery ON orders (delivery_id, order_date, order_id);
+-- restaurant dashboard: status filter and per-status counts
+CREATE INDEX idx_orders_restaurant_status ON orders (restaurant_id, status, order_date, order_id);
+-- incremental refresh: orders changed since a watermark
+CREATE INDEX idx_orders_customer_updated ON orders (customer_id, updated_at);
+CREATE INDEX idx_orders_restaurant_updated ON orders (restaurant_id, updated_at);
+CREATE INDEX idx_orders_delivery_updated ON orders (delivery_id, updated_at);
+CREATE INDEX idx_food_items_restaurant ON food_items (restaurant_id);
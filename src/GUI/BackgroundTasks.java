@@ -0,0 +1,122 @@
+package GUI;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs service calls off the event dispatch thread and hands results back on it.
+ * One instance per window; every method must be called on the EDT.
+ */
+public class BackgroundTasks {
+
+    private final Component owner;
+    private final Map<String, SwingWorker<?, ?>> latest = new HashMap<>();
+    private final List<JComponent> busyComponents = new ArrayList<>();
+    private JLabel statusLabel;
+
+    private int running;
+    private boolean closed;
+
+    public BackgroundTasks(Component owner) {
+        this.owner = owner;
+    }
+
+    /** Label that shows "Loading..." while anything is running */
+    public void setStatusLabel(JLabel statusLabel) {
+        this.statusLabel = statusLabel;
+    }
+
+    /** Components disabled while anything is running (e.g. a login button) */
+    public void disableWhileBusy(JComponent... components) {
+        busyComponents.addAll(List.of(components));
+    }
+
+    /** Run work in the background; onSuccess runs on the EDT */
+    public <T> void run(Callable<T> work, Consumer<T> onSuccess) {
+        submit(null, work, onSuccess);
+    }
+
+    /**
+     * Like run, but a newer task under the same key supersedes the older one:
+     * the older task is cancelled and its result is never delivered.
+     */
+    public <T> void runLatest(String key, Callable<T> work, Consumer<T> onSuccess) {
+        SwingWorker<?, ?> previous = latest.remove(key);
+        // no interrupt: a JDBC call in flight is left to finish and return its connection
+        if (previous != null) previous.cancel(false);
+        submit(key, work, onSuccess);
+    }
+
+    /** Drop the pending result of the task running under key, if any */
+    public void cancel(String key) {
+        SwingWorker<?, ?> worker = latest.remove(key);
+        if (worker != null) worker.cancel(false);
+    }
+
+    public boolean isBusy() {
+        return running > 0;
+    }
+
+    /** Drop all pending results, e.g. when the window is disposed */
+    public void cancelAll() {
+        closed = true;
+        for (SwingWorker<?, ?> worker : latest.values()) worker.cancel(false);
+        latest.clear();
+    }
+
+    private <T> void submit(String key, Callable<T> work, Consumer<T> onSuccess) {
+        if (closed) return;
+
+        SwingWorker<T, Void> worker = new SwingWorker<>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return work.call();
+            }
+
+            @Override
+            protected void done() {
+                if (key != null && latest.get(key) == this) latest.remove(key);
+                finished();
+
+                if (isCancelled() || closed) return;
+
+                try {
+                    onSuccess.accept(get());
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    JOptionPane.showMessageDialog(owner,
+                            "Something went wrong: " + e.getCause().getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        if (key != null) latest.put(key, worker);
+        started();
+        worker.execute();
+    }
+
+    private void started() {
+        if (running++ > 0) return;
+        owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        if (statusLabel != null) statusLabel.setText("Loading...");
+        for (JComponent c : busyComponents) c.setEnabled(false);
+    }
+
+    private void finished() {
+        if (--running > 0) return;
+        owner.setCursor(Cursor.getDefaultCursor());
+        if (statusLabel != null) statusLabel.setText(" ");
+        for (JComponent c : busyComponents) c.setEnabled(true);
+    }
+}
@@ -3,45 +3,84 @@ package GUI;
 import models.Cart;
 import models.Customer;
 import models.FoodItem;
+import models.GeoPoint;
+import models.MenuFacet;
+import models.MenuPage;
 import models.Order;
+import models.OrderPage;
+import models.Restaurant;
 import services.FoodService;
 import services.OrderService;
+import services.RestaurantService;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static GUI.ListTableModel.column;
 
 public class CustomerDashboard extends JFrame {
 
+    private static final int ORDER_PAGE_SIZE = 50;
+    private static final int NEARBY_LIMIT = 10;
+    private static final double NEARBY_MAX_KM = 10;
+    private static final int SEARCH_LIMIT = 200;
+    private static final int SEARCH_DELAY_MILLIS = 150; // wait for a pause in typing
+    private static final int MENU_PAGE_SIZE = 100;
+    private static final int PREFETCH_ROWS = 20; // fetch the next page when this close to the last row
+
     private Customer customer;
     private FoodService foodService;
     private OrderService orderService;
+    private RestaurantService restaurantService;
 
     private JTable foodTable;
     private JTable cartTable;
     private JTable orderTable;
 
-    private DefaultTableModel foodTableModel;
-    private DefaultTableModel cartTableModel;
-    private DefaultTableModel orderTableModel;
+    private ListTableModel<FoodItem> foodTableModel;
+    private ListTableModel<Cart> cartTableModel;
+    private ListTableModel<Order> orderTableModel;
+
+    private JTextField searchField;
+    private Timer searchTimer;
+    private final Map<MenuFacet, JComboBox<FacetChoice>> facetBoxes = new EnumMap<>(MenuFacet.class);
+    private boolean updatingFacets; // refilling the boxes is not a user pick
+    private JLabel matchLabel;
+    private Map<MenuFacet, Set<String>> menuSelection; // the filter the loaded menu pages belong to
+    private int nextMenuOffset = -1;                   // of the next menu page; -1 while one loads or none is left
 
     private JLabel totalLabel;
     private JLabel welcomeLabel;
+    private JButton moreOrdersBtn;
+
+    private OrderPage.Cursor nextOrderCursor;
+
+    private BackgroundTasks tasks;
+    private JLabel statusLabel;
 
     public CustomerDashboard(Customer customer) {
         this.customer = customer;
         this.foodService = new FoodService();
         this.orderService = new OrderService();
+        this.restaurantService = new RestaurantService();
 
         setTitle("Customer Dashboard - Welcome, " + customer.getUsername());
         setSize(1200, 800);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
+        tasks = new BackgroundTasks(this);
+
         initializeComponents();
         setupLayout();
-        loadData();
+        tasks.setStatusLabel(statusLabel);
+        loadData(); // frame paints first; tables fill in as the queries return
     }
 
     private void initializeComponents() {
@@ -51,20 +90,55 @@ public class CustomerDashboard extends JFrame {
         welcomeLabel.setFont(new Font("Arial", Font.BOLD, 24));
         welcomeLabel.setForeground(Color.BLUE);
 
-        foodTableModel = new DefaultTableModel(
-                new String[]{"ID", "Name", "Description", "Price", "Category"}, 0);
+        foodTableModel = new ListTableModel<>(FoodItem::getFoodId,
+                column("ID", FoodItem::getFoodId),
+                column("Name", FoodItem::getName),
+                column("Description", FoodItem::getDescription),
+                column("Price", FoodItem::getPrice),
+                column("Category", FoodItem::getCategory));
         foodTable = new JTable(foodTableModel);
 
-        cartTableModel = new DefaultTableModel(
-                new String[]{"ID", "Name", "Price", "Quantity", "Total"}, 0);
+        // search as you type: name, category and description, typos allowed
+        searchField = new JTextField(30);
+        searchTimer = new Timer(SEARCH_DELAY_MILLIS, e -> searchFoodItems());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { searchTimer.restart(); }
+            @Override public void removeUpdate(DocumentEvent e) { searchTimer.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { searchTimer.restart(); }
+        });
+
+        // one box per facet; picking a value narrows the list and recounts the other boxes
+        for (MenuFacet facet : MenuFacet.values()) {
+            JComboBox<FacetChoice> box = new JComboBox<>();
+            box.addItem(FacetChoice.ANY);
+            box.addActionListener(e -> {
+                if (!updatingFacets) loadFoodItems();
+            });
+            facetBoxes.put(facet, box);
+        }
+        matchLabel = new JLabel(" ");
+
+        cartTableModel = new ListTableModel<>(Cart::getFoodId,
+                column("ID", Cart::getFoodId),
+                column("Name", c -> c.getFoodItem().getName()),
+                column("Price", c -> c.getFoodItem().getPrice()),
+                column("Quantity", Cart::getQuantity),
+                column("Total", c -> c.getFoodItem().getPrice() * c.getQuantity()));
         cartTable = new JTable(cartTableModel);
 
-        orderTableModel = new DefaultTableModel(
-                new String[]{"Order ID", "Date", "Status", "Total"}, 0);
+        orderTableModel = new ListTableModel<>(Order::getOrderId,
+                column("Order ID", Order::getOrderId),
+                column("Date", Order::getOrderDate),
+                column("Status", o -> o.getStatus().name()),
+                column("Total", Order::getTotalAmount));
         orderTable = new JTable(orderTableModel);
+        orderTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION); // rows inserted above keep it on its order
 
         totalLabel = new JLabel("Total: ₹0.00");
         totalLabel.setFont(new Font("Arial", Font.BOLD, 16));
+
+        statusLabel = new JLabel(" ");
     }
 
     private void setupLayout() {
@@ -87,14 +161,28 @@ public class CustomerDashboard extends JFrame {
         // TOP FOOD PANEL
         JPanel topPanel = new JPanel(new BorderLayout());
         topPanel.setBorder(BorderFactory.createTitledBorder("Available Food Items"));
-        topPanel.add(new JScrollPane(foodTable), BorderLayout.CENTER);
+        JScrollPane foodScroll = new JScrollPane(foodTable);
+        topPanel.add(foodScroll, BorderLayout.CENTER);
+        ListTableModel.whenScrolledNearEnd(foodTable, foodScroll, PREFETCH_ROWS, this::loadMoreFoodItems);
+
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Search menu:"));
+        searchPanel.add(searchField);
+        for (Map.Entry<MenuFacet, JComboBox<FacetChoice>> e : facetBoxes.entrySet()) {
+            searchPanel.add(new JLabel(e.getKey().getLabel() + ":"));
+            searchPanel.add(e.getValue());
+        }
+        searchPanel.add(matchLabel);
+        topPanel.add(searchPanel, BorderLayout.NORTH);
 
         JPanel foodBtnPanel = new JPanel();
         JButton addToCartBtn = new JButton("Add to Cart");
         JButton refreshFoodBtn = new JButton("Refresh");
+        JButton nearbyBtn = new JButton("Restaurants Near Me");
 
         foodBtnPanel.add(addToCartBtn);
         foodBtnPanel.add(refreshFoodBtn);
+        foodBtnPanel.add(nearbyBtn);
 
         topPanel.add(foodBtnPanel, BorderLayout.SOUTH);
 
@@ -116,14 +204,20 @@ public class CustomerDashboard extends JFrame {
         // ORDER HISTORY PANEL
         JPanel bottomPanel = new JPanel(new BorderLayout());
         bottomPanel.setBorder(BorderFactory.createTitledBorder("Order History"));
-        bottomPanel.add(new JScrollPane(orderTable), BorderLayout.CENTER);
+        JScrollPane orderScroll = new JScrollPane(orderTable);
+        bottomPanel.add(orderScroll, BorderLayout.CENTER);
+        ListTableModel.whenScrolledNearEnd(orderTable, orderScroll, PREFETCH_ROWS, () -> {
+            if (moreOrdersBtn != null && moreOrdersBtn.isEnabled()) loadMoreOrders();
+        });
 
         JPanel orderBtnPanel = new JPanel();
         JButton refreshOrdersBtn = new JButton("Refresh Orders");
         JButton orderDetailsBtn = new JButton("Order Details");
         JButton trackOrderBtn = new JButton("Track Delivery");
+        moreOrdersBtn = new JButton("Load More");
 
         orderBtnPanel.add(refreshOrdersBtn);
+        orderBtnPanel.add(moreOrdersBtn);
         orderBtnPanel.add(orderDetailsBtn);
         orderBtnPanel.add(trackOrderBtn);
 
@@ -137,17 +231,44 @@ public class CustomerDashboard extends JFrame {
         splitAll.setResizeWeight(0.75);
 
         add(splitAll, BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
 
         // EVENT HANDLERS
         addToCartBtn.addActionListener(e -> addToCart());
-        refreshFoodBtn.addActionListener(e -> loadFoodItems());
+        refreshFoodBtn.addActionListener(e -> reloadMenu());
+        nearbyBtn.addActionListener(e -> showNearbyRestaurants());
         placeOrderBtn.addActionListener(e -> placeOrder());
         clearCartBtn.addActionListener(e -> clearCart());
         refreshOrdersBtn.addActionListener(e -> loadOrders());
+        moreOrdersBtn.addActionListener(e -> loadMoreOrders());
         orderDetailsBtn.addActionListener(e -> viewOrderDetails());
         trackOrderBtn.addActionListener(e -> trackDelivery());
     }
 
+    /** Nearest restaurants to the customer's saved position */
+    private void showNearbyRestaurants() {
+        GeoPoint here = customer.getLocation();
+        if (here == null) {
+            JOptionPane.showMessageDialog(this, "No location saved for your address.");
+            return;
+        }
+
+        tasks.run(() -> restaurantService.findRestaurantsNear(here, NEARBY_LIMIT, NEARBY_MAX_KM), restaurants -> {
+            if (restaurants.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No restaurants within " + (int) NEARBY_MAX_KM + " km.");
+                return;
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (Restaurant r : restaurants) {
+                sb.append(r.getName())
+                  .append(" (").append(r.getCuisineType()).append(") — ")
+                  .append(String.format("%.1f km", here.distanceKm(r.getLocation()))).append("\n");
+            }
+            JOptionPane.showMessageDialog(this, sb.toString(), "Restaurants Near Me", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
     private void logout() {
         int confirm = JOptionPane.showConfirmDialog(
                 this,
@@ -169,54 +290,138 @@ public class CustomerDashboard extends JFrame {
     }
 
     private void loadFoodItems() {
-        foodTableModel.setRowCount(0);
-        List<FoodItem> items = foodService.getAllFoodItems();
-
-        for (FoodItem item : items) {
-            foodTableModel.addRow(new Object[]{
-                    item.getFoodId(),
-                    item.getName(),
-                    item.getDescription(),
-                    item.getPrice(),
-                    item.getCategory()
-            });
+        String query = searchField.getText().trim();
+        if (!query.isEmpty()) {
+            searchFoodItems();
+            return;
         }
+        Map<MenuFacet, Set<String>> selected = selectedFacets();
+        menuSelection = selected;
+        nextMenuOffset = -1;
+        tasks.runLatest("food", () -> foodService.browseFoodItems(selected, 0, MENU_PAGE_SIZE),
+                page -> showMenuPage(page, true));
     }
 
-    private void loadCartItems() {
-        cartTableModel.setRowCount(0);
-        List<Cart> items = foodService.getCartItems(customer.getUserId());
+    // append the next page of the browsed menu, if there is one and none is loading
+    private void loadMoreFoodItems() {
+        if (nextMenuOffset < 0) return;
+        int offset = nextMenuOffset;
+        nextMenuOffset = -1;
+        Map<MenuFacet, Set<String>> selected = menuSelection;
+        tasks.runLatest("food", () -> foodService.browseFoodItems(selected, offset, MENU_PAGE_SIZE),
+                page -> showMenuPage(page, false));
+    }
 
-        double total = 0;
+    // the current list stays up while the menu reloads
+    private void reloadMenu() {
+        tasks.run(foodService::reloadMenu, reloaded -> {
+            if (!reloaded) JOptionPane.showMessageDialog(this, "Could not reload the menu.");
+            loadFoodItems();
+        });
+    }
 
-        for (Cart item : items) {
-            double itemTotal = item.getFoodItem().getPrice() * item.getQuantity();
-            total += itemTotal;
+    // same "food" slot as the full list: whichever was asked for last is shown
+    private void searchFoodItems() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            loadFoodItems();
+            return;
+        }
+        Map<MenuFacet, Set<String>> selected = selectedFacets();
+        nextMenuOffset = -1; // search results come in one list
+        tasks.runLatest("food", () -> foodService.searchFoodItems(query, selected, SEARCH_LIMIT), items -> {
+            showFoodItems(items);
+            matchLabel.setText(items.size() + " matches");
+        });
+    }
 
-            cartTableModel.addRow(new Object[]{
-                    item.getFoodId(),
-                    item.getFoodItem().getName(),
-                    item.getFoodItem().getPrice(),
-                    item.getQuantity(),
-                    itemTotal
-            });
+    private Map<MenuFacet, Set<String>> selectedFacets() {
+        Map<MenuFacet, Set<String>> selected = new EnumMap<>(MenuFacet.class);
+        for (Map.Entry<MenuFacet, JComboBox<FacetChoice>> e : facetBoxes.entrySet()) {
+            FacetChoice choice = (FacetChoice) e.getValue().getSelectedItem();
+            if (choice != null && choice.value != null) selected.put(e.getKey(), Set.of(choice.value));
         }
+        return selected;
+    }
 
-        totalLabel.setText("Total: ₹" + total);
+    // first: the page starts the list and refreshes the facet counts; otherwise it is appended
+    private void showMenuPage(MenuPage page, boolean first) {
+        if (first) {
+            showFoodItems(page.getItems());
+        } else {
+            foodTableModel.addRows(page.getItems());
+        }
+        int shown = foodTableModel.getRowCount();
+        nextMenuOffset = shown < page.getTotalMatches() && !page.getItems().isEmpty() ? shown : -1;
+        matchLabel.setText(shown < page.getTotalMatches()
+                ? "Showing " + shown + " of " + page.getTotalMatches()
+                : page.getTotalMatches() + " items");
+        if (!first) return;
+
+        // refill each box with fresh counts, keeping what was picked
+        updatingFacets = true;
+        try {
+            for (Map.Entry<MenuFacet, JComboBox<FacetChoice>> e : facetBoxes.entrySet()) {
+                JComboBox<FacetChoice> box = e.getValue();
+                FacetChoice picked = (FacetChoice) box.getSelectedItem();
+                box.removeAllItems();
+                box.addItem(FacetChoice.ANY);
+                for (Map.Entry<String, Integer> count : page.getFacetCounts().get(e.getKey()).entrySet()) {
+                    FacetChoice choice = new FacetChoice(count.getKey(), count.getValue());
+                    box.addItem(choice);
+                    if (picked != null && choice.value.equals(picked.value)) box.setSelectedItem(choice);
+                }
+            }
+        } finally {
+            updatingFacets = false;
+        }
+    }
+
+    private void showFoodItems(List<FoodItem> items) {
+        foodTableModel.setRows(items);
+    }
+
+    private void loadCartItems() {
+        tasks.runLatest("cart", () -> foodService.getCartItems(customer.getUserId()), this::showCartItems);
     }
 
+    private void showCartItems(List<Cart> items) {
+        cartTableModel.setRows(items);
+
+        long total = foodService.cartTotalPaise(items); // exact paise, at menu prices
+        totalLabel.setText(String.format("Total: ₹%d.%02d", total / 100, total % 100));
+    }
+
+    // reload the newest page of the order history
     private void loadOrders() {
-        orderTableModel.setRowCount(0);
-        List<Order> orders = orderService.getOrdersByCustomer(customer.getUserId());
-
-        for (Order order : orders) {
-            orderTableModel.addRow(new Object[]{
-                    order.getOrderId(),
-                    order.getOrderDate(),
-                    order.getStatus().name(),
-                    order.getTotalAmount()
-            });
-        }
+        fetchOrderPage(null, true);
+    }
+
+    // append the next (older) page
+    private void loadMoreOrders() {
+        moreOrdersBtn.setEnabled(false);
+        fetchOrderPage(nextOrderCursor, false);
+    }
+
+    // a reload supersedes any page still in flight, so stale pages never reach the table
+    private void fetchOrderPage(OrderPage.Cursor after, boolean reset) {
+        tasks.runLatest("orders",
+                () -> orderService.getOrdersByCustomer(customer.getUserId(), after, ORDER_PAGE_SIZE),
+                page -> {
+                    if (reset) {
+                        // diffed by order id, so the selected order stays selected
+                        orderTableModel.replaceRows(page.getOrders(),
+                                (shown, loaded) -> shown.getVersion() == loaded.getVersion());
+                    } else {
+                        orderTableModel.addRows(page.getOrders());
+                    }
+                    showOrderPage(page);
+                });
+    }
+
+    private void showOrderPage(OrderPage page) {
+        nextOrderCursor = page.getNextCursor();
+        moreOrdersBtn.setEnabled(page.hasMore());
     }
 
     private void addToCart() {
@@ -226,29 +431,30 @@ public class CustomerDashboard extends JFrame {
             return;
         }
 
-        int foodId = (int) foodTableModel.getValueAt(row, 0);
+        int foodId = foodTableModel.keyAt(row);
         String qtyStr = JOptionPane.showInputDialog(this, "Enter quantity:");
 
         if (qtyStr == null || qtyStr.trim().isEmpty()) return;
 
+        int qty;
         try {
-            int qty = Integer.parseInt(qtyStr);
+            qty = Integer.parseInt(qtyStr);
             if (qty <= 0) throw new NumberFormatException();
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Invalid quantity!");
+            return;
+        }
 
-            if (foodService.addToCart(customer.getUserId(), foodId, qty)) {
+        tasks.run(() -> foodService.addToCart(customer.getUserId(), foodId, qty), added -> {
+            if (added) {
                 JOptionPane.showMessageDialog(this, "Added to cart!");
                 loadCartItems();
             }
-
-        } catch (NumberFormatException e) {
-            JOptionPane.showMessageDialog(this, "Invalid quantity!");
-        }
+        });
     }
 
     private void placeOrder() {
-        List<Cart> cartItems = foodService.getCartItems(customer.getUserId());
-
-        if (cartItems.isEmpty()) {
+        if (cartTableModel.getRowCount() == 0) {
             JOptionPane.showMessageDialog(this, "Cart is empty.");
             return;
         }
@@ -260,36 +466,35 @@ public class CustomerDashboard extends JFrame {
             return;
         }
 
-        double total = 0;
-        int restaurantId = cartItems.get(0).getFoodItem().getRestaurantId();
+        // the saved position only describes the saved address; a typed one has none (no geocoding)
+        GeoPoint location = address.equals(customer.getAddress()) ? customer.getLocation() : null;
 
-        Order order = new Order(customer.getUserId(), restaurantId, 0, address);
-
-        for (Cart c : cartItems) {
-            double price = c.getFoodItem().getPrice();
-            total += price * c.getQuantity();
-            order.getItems().add(new Order.OrderItem(c.getFoodId(), c.getQuantity(), price));
-        }
-
-        order.setTotalAmount(total);
-
-        boolean success = orderService.placeOrder(order, cartItems);
+        // one transaction prices the cart, inserts one order per restaurant and empties the cart
+        tasks.run(() -> orderService.checkout(customer.getUserId(), address, location), orders -> {
+            if (orders.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Order failed!");
+                return;
+            }
 
-        if (success) {
-            JOptionPane.showMessageDialog(this, "Order placed!");
-            foodService.clearCart(customer.getUserId());
-            loadCartItems();
-            loadOrders();
-        } else {
-            JOptionPane.showMessageDialog(this, "Order failed!");
-        }
+            StringBuilder msg = new StringBuilder(orders.size() == 1 ? "Order placed!" : "Orders placed!");
+            for (Order order : orders) {
+                msg.append("\nOrder #").append(order.getOrderId())
+                   .append(" (").append(order.getItems().size()).append(" items, ₹")
+                   .append(order.getTotalAmount()).append(")");
+                orderTableModel.insertRow(0, order); // ids ascend, so the last one ends on top
+            }
+            JOptionPane.showMessageDialog(this, msg.toString());
+            showCartItems(List.of());
+        });
     }
 
     private void clearCart() {
-        if (foodService.clearCart(customer.getUserId())) {
-            JOptionPane.showMessageDialog(this, "Cart cleared.");
-            loadCartItems();
-        }
+        tasks.run(() -> foodService.clearCart(customer.getUserId()), cleared -> {
+            if (cleared) {
+                JOptionPane.showMessageDialog(this, "Cart cleared.");
+                loadCartItems();
+            }
+        });
     }
 
     private void viewOrderDetails() {
@@ -299,17 +504,17 @@ public class CustomerDashboard extends JFrame {
             return;
         }
 
-        int orderId = (int) orderTableModel.getValueAt(row, 0);
-
-        List<Order.OrderItem> items = orderService.getOrderItems(orderId);
+        int orderId = orderTableModel.keyAt(row);
 
-        if (items.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No items found!");
-            return;
-        }
+        tasks.run(() -> orderService.getOrderItems(orderId), items -> {
+            if (items.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No items found!");
+                return;
+            }
 
-        OrderDetailsDialog dialog = new OrderDetailsDialog(this, orderId, items);
-        dialog.setVisible(true);
+            OrderDetailsDialog dialog = new OrderDetailsDialog(this, orderId, items);
+            dialog.setVisible(true);
+        });
     }
 
     private void trackDelivery() {
@@ -319,9 +524,33 @@ public class CustomerDashboard extends JFrame {
             return;
         }
 
-        int orderId = (int) orderTableModel.getValueAt(row, 0);
+        int orderId = orderTableModel.keyAt(row);
 
         DeliveryTrackingDialog dialog = new DeliveryTrackingDialog(this, orderId);
         dialog.setVisible(true);
     }
+
+    // a facet value and how many items it would show
+    private static class FacetChoice {
+        static final FacetChoice ANY = new FacetChoice(null, 0);
+
+        final String value; // null = any
+        final int count;
+
+        FacetChoice(String value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return value == null ? "All" : value + " (" + count + ")";
+        }
+    }
+
+    @Override
+    public void dispose() {
+        tasks.cancelAll();
+        super.dispose();
+    }
 }
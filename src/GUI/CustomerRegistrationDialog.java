@@ -120,17 +120,20 @@ public class CustomerRegistrationDialog extends JDialog {
 
         Customer customer = new Customer(username, email, password, phone, address);
         CustomerService service = new CustomerService();
-        boolean success = service.registerCustomer(customer);
 
-        if (success) {
-            JOptionPane.showMessageDialog(this, "Registration successful!");
-            registered = true;
-            dispose();
-            new LoginFrame().setVisible(true);
-        } else {
-            JOptionPane.showMessageDialog(this,
-                    "Registration failed.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        BackgroundTasks tasks = new BackgroundTasks(this);
+        tasks.disableWhileBusy(registerButton);
+        tasks.run(() -> service.registerCustomer(customer), success -> {
+            if (success) {
+                JOptionPane.showMessageDialog(this, "Registration successful!");
+                registered = true;
+                dispose();
+                new LoginFrame().setVisible(true);
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Registration failed.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 
     public boolean isRegistered() {
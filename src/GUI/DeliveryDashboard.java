@@ -1,32 +1,60 @@
 package GUI;
 
+import events.OrderEvent;
+import events.OrderEventBus;
+import events.OrderEventListener;
 import models.DeliveryPerson;
 import models.Order;
+import models.OrderPage;
+import models.OrderScope;
+import models.RouteStop;
+import services.DeliveryService;
 import services.OrderService;
+import utils.StopSequencer;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.sql.Timestamp;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+
+import static GUI.ListTableModel.column;
 
 public class DeliveryDashboard extends JFrame {
 
+    private static final int ORDER_PAGE_SIZE = 50;
+    private static final int PREFETCH_ROWS = 20; // fetch the next page when this close to the last row
+
     private DeliveryPerson deliveryPerson;
     private OrderService orderService;
+    private DeliveryService deliveryService;
     private JTable ordersTable;
-    private DefaultTableModel tableModel;
+    private ListTableModel<Order> tableModel;
+    private JButton moreBtn;
+    private DefaultListModel<String> routeModel;
+    private JLabel routeLabel;
+    private final Set<Integer> collected = new HashSet<>(); // orders picked up this session
+    private OrderPage.Cursor nextCursor;
+    private Timestamp changeWatermark;
+    private OrderEventBus.Subscription orderEvents;
+    private BackgroundTasks tasks;
 
     public DeliveryDashboard(DeliveryPerson deliveryPerson) {
         this.deliveryPerson = deliveryPerson;
         this.orderService = new OrderService();
+        this.deliveryService = new DeliveryService();
 
         setTitle("Delivery Dashboard - Welcome, " + deliveryPerson.getName());
-        setSize(900, 600);
+        setSize(1150, 600);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
+        tasks = new BackgroundTasks(this);
+
         initComponents();
         loadOrders();
+        subscribeToOrderEvents();
     }
 
     private void initComponents() {
@@ -48,29 +76,59 @@ public class DeliveryDashboard extends JFrame {
 
 
         // --- Table ---
-        tableModel = new DefaultTableModel(
-                new String[]{"Order ID", "Customer ID", "Restaurant ID", "Status", "Total Amount", "Order Date"}, 0
-        );
+        tableModel = new ListTableModel<>(Order::getOrderId,
+                column("Order ID", Order::getOrderId),
+                column("Customer ID", Order::getCustomerId),
+                column("Restaurant ID", Order::getRestaurantId),
+                column("Status", o -> o.getStatus().name()),
+                column("Total Amount", Order::getTotalAmount),
+                column("Order Date", Order::getOrderDate));
         ordersTable = new JTable(tableModel);
+        ordersTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION); // rows inserted above keep it on its order
         JScrollPane scrollPane = new JScrollPane(ordersTable);
+        ListTableModel.whenScrolledNearEnd(ordersTable, scrollPane, PREFETCH_ROWS, () -> {
+            if (moreBtn != null && moreBtn.isEnabled()) loadMoreOrders();
+        });
+
+
+        // --- Route: open orders' stops in visiting order ---
+        routeModel = new DefaultListModel<>();
+        routeLabel = new JLabel("Route");
+        JPanel routePanel = new JPanel(new BorderLayout());
+        routePanel.setPreferredSize(new Dimension(260, 0));
+        routePanel.add(routeLabel, BorderLayout.NORTH);
+        routePanel.add(new JScrollPane(new JList<>(routeModel)), BorderLayout.CENTER);
 
 
         // --- Buttons ---
         JButton refreshBtn = new JButton("Refresh");
-        refreshBtn.addActionListener(e -> loadOrders());
+        refreshBtn.addActionListener(e -> applyOrderChanges());
+
+        moreBtn = new JButton("Load More");
+        moreBtn.addActionListener(e -> loadMoreOrders());
 
         JButton updateStatusBtn = new JButton("Update Status");
         updateStatusBtn.addActionListener(e -> updateOrderStatus());
 
+        JButton pickedUpBtn = new JButton("Picked Up");
+        pickedUpBtn.addActionListener(e -> markPickedUp());
+
         JPanel btnPanel = new JPanel();
         btnPanel.add(refreshBtn);
+        btnPanel.add(moreBtn);
         btnPanel.add(updateStatusBtn);
+        btnPanel.add(pickedUpBtn);
+
+        JLabel statusLabel = new JLabel(" ");
+        btnPanel.add(statusLabel);
+        tasks.setStatusLabel(statusLabel);
 
 
         // --- Add to Frame ---
         setLayout(new BorderLayout());
         add(headerPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
+        add(routePanel, BorderLayout.EAST);
         add(btnPanel, BorderLayout.SOUTH);
     }
 
@@ -86,22 +144,130 @@ public class DeliveryDashboard extends JFrame {
     }
 
     private void loadOrders() {
-        tableModel.setRowCount(0);
-
-        List<Order> orders = orderService.getOrdersByDeliveryPerson(deliveryPerson.getUserId());
-
-        for (Order order : orders) {
-            tableModel.addRow(new Object[]{
-                    order.getOrderId(),
-                    order.getCustomerId(),
-                    order.getRestaurantId(),
-                    order.getStatus().name(),
-                    order.getTotalAmount(),
-                    order.getOrderDate()
-            });
+        moreBtn.setEnabled(false);
+
+        // take the watermark first so nothing committed during the reload is missed
+        tasks.runLatest("orders", () -> orderService.getOrderChangesSince(orderScope(), null).getWatermark(),
+                watermark -> tasks.runLatest("orders",
+                        () -> orderService.getOrdersByDeliveryPerson(deliveryPerson.getUserId(), null, ORDER_PAGE_SIZE),
+                        page -> {
+                            tasks.cancel("changes"); // based on an older watermark
+                            changeWatermark = watermark;
+                            tableModel.clear();
+                            showOrderPage(page);
+                        }));
+        loadRoute();
+    }
+
+    // re-planned whenever an order of this delivery person is assigned or changes status
+    private void loadRoute() {
+        Set<Integer> onBoard = new HashSet<>(collected);
+        tasks.runLatest("route", () -> deliveryService.planRoute(deliveryPerson, onBoard), this::showRoute);
+    }
+
+    // the selected order is on board: its pickup leaves the route
+    private void markPickedUp() {
+        int selectedRow = ordersTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, "Select an order you have picked up.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        collected.add(tableModel.keyAt(selectedRow));
+        loadRoute();
+    }
+
+    private void showRoute(List<RouteStop> stops) {
+        routeModel.clear();
+        for (int i = 0; i < stops.size(); i++) {
+            routeModel.addElement((i + 1) + ". " + stops.get(i));
+        }
+        if (stops.isEmpty()) {
+            routeLabel.setText("Route: no open orders");
+        } else {
+            routeLabel.setText(String.format("Route: %d stops, %.1f km", stops.size(),
+                    StopSequencer.lengthKm(deliveryPerson.getLocation(), stops)));
         }
     }
 
+    private void loadMoreOrders() {
+        moreBtn.setEnabled(false);
+        OrderPage.Cursor after = nextCursor;
+        tasks.runLatest("orders",
+                () -> orderService.getOrdersByDeliveryPerson(deliveryPerson.getUserId(), after, ORDER_PAGE_SIZE),
+                this::showOrderPage);
+    }
+
+    private void showOrderPage(OrderPage page) {
+        tableModel.addRows(page.getOrders());
+        nextCursor = page.getNextCursor();
+        moreBtn.setEnabled(page.hasMore());
+    }
+
+    // merge only the orders assigned or changed since the last refresh
+    private void applyOrderChanges() {
+        if (changeWatermark == null) return; // initial load still running
+
+        Timestamp since = changeWatermark;
+        tasks.runLatest("changes", () -> orderService.getOrderChangesSince(orderScope(), since), changes -> {
+            changeWatermark = changes.getWatermark();
+
+            for (Order order : changes.getOrders()) {
+                mergeOrder(order);
+            }
+            if (!changes.getOrders().isEmpty()) loadRoute();
+        });
+    }
+
+    private void mergeOrder(Order order) {
+        int row = tableModel.findRow(order.getOrderId());
+        if (row >= 0) {
+            // unless the row already shows this version or a later one (events can arrive late)
+            if (tableModel.getRow(row).getVersion() < order.getVersion()) tableModel.updateRow(row, order);
+        } else {
+            // e.g. an older order assigned late; past the loaded rows it belongs to an unloaded page
+            int at = insertionRow(order);
+            if (at < tableModel.getRowCount() || nextCursor == null) tableModel.insertRow(at, order);
+        }
+    }
+
+    /** Assignments and status changes made in this process arrive as events on the EDT */
+    private void subscribeToOrderEvents() {
+        orderEvents = OrderEventBus.get().subscribe(orderScope(), SwingUtilities::invokeLater,
+                new OrderEventListener() {
+                    @Override
+                    public void onEvent(OrderEvent event) {
+                        mergeOrder(event.getOrder());
+                        loadRoute();
+                    }
+
+                    @Override
+                    public void onMissedEvents() {
+                        applyOrderChanges();
+                    }
+                });
+    }
+
+    @Override
+    public void dispose() {
+        if (orderEvents != null) orderEvents.close();
+        tasks.cancelAll();
+        super.dispose();
+    }
+
+    // first row that is older than the order (rows are newest first)
+    private int insertionRow(Order order) {
+        for (int row = 0; row < tableModel.getRowCount(); row++) {
+            Order shown = tableModel.getRow(row);
+            int cmp = shown.getOrderDate().compareTo(order.getOrderDate());
+            if (cmp < 0 || (cmp == 0 && shown.getOrderId() < order.getOrderId())) return row;
+        }
+        return tableModel.getRowCount();
+    }
+
+    private OrderScope orderScope() {
+        return OrderScope.deliveryPerson(deliveryPerson.getUserId());
+    }
+
     private void updateOrderStatus() {
         int selectedRow = ordersTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -109,9 +275,16 @@ public class DeliveryDashboard extends JFrame {
             return;
         }
 
-        int orderId = (int) tableModel.getValueAt(selectedRow, 0);
+        Order selected = tableModel.getRow(selectedRow);
+        int orderId = selected.getOrderId();
+        Order.OrderStatus current = selected.getStatus();
 
-        Order.OrderStatus[] statuses = Order.OrderStatus.values();
+        // only the moves allowed from the status on screen
+        Order.OrderStatus[] statuses = current.nextStatuses().toArray(new Order.OrderStatus[0]);
+        if (statuses.length == 0) {
+            JOptionPane.showMessageDialog(this, "Order is " + current + "; its status can no longer change.");
+            return;
+        }
         Order.OrderStatus newStatus = (Order.OrderStatus) JOptionPane.showInputDialog(
                 this,
                 "Select new status:",
@@ -123,14 +296,23 @@ public class DeliveryDashboard extends JFrame {
         );
 
         if (newStatus != null) {
-            boolean updated = orderService.updateOrderStatus(orderId, newStatus);
-
-            if (updated) {
-                JOptionPane.showMessageDialog(this, "Order status updated.");
-                loadOrders();
-            } else {
-                JOptionPane.showMessageDialog(this, "Failed to update status.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            // applies only if nobody changed the order since this row was shown
+            int version = selected.getVersion();
+            tasks.run(() -> orderService.updateOrderStatus(orderId, version, newStatus), result -> {
+                switch (result) {
+                    case UPDATED:
+                        JOptionPane.showMessageDialog(this, "Order status updated.");
+                        break;
+                    case CONFLICT:
+                    case NOT_ALLOWED:
+                        applyOrderChanges();
+                        JOptionPane.showMessageDialog(this, "Order #" + orderId + " was just changed elsewhere. "
+                                + "Check its new status and try again.", "Conflict", JOptionPane.WARNING_MESSAGE);
+                        break;
+                    default:
+                        JOptionPane.showMessageDialog(this, "Failed to update status.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
         }
     }
 }
@@ -1,10 +1,15 @@
 package GUI;
 
+import events.OrderEventBus;
 import models.Order;
+import models.OrderChanges;
+import models.OrderScope;
 import services.OrderService;
 
 import javax.swing.*;
 import java.awt.*;
+import java.sql.Timestamp;
+import java.util.List;
 
 public class DeliveryTrackingDialog extends JDialog {
 
@@ -13,11 +18,15 @@ public class DeliveryTrackingDialog extends JDialog {
     private OrderService orderService;
 
     private Timer timer;
+    private Timestamp changeWatermark;
+    private OrderEventBus.Subscription orderEvents;
+    private BackgroundTasks tasks;
 
     public DeliveryTrackingDialog(Frame parent, int orderId) {
         super(parent, "Delivery Tracking - Order " + orderId, true);
         this.orderId = orderId;
         this.orderService = new OrderService();
+        this.tasks = new BackgroundTasks(this);
 
         setSize(400, 250);
         setLocationRelativeTo(parent);
@@ -35,27 +44,53 @@ public class DeliveryTrackingDialog extends JDialog {
         startAutoRefresh();
     }
 
-    /** Auto-refresh every 4 seconds */
+    /** Status changes arrive as events; the slow poll only catches other terminals */
     private void startAutoRefresh() {
-        timer = new Timer(4000, e -> refreshStatus());
+        orderEvents = OrderEventBus.get().subscribe(OrderScope.order(orderId), SwingUtilities::invokeLater,
+                event -> showStatus(event.getOrder()));
+
+        timer = new Timer(30_000, e -> refreshStatus());
         timer.start();
         refreshStatus(); // first immediate update
     }
 
     private void refreshStatus() {
-        Order order = orderService.getOrderById(orderId);
-
-        if (order == null) {
-            statusLabel.setText("Order not found!");
+        if (changeWatermark != null) {
+            // later ticks only hit the database index and usually return nothing
+            Timestamp since = changeWatermark;
+            tasks.runLatest("status", () -> orderService.getOrderChangesSince(OrderScope.order(orderId), since),
+                    changes -> {
+                        changeWatermark = changes.getWatermark();
+
+                        List<Order> changed = changes.getOrders();
+                        if (!changed.isEmpty()) showStatus(changed.get(changed.size() - 1));
+                    });
             return;
         }
 
+        // watermark before the read, so a change committed in between is picked up by the next tick
+        tasks.runLatest("status", () -> orderService.getOrderChangesSince(OrderScope.order(orderId), null),
+                initial -> tasks.runLatest("status", () -> orderService.getOrderById(orderId), order -> {
+                    changeWatermark = initial.getWatermark();
+
+                    if (order == null) {
+                        statusLabel.setText("Order not found!");
+                        return;
+                    }
+
+                    showStatus(order);
+                }));
+    }
+
+    private void showStatus(Order order) {
         statusLabel.setText("Current Status: " + order.getStatus().name());
     }
 
     @Override
     public void dispose() {
         if (timer != null) timer.stop();
+        if (orderEvents != null) orderEvents.close();
+        tasks.cancelAll();
         super.dispose();
     }
 }
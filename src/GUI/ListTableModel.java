@@ -0,0 +1,236 @@
+package GUI;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Table model over a list of domain objects (orders, food items, cart lines).
+ * Rows are the objects themselves: a cell is computed from its row's object
+ * only when the table asks for it, which is when the cell is painted, so a
+ * long list costs one reference per row and formatting scales with what is
+ * on screen. Changes fire row-level events only.
+ *
+ * Rows carry an int key (e.g. the order id) for finding them again. Every
+ * column has class Object, so one renderer (e.g. status colours) covers the
+ * whole row. EDT only.
+ */
+class ListTableModel<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /** One column: header and how to get the cell from a row. */
+    static final class Column<T> {
+        final String name;
+        final Function<T, Object> value;
+
+        Column(String name, Function<T, Object> value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private final ToIntFunction<T> key;
+    private final List<Column<T>> columns;
+    private final List<T> rows = new ArrayList<>();
+
+    @SafeVarargs
+    ListTableModel(ToIntFunction<T> key, Column<T>... columns) {
+        this.key = key;
+        // copied element by element: handing the generic array on is what makes varargs unsafe
+        List<Column<T>> list = new ArrayList<>(columns.length);
+        for (Column<T> column : columns) list.add(column);
+        this.columns = List.copyOf(list);
+    }
+
+    static <T> Column<T> column(String name, Function<T, Object> value) {
+        return new Column<>(name, value);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int col) {
+        return columns.get(col).name;
+    }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        return columns.get(col).value.apply(rows.get(row));
+    }
+
+    T getRow(int row) {
+        return rows.get(row);
+    }
+
+    List<T> getRows() {
+        return List.copyOf(rows);
+    }
+
+    int keyAt(int row) {
+        return key.applyAsInt(rows.get(row));
+    }
+
+    /** Row holding the object with this key, or -1. */
+    int findRow(int rowKey) {
+        for (int row = 0; row < rows.size(); row++) {
+            if (key.applyAsInt(rows.get(row)) == rowKey) return row;
+        }
+        return -1;
+    }
+
+    void setRows(Collection<? extends T> all) {
+        rows.clear();
+        rows.addAll(all);
+        fireTableDataChanged();
+    }
+
+    void clear() {
+        setRows(List.of());
+    }
+
+    /**
+     * Makes the rows equal to wanted, matching rows by key: rows whose key is
+     * gone are deleted, new keys are inserted where wanted has them, and a kept
+     * row is updated only if unchanged says it differs. Kept rows out of
+     * wanted's order (rare: orders keep their place) are moved by deleting and
+     * re-inserting the fewest of them. Only row-level events fire, one per run
+     * of adjacent rows, so the table keeps its selection and scroll position
+     * and repaints what changed. Linear apart from the moves. Returns the
+     * inserted rows.
+     */
+    List<T> replaceRows(List<? extends T> wanted, BiPredicate<? super T, ? super T> unchanged) {
+        Map<Integer, Integer> wantedAt = new HashMap<>();
+        for (int i = 0; i < wanted.size(); i++) wantedAt.put(key.applyAsInt(wanted.get(i)), i);
+
+        Set<Integer> shown = new HashSet<>();
+        int[] target = new int[rows.size()]; // where wanted has each row, -1 if gone
+        for (int row = 0; row < rows.size(); row++) {
+            int rowKey = key.applyAsInt(rows.get(row));
+            shown.add(rowKey);
+            target[row] = wantedAt.getOrDefault(rowKey, -1);
+        }
+        boolean[] stays = inOrder(target);
+
+        // bottom up, so the rows above a run keep their index
+        for (int last = rows.size() - 1; last >= 0; last--) {
+            if (stays[last]) continue;
+            int first = last;
+            while (first > 0 && !stays[first - 1]) first--;
+            rows.subList(first, last + 1).clear();
+            fireTableRowsDeleted(first, last);
+            last = first;
+        }
+
+        // what is left is in wanted's order: fill the gaps and update changed rows
+        List<T> inserted = new ArrayList<>();
+        int updatedFrom = -1;
+        int row = 0;
+        while (row < wanted.size()) {
+            T value = wanted.get(row);
+            if (row < rows.size() && key.applyAsInt(rows.get(row)) == key.applyAsInt(value)) {
+                if (!unchanged.test(rows.get(row), value)) {
+                    rows.set(row, value);
+                    if (updatedFrom < 0) updatedFrom = row;
+                } else if (updatedFrom >= 0) {
+                    fireTableRowsUpdated(updatedFrom, row - 1);
+                    updatedFrom = -1;
+                }
+                row++;
+                continue;
+            }
+            if (updatedFrom >= 0) {
+                fireTableRowsUpdated(updatedFrom, row - 1);
+                updatedFrom = -1;
+            }
+
+            // everything up to the next kept row goes in at once
+            int end = row < rows.size() ? wantedAt.get(key.applyAsInt(rows.get(row))) : wanted.size();
+            List<? extends T> gap = wanted.subList(row, end);
+            rows.addAll(row, gap);
+            fireTableRowsInserted(row, end - 1);
+            for (T added : gap) {
+                if (!shown.contains(key.applyAsInt(added))) inserted.add(added);
+            }
+            row = end;
+        }
+        if (updatedFrom >= 0) fireTableRowsUpdated(updatedFrom, row - 1);
+        return inserted;
+    }
+
+    // rows to keep in place: a longest run, in row order, whose targets increase (-1 never stays)
+    private static boolean[] inOrder(int[] target) {
+        int[] tails = new int[target.length]; // tails[k]: row ending the best run of length k + 1 so far
+        int[] previous = new int[target.length];
+        int length = 0;
+        for (int row = 0; row < target.length; row++) {
+            if (target[row] < 0) continue;
+            int lo = 0, hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (target[tails[mid]] < target[row]) lo = mid + 1;
+                else hi = mid;
+            }
+            previous[row] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = row;
+            if (lo == length) length++;
+        }
+
+        boolean[] stays = new boolean[target.length];
+        for (int row = length > 0 ? tails[length - 1] : -1; row >= 0; row = previous[row]) stays[row] = true;
+        return stays;
+    }
+
+    void addRows(Collection<? extends T> more) {
+        if (more.isEmpty()) return;
+        int first = rows.size();
+        rows.addAll(more);
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    void insertRow(int row, T value) {
+        rows.add(row, value);
+        fireTableRowsInserted(row, row);
+    }
+
+    void updateRow(int row, T value) {
+        rows.set(row, value);
+        fireTableRowsUpdated(row, row);
+    }
+
+    void removeRow(int row) {
+        rows.remove(row);
+        fireTableRowsDeleted(row, row);
+    }
+
+    /**
+     * Runs loadMore whenever the table, inside scrollPane, shows one of its last
+     * prefetchRows rows; loadMore decides whether a page is due (e.g. none in
+     * flight and more to come).
+     */
+    static void whenScrolledNearEnd(JTable table, JScrollPane scrollPane, int prefetchRows, Runnable loadMore) {
+        scrollPane.getViewport().addChangeListener(e -> {
+            int rowHeight = Math.max(1, table.getRowHeight());
+            int lastVisible = (scrollPane.getViewport().getViewRect().y
+                    + scrollPane.getViewport().getExtentSize().height) / rowHeight;
+            if (table.getRowCount() > 0 && lastVisible >= table.getRowCount() - prefetchRows) loadMore.run();
+        });
+    }
+}
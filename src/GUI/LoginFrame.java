@@ -22,11 +22,14 @@ public class LoginFrame extends JFrame {
     private RestaurantService restaurantService;
     private DeliveryService deliveryService;
 
+    private BackgroundTasks tasks;
+
     public LoginFrame() {
 
         customerService = new CustomerService();
         restaurantService = new RestaurantService();
         deliveryService = new DeliveryService();
+        tasks = new BackgroundTasks(this);
 
         setTitle("Food Delivery - Login");
         setSize(420, 420);
@@ -115,6 +118,7 @@ public class LoginFrame extends JFrame {
 
         registerLink.addActionListener(e -> handleRegister());
         loginButton.addActionListener(e -> handleLogin());
+        tasks.disableWhileBusy(loginButton, registerLink);
     }
 
 
@@ -132,40 +136,42 @@ public class LoginFrame extends JFrame {
             return;
         }
 
+        // the lookup runs in the background; the frame switch happens back on the EDT
+        tasks.run(() -> authenticate(type, username, password), this::openDashboard);
+    }
+
+    /** Returns the logged-in Customer, Restaurant or DeliveryPerson, or null */
+    private Object authenticate(String type, String username, String password) {
+        if (type.equals("Customer")) return customerService.authenticateCustomer(username, password);
+        if (type.equals("Restaurant")) return restaurantService.authenticateRestaurant(username, password);
+        if (type.equals("Delivery")) return deliveryService.authenticateDelivery(username, password);
+        return null;
+    }
+
+    private void openDashboard(Object user) {
+
         /** CUSTOMER LOGIN **/
-        if (type.equals("Customer")) {
-            Customer c = customerService.authenticateCustomer(username, password);
-
-            if (c != null) {
-                JOptionPane.showMessageDialog(this, "Welcome, " + c.getUsername() + "!");
-                dispose();
-                new CustomerDashboard(c).setVisible(true);
-                return;
-            }
+        if (user instanceof Customer c) {
+            JOptionPane.showMessageDialog(this, "Welcome, " + c.getUsername() + "!");
+            dispose();
+            new CustomerDashboard(c).setVisible(true);
+            return;
         }
 
         /** RESTAURANT LOGIN **/
-        if (type.equals("Restaurant")) {
-            Restaurant r = restaurantService.authenticateRestaurant(username, password);
-
-            if (r != null) {
-                JOptionPane.showMessageDialog(this, "Welcome, " + r.getName() + "!");
-                dispose();
-                new RestaurantDashboard(r).setVisible(true);
-                return;
-            }
+        if (user instanceof Restaurant r) {
+            JOptionPane.showMessageDialog(this, "Welcome, " + r.getName() + "!");
+            dispose();
+            new RestaurantDashboard(r).setVisible(true);
+            return;
         }
 
         /** DELIVERY LOGIN **/
-        if (type.equals("Delivery")) {
-            DeliveryPerson d = deliveryService.authenticateDelivery(username, password);
-
-            if (d != null) {
-                JOptionPane.showMessageDialog(this, "Welcome, " + d.getName() + "!");
-                dispose();
-                new DeliveryDashboard(d).setVisible(true);
-                return;
-            }
+        if (user instanceof DeliveryPerson d) {
+            JOptionPane.showMessageDialog(this, "Welcome, " + d.getName() + "!");
+            dispose();
+            new DeliveryDashboard(d).setVisible(true);
+            return;
         }
 
         JOptionPane.showMessageDialog(this,
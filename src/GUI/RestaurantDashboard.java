@@ -1,30 +1,58 @@
 package GUI;
 
+import events.OrderEvent;
+import events.OrderEventBus;
+import events.OrderEventListener;
+import models.DeliveryPerson;
 import models.Order;
 import models.Order.OrderItem;
 import models.Order.OrderStatus;
+import models.OrderChanges;
+import models.OrderPage;
+import models.OrderScope;
 import models.Restaurant;
 import services.DeliveryService;
 import services.OrderService;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+
+import static GUI.ListTableModel.column;
 
 public class RestaurantDashboard extends JFrame {
 
+    private static final int ORDER_PAGE_SIZE = 50;
+    // updates arrive as events; this poll only catches writes made by other terminals
+    private static final int SAFETY_NET_REFRESH_MILLIS = 30_000;
+    private static final int DISPATCH_BATCH_LIMIT = 500;
+    private static final int PREFETCH_ROWS = 20; // fetch the next page when this close to the last row
+
     private Restaurant restaurant;
     private OrderService orderService;
     private DeliveryService deliveryService;
 
     private JTable ordersTable;
-    private DefaultTableModel tableModel;
+    private ListTableModel<Order> tableModel;
     private JComboBox<String> filterBox;
     private Timer autoRefreshTimer;
     private boolean playAlert = true; // avoid repeated beep spam
 
+    private JButton moreBtn;
+    private OrderPage.Cursor nextCursor;
+    private int newestOrderIdSeen; // detects new orders for the beep
+    private Map<OrderStatus, Integer> statusCounts = new EnumMap<>(OrderStatus.class);
+    private Timestamp changeWatermark; // orders changed after this are not on screen yet
+    private OrderEventBus.Subscription orderEvents;
+    private Timer countsRefreshTimer;  // coalesces badge count refreshes after bursts of events
+    private BackgroundTasks tasks;     // all service calls run here, off the EDT
+
     public RestaurantDashboard(Restaurant restaurant) {
         this.restaurant = restaurant;
         this.orderService = new OrderService();
@@ -35,17 +63,23 @@ public class RestaurantDashboard extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
+        tasks = new BackgroundTasks(this);
+
         initializeComponents();
         setupLayout();
         loadOrders();
+        subscribeToOrderEvents();
         startAutoRefresh();
     }
 
     private void initializeComponents() {
-        // table columns: Order ID, Customer ID, Status, Total, Date
-        tableModel = new DefaultTableModel(
-                new String[]{"Order ID", "Customer ID", "Status", "Total (₹)", "Order Date"}, 0
-        );
+        // rows are the orders themselves; cells are worked out as they are painted
+        tableModel = new ListTableModel<>(Order::getOrderId,
+                column("Order ID", Order::getOrderId),
+                column("Customer ID", Order::getCustomerId),
+                column("Status", o -> o.getStatus() != null ? o.getStatus().name() : "UNKNOWN"),
+                column("Total (₹)", o -> String.format("%.2f", o.getTotalAmount())),
+                column("Order Date", Order::getOrderDate));
 
         ordersTable = new JTable(tableModel);
         ordersTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -105,6 +139,17 @@ public class RestaurantDashboard extends JFrame {
                 "READY_FOR_PICKUP", "OUT_FOR_DELIVERY", "DELIVERED", "CANCELLED"
         };
         filterBox = new JComboBox<>(filterOptions);
+
+        // badge each status with its order count, e.g. "PENDING (3)"
+        filterBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value != null) setText(value + " (" + countFor(value.toString()) + ")");
+                return this;
+            }
+        });
     }
 
     private void setupLayout() {
@@ -128,10 +173,16 @@ public class RestaurantDashboard extends JFrame {
         JScrollPane scrollPane = new JScrollPane(ordersTable);
         add(scrollPane, BorderLayout.CENTER);
 
+        // older pages load as the user scrolls down to them; an enabled "Load More" means one is due
+        ListTableModel.whenScrolledNearEnd(ordersTable, scrollPane, PREFETCH_ROWS, () -> {
+            if (moreBtn != null && moreBtn.isEnabled()) loadMoreOrders();
+        });
+
         // bottom controls
         JPanel btnPanel = new JPanel();
 
         JButton refreshBtn = new JButton("Refresh");
+        moreBtn = new JButton("Load More");
         JButton viewDetailsBtn = new JButton("View Details");
         JButton acceptBtn = new JButton("Accept Order");
         JButton rejectBtn = new JButton("Reject Order");
@@ -139,10 +190,12 @@ public class RestaurantDashboard extends JFrame {
         JButton markReadyBtn = new JButton("Mark READY");
         JButton assignDeliveryBtn = new JButton("Assign Delivery");
         JButton smartAcceptBtn = new JButton("Smart Accept");
+        JButton dispatchReadyBtn = new JButton("Dispatch Ready");
 
         btnPanel.add(new JLabel("Filter:"));
         btnPanel.add(filterBox);
         btnPanel.add(refreshBtn);
+        btnPanel.add(moreBtn);
         btnPanel.add(viewDetailsBtn);
         btnPanel.add(acceptBtn);
         btnPanel.add(rejectBtn);
@@ -150,11 +203,17 @@ public class RestaurantDashboard extends JFrame {
         btnPanel.add(markReadyBtn);
         btnPanel.add(assignDeliveryBtn);
         btnPanel.add(smartAcceptBtn);
+        btnPanel.add(dispatchReadyBtn);
+
+        JLabel statusLabel = new JLabel(" ");
+        btnPanel.add(statusLabel);
+        tasks.setStatusLabel(statusLabel);
 
         add(btnPanel, BorderLayout.SOUTH);
 
         // events
         refreshBtn.addActionListener(e -> loadOrders());
+        moreBtn.addActionListener(e -> loadMoreOrders());
         viewDetailsBtn.addActionListener(e -> viewOrderDetails());
         acceptBtn.addActionListener(e -> updateStatus(OrderStatus.CONFIRMED));
         rejectBtn.addActionListener(e -> updateStatus(OrderStatus.CANCELLED));
@@ -162,6 +221,7 @@ public class RestaurantDashboard extends JFrame {
         markReadyBtn.addActionListener(e -> updateStatus(OrderStatus.READY_FOR_PICKUP));
         assignDeliveryBtn.addActionListener(e -> assignDeliveryPerson());
         smartAcceptBtn.addActionListener(e -> smartAccept());
+        dispatchReadyBtn.addActionListener(e -> dispatchReady());
 
         filterBox.addActionListener(e -> loadOrders());
     }
@@ -175,46 +235,188 @@ public class RestaurantDashboard extends JFrame {
         }
     }
 
-    // Load orders and apply status filter
+    // Reload the newest orders (as many as are currently loaded) with the status filter applied in SQL,
+    // diffed into the table by order id so selection and scroll position survive.
+    // A newer reload (e.g. the filter changed again) supersedes one still in flight.
     private void loadOrders() {
-        // preserve row count to detect new orders for beep
-        int oldCount = tableModel.getRowCount();
+        int pageSize = Math.max(ORDER_PAGE_SIZE, tableModel.getRowCount());
+        EnumSet<OrderStatus> statuses = selectedStatuses();
+        moreBtn.setEnabled(false);
+
+        // take the watermark first so nothing committed during the reload is missed
+        tasks.runLatest("orders", () -> orderService.getOrderChangesSince(orderScope(), null).getWatermark(),
+                watermark -> tasks.runLatest("orders",
+                        () -> orderService.getOrdersByRestaurant(restaurant.getUserId(), statuses, null, pageSize),
+                        page -> {
+                            tasks.cancel("changes"); // based on an older watermark
+                            changeWatermark = watermark;
+                            List<Order> inserted = tableModel.replaceRows(page.getOrders(),
+                                    (shown, loaded) -> shown.getVersion() == loaded.getVersion());
+                            nextCursor = page.getNextCursor();
+                            moreBtn.setEnabled(page.hasMore());
+
+                            refreshStatusCounts();
+
+                            // beep if a row went in for an order newer than any seen before and playAlert true
+                            if (countNewOrders(inserted) > 0 && playAlert) {
+                                Toolkit.getDefaultToolkit().beep();
+                            }
+                        }));
+    }
 
-        tableModel.setRowCount(0);
+    private void loadMoreOrders() {
+        OrderPage.Cursor after = nextCursor;
+        EnumSet<OrderStatus> statuses = selectedStatuses();
+        moreBtn.setEnabled(false);
 
-        String filter = (String) filterBox.getSelectedItem();
-        if (filter == null) filter = "ALL";
+        tasks.runLatest("orders",
+                () -> orderService.getOrdersByRestaurant(restaurant.getUserId(), statuses, after, ORDER_PAGE_SIZE),
+                this::showOrderPage);
+    }
+
+    // Append one page of older orders
+    private void showOrderPage(OrderPage page) {
+        countNewOrders(page.getOrders());
+        tableModel.addRows(page.getOrders());
 
-        List<Order> orders = orderService.getOrdersByRestaurant(restaurant.getUserId());
+        nextCursor = page.getNextCursor();
+        moreBtn.setEnabled(page.hasMore());
+    }
 
+    // How many of the orders are newer than any seen before; they count as seen from now on
+    private int countNewOrders(List<Order> orders) {
+        int newOrders = 0;
+        int newest = newestOrderIdSeen;
         for (Order order : orders) {
-            if (!"ALL".equals(filter) && order.getStatus() != null && !order.getStatus().name().equals(filter)) {
-                continue;
-            }
+            if (order.getOrderId() > newestOrderIdSeen) newOrders++;
+            newest = Math.max(newest, order.getOrderId());
+        }
+        newestOrderIdSeen = newest;
+        return newOrders;
+    }
+
+    // Merge orders inserted or changed since the last refresh into the table
+    private void applyOrderChanges() {
+        if (changeWatermark == null) return; // initial load still running
+
+        Timestamp since = changeWatermark;
+        tasks.runLatest("changes", () -> orderService.getOrderChangesSince(orderScope(), since), this::mergeChanges);
+    }
+
+    private void mergeChanges(OrderChanges changes) {
+        changeWatermark = changes.getWatermark();
+        if (changes.isEmpty()) return;
+
+        EnumSet<OrderStatus> statuses = selectedStatuses();
+        boolean hasNewOrders = false;
 
-            tableModel.addRow(new Object[]{
-                    order.getOrderId(),
-                    order.getCustomerId(),
-                    order.getStatus() != null ? order.getStatus().name() : "UNKNOWN",
-                    String.format("%.2f", order.getTotalAmount()),
-                    order.getOrderDate()
-            });
+        for (Order order : changes.getOrders()) {
+            hasNewOrders |= mergeOrder(order, statuses);
         }
 
-        // beep if new rows and playAlert true
-        int newCount = tableModel.getRowCount();
-        if (newCount > oldCount && playAlert) {
+        refreshStatusCounts();
+
+        if (hasNewOrders && playAlert) {
             Toolkit.getDefaultToolkit().beep();
         }
     }
 
+    // Insert, update or remove the row for one order; returns true if the order is new
+    private boolean mergeOrder(Order order, EnumSet<OrderStatus> statuses) {
+        boolean isNew = order.getOrderId() > newestOrderIdSeen;
+        if (isNew) newestOrderIdSeen = order.getOrderId();
+
+        int row = tableModel.findRow(order.getOrderId());
+        // the row already shows this version or a later one (events and change reads can arrive late)
+        if (row >= 0 && tableModel.getRow(row).getVersion() >= order.getVersion()) return isNew;
+        boolean visible = statuses == null || statuses.contains(order.getStatus());
+
+        if (!visible) {
+            if (row >= 0) tableModel.removeRow(row);
+        } else if (row >= 0) {
+            tableModel.updateRow(row, order);
+        } else {
+            int at = insertionRow(order);
+            // older than everything loaded while more pages exist: it belongs to an unloaded page
+            if (at < tableModel.getRowCount() || nextCursor == null) {
+                tableModel.insertRow(at, order);
+            }
+        }
+        return isNew;
+    }
+
+    private void refreshStatusCounts() {
+        tasks.runLatest("counts", () -> orderService.getOrderCountsByStatus(restaurant.getUserId()), counts -> {
+            statusCounts = counts;
+            filterBox.repaint();
+        });
+    }
+
+    /** Live updates: events from OrderService / DeliveryService, delivered on the EDT */
+    private void subscribeToOrderEvents() {
+        countsRefreshTimer = new Timer(500, e -> refreshStatusCounts());
+        countsRefreshTimer.setRepeats(false);
+
+        orderEvents = OrderEventBus.get().subscribe(orderScope(), SwingUtilities::invokeLater,
+                new OrderEventListener() {
+                    @Override
+                    public void onEvent(OrderEvent event) {
+                        boolean isNew = mergeOrder(event.getOrder(), selectedStatuses());
+                        countsRefreshTimer.restart();
+                        if (isNew && playAlert) {
+                            Toolkit.getDefaultToolkit().beep();
+                        }
+                    }
+
+                    @Override
+                    public void onMissedEvents() {
+                        applyOrderChanges();
+                    }
+                });
+    }
+
+    // first row that is older than the order (rows are newest first)
+    private int insertionRow(Order order) {
+        for (int row = 0; row < tableModel.getRowCount(); row++) {
+            Order shown = tableModel.getRow(row);
+            int cmp = shown.getOrderDate().compareTo(order.getOrderDate());
+            if (cmp < 0 || (cmp == 0 && shown.getOrderId() < order.getOrderId())) return row;
+        }
+        return tableModel.getRowCount();
+    }
+
+    private OrderScope orderScope() {
+        return OrderScope.restaurant(restaurant.getUserId());
+    }
+
+    // null means no filter ("ALL")
+    private EnumSet<OrderStatus> selectedStatuses() {
+        String filter = (String) filterBox.getSelectedItem();
+        if (filter == null || "ALL".equals(filter)) return null;
+        return EnumSet.of(OrderStatus.valueOf(filter));
+    }
+
+    private int countFor(String filter) {
+        if ("ALL".equals(filter)) {
+            int total = 0;
+            for (int n : statusCounts.values()) total += n;
+            return total;
+        }
+        return statusCounts.getOrDefault(OrderStatus.valueOf(filter), 0);
+    }
+
     private int getSelectedOrderId() {
+        Order order = getSelectedOrder();
+        return order == null ? -1 : order.getOrderId();
+    }
+
+    private Order getSelectedOrder() {
         int row = ordersTable.getSelectedRow();
         if (row == -1) {
             JOptionPane.showMessageDialog(this, "Select an order first.");
-            return -1;
+            return null;
         }
-        return (int) tableModel.getValueAt(row, 0);
+        return tableModel.getRow(row);
     }
 
     /** VIEW ITEMS using OrderService.getOrderItems(orderId) */
@@ -222,8 +424,10 @@ public class RestaurantDashboard extends JFrame {
         int orderId = getSelectedOrderId();
         if (orderId == -1) return;
 
-        List<OrderItem> list = orderService.getOrderItems(orderId);
+        tasks.run(() -> orderService.getOrderItems(orderId), list -> showOrderDetails(orderId, list));
+    }
 
+    private void showOrderDetails(int orderId, List<OrderItem> list) {
         if (list == null || list.isEmpty()) {
             JOptionPane.showMessageDialog(this, "No items found for this order.");
             return;
@@ -248,17 +452,30 @@ public class RestaurantDashboard extends JFrame {
 
     /** Update order status */
     private void updateStatus(OrderStatus status) {
-        int orderId = getSelectedOrderId();
-        if (orderId == -1) return;
-
-        boolean ok = orderService.updateOrderStatus(orderId, status);
+        Order selected = getSelectedOrder();
+        if (selected == null) return;
 
-        if (ok) {
-            JOptionPane.showMessageDialog(this, "Order updated to: " + status);
-            loadOrders();
-        } else {
-            JOptionPane.showMessageDialog(this, "Failed to update order.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        // applies only if nobody changed the order since this row was shown
+        int orderId = selected.getOrderId();
+        int version = selected.getVersion();
+        tasks.run(() -> orderService.updateOrderStatus(orderId, version, status), result -> {
+            switch (result) {
+                case UPDATED:
+                    JOptionPane.showMessageDialog(this, "Order updated to: " + status);
+                    break;
+                case CONFLICT:
+                    applyOrderChanges();
+                    JOptionPane.showMessageDialog(this, "Order #" + orderId + " was just changed elsewhere. "
+                            + "Check its new status and try again.", "Conflict", JOptionPane.WARNING_MESSAGE);
+                    break;
+                case NOT_ALLOWED:
+                    JOptionPane.showMessageDialog(this, "Order #" + orderId + " cannot move to " + status
+                            + " from its current status.", "Error", JOptionPane.ERROR_MESSAGE);
+                    break;
+                default:
+                    JOptionPane.showMessageDialog(this, "Failed to update order.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 
     /** Assign delivery person (manual) */
@@ -266,84 +483,92 @@ public class RestaurantDashboard extends JFrame {
         int orderId = getSelectedOrderId();
         if (orderId == -1) return;
 
-        List<String> deliveryList = deliveryService.getAvailableDeliveryNames();
+        tasks.run(deliveryService::getAvailableDeliveryPersons, list -> chooseDeliveryPerson(orderId, list));
+    }
+
+    private void chooseDeliveryPerson(int orderId, List<DeliveryPerson> deliveryList) {
         if (deliveryList == null || deliveryList.isEmpty()) {
             JOptionPane.showMessageDialog(this, "No delivery persons available.");
             return;
         }
 
+        String[] names = new String[deliveryList.size()];
+        for (int i = 0; i < names.length; i++) names[i] = deliveryList.get(i).getName();
+
         String selected = (String) JOptionPane.showInputDialog(
                 this,
                 "Select Delivery Person:",
                 "Assign Delivery",
                 JOptionPane.QUESTION_MESSAGE,
                 null,
-                deliveryList.toArray(),
-                deliveryList.get(0)
+                names,
+                names[0]
         );
 
         if (selected == null) return;
 
-        int deliveryId = deliveryService.getDeliveryIdByName(selected);
-        if (deliveryId <= 0) {
-            JOptionPane.showMessageDialog(this, "Invalid delivery person selected.");
-            return;
-        }
+        // the list already carries ids: no lookup by name
+        int deliveryId = deliveryList.get(List.of(names).indexOf(selected)).getUserId();
 
-        boolean ok = deliveryService.assignDelivery(orderId, deliveryId);
-        if (ok) {
-            orderService.updateOrderStatus(orderId, OrderStatus.OUT_FOR_DELIVERY);
-            JOptionPane.showMessageDialog(this, "Assigned to " + selected);
-            loadOrders();
-        } else {
-            JOptionPane.showMessageDialog(this, "Assignment failed.");
-        }
+        tasks.run(() -> deliveryService.assignDelivery(orderId, deliveryId), ok -> {
+            if (ok) {
+                JOptionPane.showMessageDialog(this, "Assigned to " + selected);
+            } else {
+                JOptionPane.showMessageDialog(this, selected + " is no longer available, or the order is not ready for pickup or already has a delivery person.");
+            }
+        });
     }
 
-    /** Smart accept: accept + auto assign first available delivery */
+    /** Smart accept: accept + auto assign the nearest (or longest idle) delivery person */
     private void smartAccept() {
         int orderId = getSelectedOrderId();
         if (orderId == -1) return;
 
-        List<String> list = deliveryService.getAvailableDeliveryNames();
-        if (list == null || list.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No delivery persons available.");
-            return;
-        }
-
-        String selected = list.get(0); // pick first available
-        int deliveryId = deliveryService.getDeliveryIdByName(selected);
-        if (deliveryId <= 0) {
-            JOptionPane.showMessageDialog(this, "Failed to find delivery ID.");
-            return;
-        }
+        // nearest free delivery person to this restaurant when it has a position, else longest idle
+        tasks.run(() -> deliveryService.dispatchOrder(orderId, restaurant.getLocation()), assigned -> {
+            if (assigned != null) {
+                JOptionPane.showMessageDialog(this, "Accepted and assigned to: " + assigned.getName());
+            } else if (deliveryService.isBatching()) {
+                JOptionPane.showMessageDialog(this, "Accepted. A delivery person will be assigned once the order is ready for pickup.");
+            } else {
+                JOptionPane.showMessageDialog(this, "No delivery person yet. The order will be assigned to the next one free once it is ready for pickup.");
+            }
+        });
+    }
 
-        boolean assigned = deliveryService.assignDelivery(orderId, deliveryId);
-        if (assigned) {
-            orderService.updateOrderStatus(orderId, OrderStatus.OUT_FOR_DELIVERY);
-            JOptionPane.showMessageDialog(this, "Accepted and assigned to: " + selected);
-            loadOrders();
-        } else {
-            JOptionPane.showMessageDialog(this, "Smart accept failed.");
-        }
+    /** Dispatch ready: assign every READY order without a delivery person in one batch */
+    private void dispatchReady() {
+        tasks.run(() -> {
+            OrderPage page = orderService.getOrdersByRestaurant(restaurant.getUserId(),
+                    EnumSet.of(OrderStatus.READY_FOR_PICKUP), null, DISPATCH_BATCH_LIMIT);
+            List<Integer> unassigned = new ArrayList<>();
+            for (Order o : page.getOrders()) {
+                if (o.getDeliveryId() == 0) unassigned.add(o.getOrderId());
+            }
+            int assigned = unassigned.isEmpty() ? 0
+                    : deliveryService.dispatchOrders(unassigned, restaurant.getLocation()).size();
+            return new int[]{unassigned.size(), assigned};
+        }, counts -> {
+            if (counts[0] == 0) {
+                JOptionPane.showMessageDialog(this, "No ready orders are waiting for a delivery person.");
+            } else if (deliveryService.isBatching()) {
+                JOptionPane.showMessageDialog(this, counts[0] + " order(s) queued for the next dispatch batch.");
+            } else {
+                JOptionPane.showMessageDialog(this, "Assigned " + counts[1] + " of " + counts[0]
+                        + " ready order(s); the rest go to the next delivery person free.");
+            }
+        });
     }
 
-    /** Auto-refresh orders every 5 seconds */
+    /** Safety-net refresh for changes made outside this process */
     private void startAutoRefresh() {
         // stop existing
         if (autoRefreshTimer != null && autoRefreshTimer.isRunning()) autoRefreshTimer.stop();
 
-        autoRefreshTimer = new Timer(5000, e -> {
-            // remember current selection and scroll position optionally
-            int selectedRow = ordersTable.getSelectedRow();
-            loadOrders();
-
-            // restore selection if possible
-            if (selectedRow >= 0 && selectedRow < ordersTable.getRowCount()) {
-                ordersTable.setRowSelectionInterval(selectedRow, selectedRow);
-            }
-        });
-        autoRefreshTimer.setInitialDelay(5000);
+        // only orders changed since the last tick are fetched and merged;
+        // the table keeps its selection and scroll position
+        autoRefreshTimer = new Timer(SAFETY_NET_REFRESH_MILLIS, e -> applyOrderChanges());
+        autoRefreshTimer.setInitialDelay(SAFETY_NET_REFRESH_MILLIS);
         autoRefreshTimer.start();
     }
 
@@ -351,6 +576,9 @@ public class RestaurantDashboard extends JFrame {
     @Override
     public void dispose() {
         if (autoRefreshTimer != null) autoRefreshTimer.stop();
+        if (countsRefreshTimer != null) countsRefreshTimer.stop();
+        if (orderEvents != null) orderEvents.close();
+        tasks.cancelAll();
         super.dispose();
     }
 }
@@ -78,15 +78,18 @@ public class RestaurantRegistrationDialog extends JDialog {
 
         Restaurant restaurant = new Restaurant(username, email, password, phone, name, address, cuisineType);
         RestaurantService service = new RestaurantService();
-        boolean success = service.registerRestaurant(restaurant);
-
-        if (success) {
-            JOptionPane.showMessageDialog(this, "Registration successful!");
-            registered = true;
-            dispose();
-        } else {
-            JOptionPane.showMessageDialog(this, "Registration failed.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+
+        BackgroundTasks tasks = new BackgroundTasks(this);
+        tasks.disableWhileBusy(registerButton);
+        tasks.run(() -> service.registerRestaurant(restaurant), success -> {
+            if (success) {
+                JOptionPane.showMessageDialog(this, "Registration successful!");
+                registered = true;
+                dispose();
+            } else {
+                JOptionPane.showMessageDialog(this, "Registration failed.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 
     public boolean isRegistered() {
@@ -0,0 +1,42 @@
+package events;
+
+import models.Order;
+
+/**
+ * Something that happened to an order, published after the change was committed.
+ * Carries a snapshot of the order as it was right after the change.
+ */
+public abstract class OrderEvent {
+
+    private final Order order;
+    private final long publishedAt;
+
+    protected OrderEvent(Order order) {
+        this.order = order;
+        this.publishedAt = System.currentTimeMillis();
+    }
+
+    public Order getOrder() { return order; }
+    public int getOrderId() { return order.getOrderId(); }
+    public long getPublishedAt() { return publishedAt; }
+
+    /** A customer placed a new order. */
+    public static final class OrderPlaced extends OrderEvent {
+        public OrderPlaced(Order order) { super(order); }
+    }
+
+    /** The order moved to a new status (see getOrder().getStatus()). */
+    public static final class StatusChanged extends OrderEvent {
+        public StatusChanged(Order order) { super(order); }
+    }
+
+    /** A delivery person was assigned (see getOrder().getDeliveryId()). */
+    public static final class CourierAssigned extends OrderEvent {
+        public CourierAssigned(Order order) { super(order); }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[order=" + order.getOrderId() + ", status=" + order.getStatus() + "]";
+    }
+}
@@ -0,0 +1,136 @@
+package events;
+
+import models.OrderScope;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process publish/subscribe for order events, so screens get updates
+ * without polling the database.
+ *
+ * publish() never blocks and takes no locks: it walks a copy-on-write
+ * subscriber array and appends to each matching subscriber's lock-free
+ * queue. Every subscriber's queue is bounded; when it is full, further
+ * events are dropped and the subscriber gets onMissedEvents() instead, so a
+ * stuck screen cannot make the publisher (or memory) pay for it.
+ *
+ * Only changes made by this JVM are seen, so screens keep a slow
+ * changes-since poll as a safety net for writes from other terminals.
+ */
+public class OrderEventBus {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final OrderEventBus DEFAULT = new OrderEventBus(DEFAULT_QUEUE_CAPACITY);
+
+    private final int queueCapacity;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public OrderEventBus(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /** The bus shared by the services and the GUI. */
+    public static OrderEventBus get() {
+        return DEFAULT;
+    }
+
+    /**
+     * Subscribe to events for orders in scope (null = every order). The
+     * listener is always called on executor, one event at a time, in
+     * publish order; use SwingUtilities::invokeLater for Swing components.
+     */
+    public Subscription subscribe(OrderScope scope, Executor executor, OrderEventListener listener) {
+        Subscription s = new Subscription(scope, executor, listener);
+        subscriptions.add(s);
+        return s;
+    }
+
+    public void publish(OrderEvent event) {
+        for (Subscription s : subscriptions) {
+            if (s.scope == null || s.scope.contains(event.getOrder())) {
+                s.offer(event);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /** One subscriber; close() to stop receiving events. */
+    public final class Subscription implements AutoCloseable {
+        private final OrderScope scope;
+        private final Executor executor;
+        private final OrderEventListener listener;
+
+        private final ConcurrentLinkedQueue<OrderEvent> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean missed = new AtomicBoolean();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscription(OrderScope scope, Executor executor, OrderEventListener listener) {
+            this.scope = scope;
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        private void offer(OrderEvent event) {
+            if (size.incrementAndGet() > queueCapacity) {
+                size.decrementAndGet();
+                missed.set(true);
+            } else {
+                queue.offer(event);
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!closed && drainScheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (missed.getAndSet(false) && !closed) {
+                    // whatever is still queued is older than the dropped events
+                    while (queue.poll() != null) size.decrementAndGet();
+                    try {
+                        listener.onMissedEvents();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+
+                OrderEvent event;
+                while (!closed && (event = queue.poll()) != null) {
+                    size.decrementAndGet();
+                    try {
+                        listener.onEvent(event);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            } finally {
+                drainScheduled.set(false);
+            }
+
+            // an event may have arrived after the last poll but before the flag was cleared
+            if (!closed && (!queue.isEmpty() || missed.get())) scheduleDrain();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            queue.clear();
+        }
+    }
+}
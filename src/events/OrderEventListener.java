@@ -0,0 +1,15 @@
+package events;
+
+/**
+ * Receives order events on the executor it subscribed with.
+ */
+public interface OrderEventListener {
+
+    void onEvent(OrderEvent event);
+
+    /**
+     * Called instead of delivering events that were dropped because this
+     * subscriber fell too far behind. Re-read the state to catch up.
+     */
+    default void onMissedEvents() {}
+}
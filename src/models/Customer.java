@@ -5,6 +5,7 @@ import java.util.List;
 
 public class Customer extends User {
     private String address;
+    private GeoPoint location; // null when unknown
     private List<Order> orders;
 
     public Customer() {
@@ -21,6 +22,9 @@ public class Customer extends User {
     public String getAddress() { return address; }
     public void setAddress(String address) { this.address = address; }
 
+    public GeoPoint getLocation() { return location; }
+    public void setLocation(GeoPoint location) { this.location = location; }
+
     public List<Order> getOrders() { return orders; }
     public void setOrders(List<Order> orders) { this.orders = orders; }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ public class DeliveryPerson extends User {
     private boolean available;
     private String vehicleType;
     private String licenseNumber;
+    private GeoPoint location; // last reported position, null when unknown
 
     public DeliveryPerson() {
         super();
@@ -29,6 +30,14 @@ public class DeliveryPerson extends User {
         this.available = available;
     }
 
+    public GeoPoint getLocation() {
+        return location;
+    }
+
+    public void setLocation(GeoPoint location) {
+        this.location = location;
+    }
+
     // optional fields
     public String getVehicleType() {
         return vehicleType;
@@ -0,0 +1,18 @@
+package models;
+
+/**
+ * Dimensions the menu can be filtered on.
+ */
+public enum MenuFacet {
+    CATEGORY("Category"),  // FoodItem.category
+    CUISINE("Cuisine"),    // the restaurant's cuisine type
+    PRICE("Price");        // a PriceBand label
+
+    private final String label;
+
+    MenuFacet(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+}
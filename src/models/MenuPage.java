@@ -0,0 +1,32 @@
+package models;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtered menu items plus the facet counts to show next to each filter value.
+ */
+public class MenuPage {
+
+    private final List<FoodItem> items;
+    private final int totalMatches;
+    private final Map<MenuFacet, Map<String, Integer>> facetCounts;
+
+    public MenuPage(List<FoodItem> items, int totalMatches, Map<MenuFacet, Map<String, Integer>> facetCounts) {
+        this.items = items;
+        this.totalMatches = totalMatches;
+        this.facetCounts = facetCounts;
+    }
+
+    /** The first matches, up to the requested limit. */
+    public List<FoodItem> getItems() { return items; }
+
+    /** Every item that matches, including those past the limit. */
+    public int getTotalMatches() { return totalMatches; }
+
+    /**
+     * Per facet, value -> matching items if that value were (also) picked,
+     * given the other facets' selection. Values in display order.
+     */
+    public Map<MenuFacet, Map<String, Integer>> getFacetCounts() { return facetCounts; }
+}
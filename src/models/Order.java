@@ -2,7 +2,12 @@ package models;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class Order {
 
@@ -13,12 +18,54 @@ public class Order {
     private double totalAmount;
     private OrderStatus status;
     private String deliveryAddress;
+    private GeoPoint deliveryLocation; // drop-off, null when unknown
     private Timestamp orderDate;
+    private Timestamp updatedAt; // last insert / status / courier change
+    private int version;         // bumped by every status / courier change
 
     private List<OrderItem> items;
 
+    /**
+     * Statuses only move forward (assigning a courier is OUT_FOR_DELIVERY);
+     * DELIVERED and CANCELLED are final.
+     */
     public enum OrderStatus {
-        PENDING, CONFIRMED, PREPARING,READY_FOR_PICKUP, OUT_FOR_DELIVERY, DELIVERED, CANCELLED
+        PENDING, CONFIRMED, PREPARING,READY_FOR_PICKUP, OUT_FOR_DELIVERY, DELIVERED, CANCELLED;
+
+        private static final Map<OrderStatus, Set<OrderStatus>> NEXT = new EnumMap<>(OrderStatus.class);
+        private static final Map<OrderStatus, Set<OrderStatus>> PREVIOUS = new EnumMap<>(OrderStatus.class);
+
+        static {
+            allow(PENDING, CONFIRMED, OUT_FOR_DELIVERY, CANCELLED);
+            allow(CONFIRMED, PREPARING, READY_FOR_PICKUP, OUT_FOR_DELIVERY, CANCELLED);
+            allow(PREPARING, READY_FOR_PICKUP, OUT_FOR_DELIVERY, CANCELLED);
+            allow(READY_FOR_PICKUP, OUT_FOR_DELIVERY, CANCELLED);
+            allow(OUT_FOR_DELIVERY, DELIVERED, CANCELLED);
+            allow(DELIVERED);
+            allow(CANCELLED);
+        }
+
+        private static void allow(OrderStatus from, OrderStatus... to) {
+            Set<OrderStatus> next = to.length == 0 ? EnumSet.noneOf(OrderStatus.class) : EnumSet.of(to[0], to);
+            NEXT.put(from, Collections.unmodifiableSet(next));
+            for (OrderStatus s : to) {
+                PREVIOUS.computeIfAbsent(s, k -> EnumSet.noneOf(OrderStatus.class)).add(from);
+            }
+        }
+
+        public boolean canMoveTo(OrderStatus next) {
+            return NEXT.get(this).contains(next);
+        }
+
+        /** Statuses this one may move to. */
+        public Set<OrderStatus> nextStatuses() {
+            return NEXT.get(this);
+        }
+
+        /** Statuses that may move to this one. */
+        public Set<OrderStatus> previousStatuses() {
+            return Collections.unmodifiableSet(PREVIOUS.getOrDefault(this, EnumSet.noneOf(OrderStatus.class)));
+        }
     }
 
     /** ============================
@@ -114,9 +161,18 @@ public class Order {
     public String getDeliveryAddress() { return deliveryAddress; }
     public void setDeliveryAddress(String deliveryAddress) { this.deliveryAddress = deliveryAddress; }
 
+    public GeoPoint getDeliveryLocation() { return deliveryLocation; }
+    public void setDeliveryLocation(GeoPoint deliveryLocation) { this.deliveryLocation = deliveryLocation; }
+
     public Timestamp getOrderDate() { return orderDate; }
     public void setOrderDate(Timestamp orderDate) { this.orderDate = orderDate; }
 
+    public Timestamp getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Timestamp updatedAt) { this.updatedAt = updatedAt; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
     public List<OrderItem> getItems() { return items; }
     public void setItems(List<OrderItem> items) { this.items = items; }
 }
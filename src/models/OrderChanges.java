@@ -0,0 +1,25 @@
+package models;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Orders inserted or changed since a watermark, and the watermark to pass next time.
+ */
+public class OrderChanges {
+
+    private final List<Order> orders;
+    private final Timestamp watermark;
+
+    public OrderChanges(List<Order> orders, Timestamp watermark) {
+        this.orders = orders;
+        this.watermark = watermark;
+    }
+
+    /** Changed orders, oldest change first. May repeat orders already seen. */
+    public List<Order> getOrders() { return orders; }
+
+    public Timestamp getWatermark() { return watermark; }
+
+    public boolean isEmpty() { return orders.isEmpty(); }
+}
@@ -0,0 +1,58 @@
+package models;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of an order history, newest first, plus the cursor for the next page.
+ */
+public class OrderPage {
+
+    private final List<Order> orders;
+    private final Cursor nextCursor;
+
+    /**
+     * Keyset position in ORDER BY order_date DESC, order_id DESC order.
+     * The next page starts strictly after (older than) this order.
+     */
+    public static class Cursor {
+        private final Timestamp orderDate;
+        private final int orderId;
+
+        public Cursor(Timestamp orderDate, int orderId) {
+            this.orderDate = orderDate;
+            this.orderId = orderId;
+        }
+
+        public static Cursor after(Order order) {
+            return new Cursor(order.getOrderDate(), order.getOrderId());
+        }
+
+        public Timestamp getOrderDate() { return orderDate; }
+        public int getOrderId() { return orderId; }
+    }
+
+    public OrderPage(List<Order> orders, Cursor nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from a query that fetched up to pageSize + 1 rows;
+     * the extra row only signals that another page exists.
+     */
+    public static OrderPage of(List<Order> fetched, int pageSize) {
+        if (fetched.size() <= pageSize) return new OrderPage(fetched, null);
+
+        List<Order> page = new ArrayList<>(fetched.subList(0, pageSize));
+        return new OrderPage(page, Cursor.after(page.get(pageSize - 1)));
+    }
+
+    public List<Order> getOrders() { return orders; }
+
+    /** null when this is the last page. */
+    public Cursor getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,43 @@
+package models;
+
+/**
+ * The set of orders a screen is watching: one customer's, one restaurant's,
+ * one delivery person's, or a single order.
+ */
+public class OrderScope {
+
+    public enum Type {
+        CUSTOMER, RESTAURANT, DELIVERY_PERSON, ORDER
+    }
+
+    private final Type type;
+    private final int id;
+
+    private OrderScope(Type type, int id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    public static OrderScope customer(int customerId) { return new OrderScope(Type.CUSTOMER, customerId); }
+    public static OrderScope restaurant(int restaurantId) { return new OrderScope(Type.RESTAURANT, restaurantId); }
+    public static OrderScope deliveryPerson(int deliveryId) { return new OrderScope(Type.DELIVERY_PERSON, deliveryId); }
+    public static OrderScope order(int orderId) { return new OrderScope(Type.ORDER, orderId); }
+
+    public Type getType() { return type; }
+    public int getId() { return id; }
+
+    /** True if the order belongs to this scope. */
+    public boolean contains(Order order) {
+        switch (type) {
+            case CUSTOMER: return order.getCustomerId() == id;
+            case RESTAURANT: return order.getRestaurantId() == id;
+            case DELIVERY_PERSON: return order.getDeliveryId() == id;
+            default: return order.getOrderId() == id;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + id;
+    }
+}
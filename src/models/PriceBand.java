@@ -0,0 +1,33 @@
+package models;
+
+/**
+ * Price ranges for menu filtering, cheapest first; each covers [min, max).
+ */
+public enum PriceBand {
+    UNDER_100(0, 100, "Under ₹100"),
+    FROM_100(100, 200, "₹100 - 199"),
+    FROM_200(200, 350, "₹200 - 349"),
+    FROM_350(350, 500, "₹350 - 499"),
+    FROM_500(500, Double.MAX_VALUE, "₹500 and above");
+
+    private final double min;
+    private final double max;
+    private final String label;
+
+    PriceBand(double min, double max, String label) {
+        this.min = min;
+        this.max = max;
+        this.label = label;
+    }
+
+    public static PriceBand of(double price) {
+        for (PriceBand band : values()) {
+            if (price < band.max) return band;
+        }
+        return FROM_500;
+    }
+
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+    public String getLabel() { return label; }
+}
@@ -7,6 +7,7 @@ public class Restaurant extends User {
     private String name;
     private String address;
     private String cuisineType;
+    private GeoPoint location; // null when unknown
     private List<FoodItem> menu;
 
     public Restaurant() {
@@ -32,6 +33,9 @@ public class Restaurant extends User {
     public String getCuisineType() { return cuisineType; }
     public void setCuisineType(String cuisineType) { this.cuisineType = cuisineType; }
 
+    public GeoPoint getLocation() { return location; }
+    public void setLocation(GeoPoint location) { this.location = location; }
+
     public List<FoodItem> getMenu() { return menu; }
     public void setMenu(List<FoodItem> menu) { this.menu = menu; }
 }
\ No newline at end of file
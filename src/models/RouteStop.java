@@ -0,0 +1,36 @@
+package models;
+
+/**
+ * One stop on a courier's trip: collecting an order at its restaurant or
+ * handing it over at the drop-off.
+ */
+public class RouteStop {
+
+    public enum Kind {
+        PICKUP, DROP_OFF
+    }
+
+    private final Kind kind;
+    private final int orderId;
+    private final String place;     // restaurant name or delivery address, for display
+    private final GeoPoint location; // null when unknown
+
+    public RouteStop(Kind kind, int orderId, String place, GeoPoint location) {
+        this.kind = kind;
+        this.orderId = orderId;
+        this.place = place;
+        this.location = location;
+    }
+
+    public Kind getKind() { return kind; }
+    public int getOrderId() { return orderId; }
+    public String getPlace() { return place; }
+    public GeoPoint getLocation() { return location; }
+
+    public boolean isPickup() { return kind == Kind.PICKUP; }
+
+    @Override
+    public String toString() {
+        return (isPickup() ? "Pick up #" : "Drop off #") + orderId + " - " + place;
+    }
+}
@@ -0,0 +1,12 @@
+package models;
+
+/**
+ * Outcome of an order status change.
+ */
+public enum StatusUpdate {
+    UPDATED,
+    CONFLICT,    // changed by someone else since the caller read it
+    NOT_ALLOWED, // no such transition from its current status
+    NOT_FOUND,
+    FAILED       // database error
+}
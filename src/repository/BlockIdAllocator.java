@@ -0,0 +1,136 @@
+package repository;
+
+import utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hi-lo id generator for one table.
+ *
+ * Ranges of blockSize ids are reserved in the id_blocks table, one
+ * autocommitted UPDATE per block, and handed out from memory with a single
+ * atomic increment. Inserts can then carry their primary key instead of
+ * waiting for RETURN_GENERATED_KEYS, so dependent rows can be written without
+ * a round trip in between. Ids are unique across app instances but not
+ * gap-free: unused parts of a block are skipped after a restart.
+ *
+ * A reservation borrows its own pooled connection, so take ids before
+ * borrowing one for the insert; a caller already inside a transaction uses
+ * tryNext, which never reserves.
+ */
+public class BlockIdAllocator {
+
+    private final String table;
+    private final String idColumn;
+    private final int blockSize;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    public BlockIdAllocator(String table, String idColumn, int blockSize) {
+        this.table = table;
+        this.idColumn = idColumn;
+        this.blockSize = blockSize;
+    }
+
+    /** One id, reserving a new block if this one is used up; call it before borrowing a connection. */
+    public int next() throws SQLException {
+        while (true) {
+            long id = take(1);
+            if (id >= 0) return (int) id;
+            ensureAvailable(1);
+        }
+    }
+
+    /** count consecutive ids, reserving as next() does. */
+    public int[] next(int count) throws SQLException {
+        while (true) {
+            int[] ids = tryNext(count);
+            if (ids != null) return ids;
+            ensureAvailable(count);
+        }
+    }
+
+    /** count consecutive ids from the current block, or null if it has fewer left; never touches the database. */
+    public int[] tryNext(int count) {
+        long start = take(count);
+        if (start < 0) return null;
+
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = (int) (start + i);
+        return ids;
+    }
+
+    /** Makes sure count ids are left in memory, reserving a new block if not; call it without a connection held. */
+    public void ensureAvailable(int count) throws SQLException {
+        // one thread reserves, the others find the new block when they get in
+        synchronized (this) {
+            Block block = current.get();
+            if (block.end - block.next.get() < count) current.set(reserve(Math.max(blockSize, count)));
+        }
+    }
+
+    // first of count ids taken from the current block, or -1 if it has fewer left
+    private long take(int count) {
+        Block block = current.get();
+        while (true) {
+            long start = block.next.get();
+            if (start + count > block.end) return -1;
+            if (block.next.compareAndSet(start, start + count)) return start;
+        }
+    }
+
+    private Block reserve(int size) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // one statement moves the counter; LAST_INSERT_ID(expr) keeps the new value for this session
+            if (advance(conn, size) == 0) {
+                initialize(conn);
+                advance(conn, size);
+            }
+
+            long end;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT LAST_INSERT_ID()");
+                 ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                end = rs.getLong(1);
+            }
+            return new Block(end - size, end);
+        }
+    }
+
+    private int advance(Connection conn, int size) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE id_blocks SET next_id = LAST_INSERT_ID(next_id + ?) WHERE name = ?")) {
+            stmt.setInt(1, size);
+            stmt.setString(2, table);
+            return stmt.executeUpdate();
+        }
+    }
+
+    // first block ever for this table: the counter starts after the highest id already in it
+    private void initialize(Connection conn) throws SQLException {
+        String insert = "INSERT INTO id_blocks (name, next_id) " +
+                "SELECT ?, COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + table;
+        try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+            stmt.setString(1, table);
+            stmt.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException raced) {
+            // another instance created the row first; advance it like any other
+        }
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end; // exclusive
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
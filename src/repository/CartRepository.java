@@ -0,0 +1,53 @@
+package repository;
+
+import models.Cart;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Storage for the cart table.
+ */
+public interface CartRepository {
+
+    /** Adds quantity to the customer's line for foodId, creating the line if needed. */
+    boolean addQuantity(int customerId, int foodId, int quantity);
+
+    /** addQuantity for a whole basket (food_id -> quantity) in one statement. */
+    boolean addQuantities(int customerId, Map<Integer, Integer> quantities);
+
+    /** Cart lines joined with name, price and restaurant of the food item. */
+    List<Cart> findByCustomer(int customerId);
+
+    /**
+     * The customer's lines as food_id -> quantity, in cart order, for callers that
+     * price them from the in-memory menu. Engines that buffer carts answer from memory.
+     */
+    default Map<Integer, Integer> findLines(int customerId) {
+        Map<Integer, Integer> lines = new LinkedHashMap<>();
+        for (Cart line : findByCustomer(customerId)) lines.merge(line.getFoodId(), line.getQuantity(), Integer::sum);
+        return lines;
+    }
+
+    boolean clear(int customerId);
+
+    /**
+     * Writes buffered changes for the customer through to storage; false if they
+     * could not be written (they stay buffered). Engines that write directly do nothing.
+     */
+    default boolean flush(int customerId) {
+        return true;
+    }
+
+    /**
+     * Runs checkout, which reads and empties the customer's stored cart, with the
+     * cart held: buffered lines are written first and changes arriving meanwhile
+     * wait until it is done. If the buffered lines cannot be written, checkout is
+     * not run and notSaved is returned. Engines that write directly just run it.
+     */
+    default <T> T aroundCheckout(int customerId, Supplier<T> checkout, T notSaved) {
+        return checkout.get();
+    }
+}
@@ -0,0 +1,44 @@
+package repository;
+
+import models.DeliveryPerson;
+import models.GeoPoint;
+
+import java.util.List;
+
+/**
+ * Storage for the delivery_persons table.
+ */
+public interface DeliveryPersonRepository {
+
+    /** Inserts a delivery person; sets the generated delivery id. */
+    boolean insert(DeliveryPerson deliveryPerson);
+
+    DeliveryPerson findByCredentials(String name, String password);
+
+    List<String> findAvailableNames();
+
+    /** Everyone whose status is AVAILABLE, without passwords. */
+    List<DeliveryPerson> findAvailable();
+
+    /** Returns -1 when no delivery person has that name. */
+    int findIdByName(String name);
+
+    boolean setStatus(int deliveryId, String status);
+
+    /** Last reported position (null clears it). */
+    boolean setLocation(int deliveryId, GeoPoint location);
+
+    /**
+     * Reserves the delivery person for the order in one transaction: they go
+     * AVAILABLE -> BUSY and the order, if READY_FOR_PICKUP with no one assigned,
+     * goes to them (OrderRepository.assignDelivery). False, with neither changed,
+     * if either side no longer qualifies, e.g. another terminal reserved them first.
+     */
+    boolean reserveFor(int deliveryId, int orderId);
+
+    /**
+     * BUSY -> AVAILABLE in one conditional update, only if none of their orders
+     * is still open (not DELIVERED or CANCELLED), whoever assigned them.
+     */
+    boolean release(int deliveryId);
+}
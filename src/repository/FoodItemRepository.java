@@ -0,0 +1,34 @@
+package repository;
+
+import models.FoodItem;
+
+import java.util.List;
+
+/**
+ * Storage for the food_items table.
+ */
+public interface FoodItemRepository {
+
+    /** Receives one food_items row at a time from scanAvailable. */
+    interface RowVisitor {
+        void visit(int foodId, int restaurantId, String name, String description, double price, String category);
+    }
+
+    /** Inserts the item and sets its generated food id. */
+    boolean insert(FoodItem foodItem);
+
+    /** All items with is_available = true. */
+    List<FoodItem> findAvailable();
+
+    /**
+     * Streams the available items to visitor in food_id order without building
+     * a FoodItem per row, for loading large menus. false on a database error,
+     * after which the visitor may have seen only some rows.
+     */
+    boolean scanAvailable(RowVisitor visitor);
+
+    List<FoodItem> findByRestaurant(int restaurantId);
+
+    /** null if there is no such item. */
+    FoodItem findById(int foodId);
+}
@@ -0,0 +1,106 @@
+package repository;
+
+import models.Cart;
+import models.FoodItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * cart kept in memory as one map of lines per customer.
+ * Quantity updates use compute(), so concurrent adds never lose an update.
+ */
+public class InMemoryCartRepository implements CartRepository {
+
+    private final InMemoryFoodItemRepository foodItems;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    // customer_id -> (food_id -> line)
+    private final Map<Integer, Map<Integer, Cart>> byCustomer = new ConcurrentHashMap<>();
+
+    public InMemoryCartRepository(InMemoryFoodItemRepository foodItems) {
+        this.foodItems = foodItems;
+    }
+
+    @Override
+    public boolean addQuantity(int customerId, int foodId, int quantity) {
+        if (foodItems.get(foodId) == null) return false; // foreign key
+
+        byCustomer.computeIfAbsent(customerId, k -> new ConcurrentHashMap<>())
+                .compute(foodId, (k, line) -> {
+                    if (line == null) {
+                        Cart c = new Cart(customerId, foodId, quantity);
+                        c.setCartId(nextId.getAndIncrement());
+                        return c;
+                    }
+                    Cart c = new Cart(customerId, foodId, line.getQuantity() + quantity);
+                    c.setCartId(line.getCartId());
+                    return c;
+                });
+        return true;
+    }
+
+    @Override
+    public boolean addQuantities(int customerId, Map<Integer, Integer> quantities) {
+        // all-or-nothing like the single JDBC statement
+        for (int foodId : quantities.keySet()) {
+            if (foodItems.get(foodId) == null) return false;
+        }
+        for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+            addQuantity(customerId, line.getKey(), line.getValue());
+        }
+        return true;
+    }
+
+    @Override
+    public List<Cart> findByCustomer(int customerId) {
+        List<Cart> cartItems = new ArrayList<>();
+        Map<Integer, Cart> lines = byCustomer.get(customerId);
+        if (lines == null) return cartItems;
+
+        for (Cart line : lines.values()) {
+            FoodItem f = foodItems.get(line.getFoodId());
+            if (f == null) continue;
+
+            Cart cart = new Cart(line.getCustomerId(), line.getFoodId(), line.getQuantity());
+            cart.setCartId(line.getCartId());
+
+            FoodItem foodItem = new FoodItem();
+            foodItem.setFoodId(f.getFoodId());
+            foodItem.setName(f.getName());
+            foodItem.setPrice(f.getPrice());
+            foodItem.setRestaurantId(f.getRestaurantId());
+            cart.setFoodItem(foodItem);
+
+            cartItems.add(cart);
+        }
+        return cartItems;
+    }
+
+    /** Removes the customer's cart and returns its lines joined like findByCustomer (checkout). */
+    List<Cart> take(int customerId) {
+        Map<Integer, Cart> lines = byCustomer.remove(customerId);
+        List<Cart> cartItems = new ArrayList<>();
+        if (lines == null) return cartItems;
+
+        for (Cart line : lines.values()) {
+            FoodItem f = foodItems.get(line.getFoodId());
+            if (f == null) continue;
+
+            Cart cart = new Cart(line.getCustomerId(), line.getFoodId(), line.getQuantity());
+            cart.setCartId(line.getCartId());
+            cart.setFoodItem(InMemoryFoodItemRepository.copy(f));
+            cartItems.add(cart);
+        }
+        return cartItems;
+    }
+
+    @Override
+    public boolean clear(int customerId) {
+        Map<Integer, Cart> removed = byCustomer.remove(customerId);
+        return removed != null && !removed.isEmpty();
+    }
+}
@@ -0,0 +1,146 @@
+package repository;
+
+import models.DeliveryPerson;
+import models.GeoPoint;
+import models.Order;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * delivery_persons kept in memory, indexed by id and by name.
+ */
+public class InMemoryDeliveryPersonRepository implements DeliveryPersonRepository {
+
+    private final OrderRepository orders; // for reserveFor and release: the order side
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<Integer, Row> byId = new ConcurrentHashMap<>();
+    private final Map<String, Row> byName = new ConcurrentHashMap<>();
+
+    private static final class Row {
+        final DeliveryPerson person;
+        volatile String status;
+
+        Row(DeliveryPerson person, String status) {
+            this.person = person;
+            this.status = status;
+        }
+    }
+
+    public InMemoryDeliveryPersonRepository(OrderRepository orders) {
+        this.orders = orders;
+    }
+
+    @Override
+    public boolean insert(DeliveryPerson d) {
+        DeliveryPerson copy = copy(d);
+        Row row = new Row(copy, d.isAvailable() ? "AVAILABLE" : "BUSY");
+        if (byName.putIfAbsent(d.getName(), row) != null) return false;
+
+        int id = nextId.getAndIncrement();
+        copy.setUserId(id);
+        d.setUserId(id);
+        byId.put(id, row);
+        return true;
+    }
+
+    @Override
+    public DeliveryPerson findByCredentials(String name, String password) {
+        Row row = byName.get(name);
+        if (row == null || !password.equals(row.person.getPassword())) return null;
+
+        DeliveryPerson d = copy(row.person);
+        d.setPassword(null);
+        d.setAvailable(row.status.equalsIgnoreCase("AVAILABLE"));
+        return d;
+    }
+
+    @Override
+    public List<String> findAvailableNames() {
+        List<String> list = new ArrayList<>();
+        for (Row row : byId.values()) {
+            if ("AVAILABLE".equals(row.status)) list.add(row.person.getName());
+        }
+        return list;
+    }
+
+    @Override
+    public List<DeliveryPerson> findAvailable() {
+        List<DeliveryPerson> list = new ArrayList<>();
+        for (Row row : byId.values()) {
+            if (!"AVAILABLE".equals(row.status)) continue;
+            DeliveryPerson d = copy(row.person);
+            d.setPassword(null);
+            list.add(d);
+        }
+        list.sort(Comparator.comparingInt(DeliveryPerson::getUserId));
+        return list;
+    }
+
+    @Override
+    public int findIdByName(String name) {
+        Row row = byName.get(name);
+        return row == null ? -1 : row.person.getUserId();
+    }
+
+    @Override
+    public boolean setStatus(int deliveryId, String status) {
+        Row row = byId.get(deliveryId);
+        if (row == null) return false;
+        row.status = status;
+        return true;
+    }
+
+    @Override
+    public boolean setLocation(int deliveryId, GeoPoint location) {
+        Row row = byId.get(deliveryId);
+        if (row == null) return false;
+        row.person.setLocation(location);
+        return true;
+    }
+
+    @Override
+    public boolean reserveFor(int deliveryId, int orderId) {
+        Row row = byId.get(deliveryId);
+        if (row == null) return false;
+        // the courier stays locked while the order is assigned, so both change or neither
+        synchronized (row) {
+            if (!"AVAILABLE".equals(row.status)) return false;
+            if (!orders.assignDelivery(orderId, deliveryId)) return false;
+            row.status = "BUSY";
+            return true;
+        }
+    }
+
+    @Override
+    public boolean release(int deliveryId) {
+        for (Order order : orders.findByDeliveryPerson(deliveryId)) {
+            Order.OrderStatus status = order.getStatus();
+            if (status != Order.OrderStatus.DELIVERED && status != Order.OrderStatus.CANCELLED) return false;
+        }
+        return changeStatus(deliveryId, "BUSY", "AVAILABLE");
+    }
+
+    private boolean changeStatus(int deliveryId, String from, String to) {
+        Row row = byId.get(deliveryId);
+        if (row == null) return false;
+        synchronized (row) {
+            if (!from.equals(row.status)) return false;
+            row.status = to;
+            return true;
+        }
+    }
+
+    private static DeliveryPerson copy(DeliveryPerson d) {
+        DeliveryPerson copy = new DeliveryPerson(d.getName(), d.getEmail(), d.getPassword(), d.getPhone(),
+                d.getVehicleType(), d.getLicenseNumber());
+        copy.setUserId(d.getUserId());
+        copy.setLocation(d.getLocation());
+        return copy;
+    }
+}
@@ -0,0 +1,86 @@
+package repository;
+
+import models.FoodItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * food_items kept in memory, with a secondary index on restaurant_id.
+ * Callers always get copies, never the stored objects.
+ */
+public class InMemoryFoodItemRepository implements FoodItemRepository {
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<Integer, FoodItem> rows = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> byRestaurant = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean insert(FoodItem foodItem) {
+        int id = nextId.getAndIncrement();
+        foodItem.setFoodId(id);
+
+        rows.put(id, copy(foodItem));
+        byRestaurant.computeIfAbsent(foodItem.getRestaurantId(), k -> new ConcurrentSkipListSet<>()).add(id);
+        return true;
+    }
+
+    @Override
+    public List<FoodItem> findAvailable() {
+        List<FoodItem> foodItems = new ArrayList<>();
+        for (FoodItem f : rows.values()) {
+            if (f.isAvailable()) foodItems.add(copy(f));
+        }
+        return foodItems;
+    }
+
+    @Override
+    public boolean scanAvailable(RowVisitor visitor) {
+        for (FoodItem f : new TreeMap<>(rows).values()) {
+            if (f.isAvailable()) {
+                visitor.visit(f.getFoodId(), f.getRestaurantId(), f.getName(), f.getDescription(),
+                        f.getPrice(), f.getCategory());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<FoodItem> findByRestaurant(int restaurantId) {
+        List<FoodItem> foodItems = new ArrayList<>();
+        for (int id : byRestaurant.getOrDefault(restaurantId, Set.of())) {
+            FoodItem f = rows.get(id);
+            if (f != null) foodItems.add(copy(f));
+        }
+        return foodItems;
+    }
+
+    @Override
+    public FoodItem findById(int foodId) {
+        FoodItem f = rows.get(foodId);
+        return f == null ? null : copy(f);
+    }
+
+    /** Stored row for joins from the other in-memory repositories; do not modify. */
+    FoodItem get(int foodId) {
+        return rows.get(foodId);
+    }
+
+    static FoodItem copy(FoodItem f) {
+        FoodItem c = new FoodItem();
+        c.setFoodId(f.getFoodId());
+        c.setRestaurantId(f.getRestaurantId());
+        c.setName(f.getName());
+        c.setDescription(f.getDescription());
+        c.setPrice(f.getPrice());
+        c.setCategory(f.getCategory());
+        c.setAvailable(f.isAvailable());
+        return c;
+    }
+}
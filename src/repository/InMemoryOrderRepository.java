@@ -0,0 +1,461 @@
+package repository;
+
+import models.Cart;
+import models.FoodItem;
+import models.GeoPoint;
+import models.Order;
+import models.Order.OrderItem;
+import models.Order.OrderStatus;
+import models.OrderPage;
+import models.OrderScope;
+import models.Restaurant;
+import models.RouteStop;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * orders and order_items kept in memory.
+ *
+ * Secondary indexes on customer_id, restaurant_id, delivery_id, status and
+ * (restaurant_id, status) are sorted sets of {@link OrderKey} (newest first),
+ * so the getOrdersBy* lookups walk only the matching orders, already in
+ * order_date DESC order. Per-restaurant status counts are kept alongside.
+ * Changes to an indexed column lock the order row while both the row and
+ * its index entries are updated.
+ *
+ * updated_at comes from a strictly increasing microsecond clock and a
+ * global change index ordered by it answers findChangedSince.
+ */
+public class InMemoryOrderRepository implements OrderRepository {
+
+    private final InMemoryFoodItemRepository foodItems;
+    private final InMemoryCartRepository carts;
+    private final InMemoryUserRepository users; // restaurants, for route stops
+
+    private final AtomicInteger nextOrderId = new AtomicInteger(1);
+    private final AtomicInteger nextOrderItemId = new AtomicInteger(1);
+
+    private final Map<Integer, Order> rows = new ConcurrentHashMap<>();
+    private final Map<Integer, List<OrderItem>> itemsByOrder = new ConcurrentHashMap<>();
+
+    private final Map<Integer, NavigableSet<OrderKey>> byCustomer = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<OrderKey>> byRestaurant = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<OrderKey>> byDelivery = new ConcurrentHashMap<>();
+    private final Map<Integer, RestaurantStatusIndex> byRestaurantStatus = new ConcurrentHashMap<>();
+    private final NavigableSet<ChangeKey> changes = new ConcurrentSkipListSet<>();
+    private final AtomicLong lastChangeMicros = new AtomicLong();
+
+    public InMemoryOrderRepository(InMemoryFoodItemRepository foodItems, InMemoryCartRepository carts,
+                                   InMemoryUserRepository users) {
+        this.foodItems = foodItems;
+        this.carts = carts;
+        this.users = users;
+    }
+
+    @Override
+    public boolean insert(Order order, List<Cart> cartItems) {
+        List<OrderItem> items = new ArrayList<>(cartItems.size());
+        for (Cart c : cartItems) {
+            items.add(new OrderItem(c.getFoodId(), c.getQuantity(), c.getFoodItem().getPrice()));
+        }
+        Order row = store(order, items);
+        order.setOrderDate(row.getOrderDate());
+        order.setUpdatedAt(row.getUpdatedAt());
+        return true;
+    }
+
+    @Override
+    public boolean insertAll(List<Order> orders) {
+        for (Order order : orders) {
+            List<OrderItem> items = new ArrayList<>(order.getItems().size());
+            for (OrderItem i : order.getItems()) {
+                items.add(new OrderItem(i.getFoodId(), i.getQuantity(), i.getPrice()));
+            }
+
+            Order row = store(order, items);
+            for (OrderItem i : order.getItems()) i.setOrderId(order.getOrderId());
+            order.setOrderDate(row.getOrderDate());
+            order.setUpdatedAt(row.getUpdatedAt());
+        }
+        return true;
+    }
+
+    // stores a new row for order with the given (fresh) items; returns the stored row
+    private Order store(Order order, List<OrderItem> items) {
+        int orderId = nextOrderId.getAndIncrement();
+        order.setOrderId(orderId);
+
+        for (OrderItem item : items) {
+            item.setOrderItemId(nextOrderItemId.getAndIncrement());
+            item.setOrderId(orderId);
+        }
+
+        Order row = copy(order);
+        row.setOrderId(orderId);
+        row.setOrderDate(new Timestamp(System.currentTimeMillis()));
+        row.setUpdatedAt(nextChangeTime());
+        row.setItems(new ArrayList<>());
+
+        itemsByOrder.put(orderId, Collections.unmodifiableList(items));
+        synchronized (row) {
+            rows.put(orderId, row);
+            index(row);
+        }
+        return row;
+    }
+
+    @Override
+    public List<Order> checkout(int customerId, String deliveryAddress, GeoPoint deliveryLocation) {
+        List<Order> placed = new ArrayList<>();
+        List<Cart> cartItems = carts.take(customerId);
+        if (cartItems.isEmpty()) return placed;
+
+        for (Order order : OrderRepository.splitByRestaurant(customerId, deliveryAddress, deliveryLocation, cartItems)) {
+            List<Cart> lines = new ArrayList<>();
+            for (Cart c : cartItems) {
+                if (c.getFoodItem().getRestaurantId() == order.getRestaurantId()) lines.add(c);
+            }
+            insert(order, lines);
+
+            Order row = findById(order.getOrderId());
+            row.setItems(new ArrayList<>(findItems(order.getOrderId())));
+            placed.add(row);
+        }
+        return placed;
+    }
+
+    @Override
+    public Order findById(int orderId) {
+        Order row = rows.get(orderId);
+        if (row == null) return null;
+        synchronized (row) {
+            return copy(row);
+        }
+    }
+
+    @Override
+    public List<Order> findByCustomer(int customerId) {
+        return lookup(byCustomer.get(customerId));
+    }
+
+    @Override
+    public List<Order> findByRestaurant(int restaurantId) {
+        return lookup(byRestaurant.get(restaurantId));
+    }
+
+    @Override
+    public List<Order> findByDeliveryPerson(int deliveryId) {
+        return lookup(byDelivery.get(deliveryId));
+    }
+
+    @Override
+    public List<RouteStop> findOpenStops(int deliveryId) {
+        List<RouteStop> stops = new ArrayList<>();
+        for (Order order : lookup(byDelivery.get(deliveryId))) {
+            if (order.getStatus() == OrderStatus.DELIVERED || order.getStatus() == OrderStatus.CANCELLED) continue;
+
+            Restaurant r = users.findRestaurant(order.getRestaurantId());
+            stops.add(new RouteStop(RouteStop.Kind.PICKUP, order.getOrderId(),
+                    r != null ? r.getName() : "Restaurant #" + order.getRestaurantId(),
+                    r != null ? r.getLocation() : null));
+            stops.add(new RouteStop(RouteStop.Kind.DROP_OFF, order.getOrderId(),
+                    order.getDeliveryAddress(), order.getDeliveryLocation()));
+        }
+        return stops;
+    }
+
+    @Override
+    public OrderPage findPageByCustomer(int customerId, OrderPage.Cursor after, int pageSize) {
+        return page(byCustomer.get(customerId), after, pageSize);
+    }
+
+    @Override
+    public OrderPage findPageByRestaurant(int restaurantId, OrderPage.Cursor after, int pageSize) {
+        return page(byRestaurant.get(restaurantId), after, pageSize);
+    }
+
+    @Override
+    public OrderPage findPageByDeliveryPerson(int deliveryId, OrderPage.Cursor after, int pageSize) {
+        return page(byDelivery.get(deliveryId), after, pageSize);
+    }
+
+    @Override
+    public OrderPage findPageByRestaurantAndStatus(int restaurantId, Set<OrderStatus> statuses,
+                                                   OrderPage.Cursor after, int pageSize) {
+        RestaurantStatusIndex index = byRestaurantStatus.get(restaurantId);
+        if (index == null) return new OrderPage(new ArrayList<>(), null);
+
+        OrderKey start = after == null ? null : new OrderKey(after.getOrderDate().getTime(), after.getOrderId());
+
+        // take up to pageSize + 1 keys from each status, then keep the newest overall
+        List<OrderKey> candidates = new ArrayList<>();
+        for (OrderStatus status : statuses) {
+            NavigableSet<OrderKey> keys = index.keys.get(status.ordinal());
+            NavigableSet<OrderKey> tail = start == null ? keys : keys.tailSet(start, false);
+            int n = 0;
+            for (OrderKey key : tail) {
+                candidates.add(key);
+                if (++n > pageSize) break;
+            }
+        }
+        candidates.sort(Comparator.naturalOrder());
+
+        List<Order> orders = new ArrayList<>();
+        for (OrderKey key : candidates) {
+            Order row = rows.get(key.orderId);
+            if (row == null) continue;
+            synchronized (row) {
+                if (!statuses.contains(row.getStatus())) continue; // changed meanwhile
+                orders.add(copy(row));
+            }
+            if (orders.size() > pageSize) break;
+        }
+        return OrderPage.of(orders, pageSize);
+    }
+
+    @Override
+    public Map<OrderStatus, Integer> countByStatusForRestaurant(int restaurantId) {
+        Map<OrderStatus, Integer> counts = new EnumMap<>(OrderStatus.class);
+        RestaurantStatusIndex index = byRestaurantStatus.get(restaurantId);
+        for (OrderStatus s : OrderStatus.values()) {
+            int n = index == null ? 0 : index.counts.get(s.ordinal());
+            if (n > 0) counts.put(s, n);
+        }
+        return counts;
+    }
+
+    @Override
+    public List<Order> findChangedSince(OrderScope scope, Timestamp since) {
+        List<Order> orders = new ArrayList<>();
+        for (ChangeKey key : changes.tailSet(new ChangeKey(toMicros(since), Integer.MIN_VALUE), true)) {
+            Order row = rows.get(key.orderId);
+            if (row == null) continue;
+            synchronized (row) {
+                if (scope.contains(row)) orders.add(copy(row));
+            }
+        }
+        return orders;
+    }
+
+    @Override
+    public Timestamp currentTime() {
+        return fromMicros(Math.max(lastChangeMicros.get(), System.currentTimeMillis() * 1000));
+    }
+
+    @Override
+    public List<OrderItem> findItems(int orderId) {
+        List<OrderItem> items = new ArrayList<>();
+        for (OrderItem stored : itemsByOrder.getOrDefault(orderId, List.of())) {
+            FoodItem f = foodItems.get(stored.getFoodId());
+            if (f == null) continue; // inner join on food_items
+
+            OrderItem item = new OrderItem(stored.getFoodId(), stored.getQuantity(), stored.getPrice());
+            item.setFoodName(f.getName());
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Override
+    public boolean updateStatus(int orderId, int expectedVersion, OrderStatus status) {
+        Order row = rows.get(orderId);
+        if (row == null) return false;
+
+        synchronized (row) {
+            if (row.getVersion() != expectedVersion || !row.getStatus().canMoveTo(status)) return false;
+            unindex(row);
+            row.setStatus(status);
+            row.setVersion(row.getVersion() + 1);
+            row.setUpdatedAt(nextChangeTime());
+            index(row);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean assignDelivery(int orderId, int deliveryId) {
+        Order row = rows.get(orderId);
+        if (row == null) return false;
+
+        synchronized (row) {
+            if (row.getDeliveryId() > 0 || row.getStatus() != OrderStatus.READY_FOR_PICKUP) return false;
+            unindex(row);
+            row.setDeliveryId(deliveryId);
+            row.setStatus(OrderStatus.OUT_FOR_DELIVERY);
+            row.setVersion(row.getVersion() + 1);
+            row.setUpdatedAt(nextChangeTime());
+            index(row);
+        }
+        return true;
+    }
+
+    private List<Order> lookup(NavigableSet<OrderKey> keys) {
+        List<Order> orders = new ArrayList<>();
+        if (keys == null) return orders;
+
+        for (OrderKey key : keys) {
+            Order row = rows.get(key.orderId);
+            if (row == null) continue;
+            synchronized (row) {
+                orders.add(copy(row));
+            }
+        }
+        return orders;
+    }
+
+    private OrderPage page(NavigableSet<OrderKey> keys, OrderPage.Cursor after, int pageSize) {
+        List<Order> orders = new ArrayList<>();
+        if (keys != null) {
+            NavigableSet<OrderKey> tail = after == null ? keys
+                    : keys.tailSet(new OrderKey(after.getOrderDate().getTime(), after.getOrderId()), false);
+            for (OrderKey key : tail) {
+                Order row = rows.get(key.orderId);
+                if (row == null) continue;
+                synchronized (row) {
+                    orders.add(copy(row));
+                }
+                if (orders.size() > pageSize) break;
+            }
+        }
+        return OrderPage.of(orders, pageSize);
+    }
+
+    // must hold the row lock
+    private void index(Order row) {
+        OrderKey key = OrderKey.of(row);
+        byCustomer.computeIfAbsent(row.getCustomerId(), k -> new ConcurrentSkipListSet<>()).add(key);
+        byRestaurant.computeIfAbsent(row.getRestaurantId(), k -> new ConcurrentSkipListSet<>()).add(key);
+        if (row.getDeliveryId() > 0) {
+            byDelivery.computeIfAbsent(row.getDeliveryId(), k -> new ConcurrentSkipListSet<>()).add(key);
+        }
+        byRestaurantStatus.computeIfAbsent(row.getRestaurantId(), k -> new RestaurantStatusIndex())
+                .add(row.getStatus(), key);
+        changes.add(new ChangeKey(toMicros(row.getUpdatedAt()), row.getOrderId()));
+    }
+
+    // must hold the row lock; only delivery_id and status ever change
+    private void unindex(Order row) {
+        OrderKey key = OrderKey.of(row);
+        NavigableSet<OrderKey> delivery = byDelivery.get(row.getDeliveryId());
+        if (delivery != null) delivery.remove(key);
+        byRestaurantStatus.get(row.getRestaurantId()).remove(row.getStatus(), key);
+        changes.remove(new ChangeKey(toMicros(row.getUpdatedAt()), row.getOrderId()));
+    }
+
+    // strictly increasing, so every change gets its own position in the change index
+    private Timestamp nextChangeTime() {
+        long now = System.currentTimeMillis() * 1000;
+        return fromMicros(lastChangeMicros.updateAndGet(last -> Math.max(now, last + 1)));
+    }
+
+    private static long toMicros(Timestamp t) {
+        return Math.floorDiv(t.getTime(), 1000) * 1_000_000 + t.getNanos() / 1000;
+    }
+
+    private static Timestamp fromMicros(long micros) {
+        Timestamp t = new Timestamp(Math.floorDiv(micros, 1000));
+        t.setNanos(Math.floorMod(micros, 1_000_000) * 1000);
+        return t;
+    }
+
+    static Order copy(Order o) {
+        Order c = new Order(o.getCustomerId(), o.getRestaurantId(), o.getTotalAmount(), o.getDeliveryAddress());
+        c.setOrderId(o.getOrderId());
+        c.setDeliveryId(o.getDeliveryId());
+        c.setStatus(o.getStatus());
+        c.setOrderDate(o.getOrderDate());
+        c.setUpdatedAt(o.getUpdatedAt());
+        c.setDeliveryLocation(o.getDeliveryLocation());
+        c.setVersion(o.getVersion());
+        return c;
+    }
+
+    /** (restaurant_id, status) index for one restaurant, with a running count per status. */
+    private static final class RestaurantStatusIndex {
+        final List<NavigableSet<OrderKey>> keys = new ArrayList<>(); // by status ordinal
+        final AtomicIntegerArray counts = new AtomicIntegerArray(OrderStatus.values().length);
+
+        RestaurantStatusIndex() {
+            for (int i = 0; i < OrderStatus.values().length; i++) keys.add(new ConcurrentSkipListSet<>());
+        }
+
+        void add(OrderStatus status, OrderKey key) {
+            if (keys.get(status.ordinal()).add(key)) counts.incrementAndGet(status.ordinal());
+        }
+
+        void remove(OrderStatus status, OrderKey key) {
+            if (keys.get(status.ordinal()).remove(key)) counts.decrementAndGet(status.ordinal());
+        }
+    }
+
+    /** Change index entry ordered by updated_at, then order_id. */
+    static final class ChangeKey implements Comparable<ChangeKey> {
+        final long updatedMicros;
+        final int orderId;
+
+        ChangeKey(long updatedMicros, int orderId) {
+            this.updatedMicros = updatedMicros;
+            this.orderId = orderId;
+        }
+
+        @Override
+        public int compareTo(ChangeKey other) {
+            int c = Long.compare(updatedMicros, other.updatedMicros);
+            return c != 0 ? c : Integer.compare(orderId, other.orderId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ChangeKey && compareTo((ChangeKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(updatedMicros) * 31 + orderId;
+        }
+    }
+
+    /** Index entry ordered like ORDER BY order_date DESC, order_id DESC. */
+    static final class OrderKey implements Comparable<OrderKey> {
+        final long orderDate;
+        final int orderId;
+
+        OrderKey(long orderDate, int orderId) {
+            this.orderDate = orderDate;
+            this.orderId = orderId;
+        }
+
+        static OrderKey of(Order o) {
+            return new OrderKey(o.getOrderDate().getTime(), o.getOrderId());
+        }
+
+        @Override
+        public int compareTo(OrderKey other) {
+            int c = Long.compare(other.orderDate, orderDate);
+            return c != 0 ? c : Integer.compare(other.orderId, orderId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof OrderKey && compareTo((OrderKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(orderDate) * 31 + orderId;
+        }
+    }
+}
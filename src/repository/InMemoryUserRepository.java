@@ -0,0 +1,125 @@
+package repository;
+
+import models.Customer;
+import models.GeoPoint;
+import models.Restaurant;
+import models.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * users, customers and restaurants kept in memory, indexed by username
+ * (unique, like the users table).
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<String, User> byUsername = new ConcurrentHashMap<>();
+    private final Map<Integer, Customer> customers = new ConcurrentHashMap<>();
+    private final Map<Integer, Restaurant> restaurants = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        Customer row = copy(customer);
+        if (byUsername.putIfAbsent(customer.getUsername(), row) != null) return false;
+
+        int userId = nextId.getAndIncrement();
+        row.setUserId(userId);
+        customer.setUserId(userId);
+        customers.put(userId, row);
+        return true;
+    }
+
+    @Override
+    public Customer findCustomerByCredentials(String username, String password) {
+        User u = byUsername.get(username);
+        if (u instanceof Customer && u.getPassword().equals(password)) {
+            return copy((Customer) u);
+        }
+        return null;
+    }
+
+    @Override
+    public List<Customer> findAllCustomers() {
+        List<Customer> list = new ArrayList<>();
+        for (Customer c : customers.values()) {
+            Customer copy = copy(c);
+            copy.setPassword(null); // the JDBC query does not select it either
+            list.add(copy);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean insertRestaurant(Restaurant restaurant) {
+        Restaurant row = copy(restaurant);
+        if (byUsername.putIfAbsent(restaurant.getUsername(), row) != null) return false;
+
+        int userId = nextId.getAndIncrement();
+        row.setUserId(userId);
+        restaurant.setUserId(userId);
+        restaurants.put(userId, row);
+        return true;
+    }
+
+    @Override
+    public Restaurant findRestaurantByCredentials(String username, String password) {
+        User u = byUsername.get(username);
+        if (u instanceof Restaurant && u.getPassword().equals(password)) {
+            return copy((Restaurant) u);
+        }
+        return null;
+    }
+
+    @Override
+    public List<Restaurant> findAllRestaurants() {
+        List<Restaurant> list = new ArrayList<>();
+        for (Restaurant r : restaurants.values()) {
+            Restaurant copy = copy(r);
+            copy.setPassword(null);
+            list.add(copy);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean setCustomerLocation(int customerId, GeoPoint location) {
+        Customer row = customers.get(customerId);
+        if (row == null) return false;
+        row.setLocation(location);
+        return true;
+    }
+
+    @Override
+    public boolean setRestaurantLocation(int restaurantId, GeoPoint location) {
+        Restaurant row = restaurants.get(restaurantId);
+        if (row == null) return false;
+        row.setLocation(location);
+        return true;
+    }
+
+    // restaurant by id, for joins from the other in-memory tables; null if unknown
+    Restaurant findRestaurant(int restaurantId) {
+        Restaurant row = restaurants.get(restaurantId);
+        return row == null ? null : copy(row);
+    }
+
+    private static Customer copy(Customer c) {
+        Customer copy = new Customer(c.getUsername(), c.getEmail(), c.getPassword(), c.getPhone(), c.getAddress());
+        copy.setUserId(c.getUserId());
+        copy.setLocation(c.getLocation());
+        return copy;
+    }
+
+    private static Restaurant copy(Restaurant r) {
+        Restaurant copy = new Restaurant(r.getUsername(), r.getEmail(), r.getPassword(), r.getPhone(),
+                r.getName(), r.getAddress(), r.getCuisineType());
+        copy.setUserId(r.getUserId());
+        copy.setLocation(r.getLocation());
+        return copy;
+    }
+}
@@ -0,0 +1,198 @@
+package repository;
+
+import models.Cart;
+import models.FoodItem;
+import utils.DatabaseConnection;
+import utils.Metrics;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JdbcCartRepository implements CartRepository {
+
+    // uk_cart_customer_food turns a second add of the same food into an increment, atomically
+    private static final String UPSERT_PREFIX = "INSERT INTO cart (customer_id, food_id, quantity) VALUES ";
+    private static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)";
+
+    @Override
+    public boolean addQuantity(int customerId, int foodId, int quantity) {
+        String query = UPSERT_PREFIX + "(?, ?, ?)" + UPSERT_SUFFIX;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, customerId);
+            stmt.setInt(2, foodId);
+            stmt.setInt(3, quantity);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean addQuantities(int customerId, Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) return true;
+
+        // one multi-row upsert for the whole basket
+        StringBuilder query = new StringBuilder(UPSERT_PREFIX);
+        for (int i = 0; i < quantities.size(); i++) {
+            query.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        query.append(UPSERT_SUFFIX);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int p = 1;
+            for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+                stmt.setInt(p++, customerId);
+                stmt.setInt(p++, line.getKey());
+                stmt.setInt(p++, line.getValue());
+            }
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return false;
+        }
+    }
+
+    @Override
+    public List<Cart> findByCustomer(int customerId) {
+        try {
+            return load(customerId);
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return new ArrayList<>();
+        }
+    }
+
+    // like findByCustomer, but a failed read is reported instead of looking like an empty cart
+    List<Cart> load(int customerId) throws SQLException {
+        List<Cart> cartItems = new ArrayList<>();
+        String query = "SELECT c.cart_id, c.customer_id, c.food_id, c.quantity, f.name, f.price, f.restaurant_id " +
+                "FROM cart c JOIN food_items f ON c.food_id = f.food_id WHERE c.customer_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, customerId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Cart cart = new Cart();
+                    cart.setCartId(rs.getInt("cart_id"));
+                    cart.setCustomerId(rs.getInt("customer_id"));
+                    cart.setFoodId(rs.getInt("food_id"));
+                    cart.setQuantity(rs.getInt("quantity"));
+
+                    FoodItem foodItem = new FoodItem();
+                    foodItem.setFoodId(rs.getInt("food_id"));
+                    foodItem.setName(rs.getString("name"));
+                    foodItem.setPrice(rs.getDouble("price"));
+                    foodItem.setRestaurantId(rs.getInt("restaurant_id"));
+                    cart.setFoodItem(foodItem);
+
+                    cartItems.add(cart);
+                }
+            }
+        }
+        return cartItems;
+    }
+
+    // name, price and restaurant of each food item that exists, by food id
+    Map<Integer, FoodItem> loadFoods(Collection<Integer> foodIds) throws SQLException {
+        Map<Integer, FoodItem> foods = new HashMap<>();
+        if (foodIds.isEmpty()) return foods;
+
+        StringBuilder query = new StringBuilder("SELECT food_id, name, price, restaurant_id FROM food_items WHERE food_id IN (");
+        for (int i = 0; i < foodIds.size(); i++) query.append(i == 0 ? "?" : ", ?");
+        query.append(")");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int p = 1;
+            for (int foodId : foodIds) stmt.setInt(p++, foodId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    FoodItem foodItem = new FoodItem();
+                    foodItem.setFoodId(rs.getInt("food_id"));
+                    foodItem.setName(rs.getString("name"));
+                    foodItem.setPrice(rs.getDouble("price"));
+                    foodItem.setRestaurantId(rs.getInt("restaurant_id"));
+                    foods.put(foodItem.getFoodId(), foodItem);
+                }
+            }
+        }
+        return foods;
+    }
+
+    @Override
+    public boolean clear(int customerId) {
+        String query = "DELETE FROM cart WHERE customer_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, customerId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the stored carts of every customer in the map (customer_id -> food_id -> quantity)
+     * with one DELETE and one multi-row INSERT in a single transaction.
+     */
+    public boolean replaceAll(Map<Integer, Map<Integer, Integer>> cartsByCustomer) {
+        if (cartsByCustomer.isEmpty()) return true;
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            StringBuilder delete = new StringBuilder("DELETE FROM cart WHERE customer_id IN (");
+            StringBuilder insert = new StringBuilder("INSERT INTO cart (customer_id, food_id, quantity) VALUES ");
+            int lines = 0;
+            for (Map<Integer, Integer> cart : cartsByCustomer.values()) {
+                delete.append(delete.charAt(delete.length() - 1) == '(' ? "?" : ", ?");
+                for (int i = 0; i < cart.size(); i++) {
+                    insert.append(lines++ == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                }
+            }
+            delete.append(")");
+
+            try (PreparedStatement deleteStmt = conn.prepareStatement(delete.toString())) {
+                int p = 1;
+                for (int customerId : cartsByCustomer.keySet()) deleteStmt.setInt(p++, customerId);
+                deleteStmt.executeUpdate();
+            }
+
+            if (lines > 0) {
+                try (PreparedStatement insertStmt = conn.prepareStatement(insert.toString())) {
+                    int p = 1;
+                    for (Map.Entry<Integer, Map<Integer, Integer>> cart : cartsByCustomer.entrySet()) {
+                        for (Map.Entry<Integer, Integer> line : cart.getValue().entrySet()) {
+                            insertStmt.setInt(p++, cart.getKey());
+                            insertStmt.setInt(p++, line.getKey());
+                            insertStmt.setInt(p++, line.getValue());
+                        }
+                    }
+                    insertStmt.executeUpdate();
+                }
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            try { if (conn != null) conn.rollback(); } catch (Exception ignored) {}
+            return false;
+
+        } finally {
+            try { if (conn != null) conn.setAutoCommit(true); } catch (Exception ignored) {}
+            try { if (conn != null) conn.close(); } catch (Exception ignored) {}
+        }
+    }
+}
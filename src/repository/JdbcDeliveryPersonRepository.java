@@ -0,0 +1,265 @@
+package repository;
+
+import models.DeliveryPerson;
+import models.GeoPoint;
+import utils.DatabaseConnection;
+import utils.Metrics;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcDeliveryPersonRepository implements DeliveryPersonRepository {
+
+    /** ADD DELIVERY PERSON */
+    @Override
+    public boolean insert(DeliveryPerson d) {
+
+        String sql = "INSERT INTO delivery_persons (name, email, phone, password, status, latitude, longitude) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            stmt.setString(1, d.getName());
+            stmt.setString(2, d.getEmail());
+            stmt.setString(3, d.getPhone());
+            stmt.setString(4, d.getPassword());
+            stmt.setString(5, d.isAvailable() ? "AVAILABLE" : "BUSY");
+            Locations.bind(stmt, 6, d.getLocation());
+
+            if (stmt.executeUpdate() == 0) return false;
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) d.setUserId(keys.getInt(1));
+            }
+            return true;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return false;
+    }
+
+    /** LOGIN DELIVERY PERSON */
+    @Override
+    public DeliveryPerson findByCredentials(String name, String password) {
+
+        String sql = "SELECT * FROM delivery_persons WHERE name = ? AND password = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, name);
+            stmt.setString(2, password);
+
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+
+                DeliveryPerson d = new DeliveryPerson();
+
+                // User parent class (userId = delivery_id)
+                d.setUserId(rs.getInt("delivery_id"));
+                d.setUsername(rs.getString("name"));
+                d.setEmail(rs.getString("email"));
+                d.setPhone(rs.getString("phone"));
+
+                // availability
+                d.setAvailable(rs.getString("status").equalsIgnoreCase("AVAILABLE"));
+                d.setLocation(Locations.read(rs, "latitude", "longitude"));
+
+                return d;
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return null;
+    }
+
+    /** GET AVAILABLE DELIVERY PERSONS */
+    @Override
+    public List<String> findAvailableNames() {
+
+        List<String> list = new ArrayList<>();
+
+        String sql = "SELECT name FROM delivery_persons WHERE status = 'AVAILABLE'";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                list.add(rs.getString("name"));
+            }
+
+        } catch (SQLException e) { Metrics.failed(e); }
+
+        return list;
+    }
+
+    /** GET AVAILABLE DELIVERY PERSONS (FOR THE DISPATCH POOL) */
+    @Override
+    public List<DeliveryPerson> findAvailable() {
+
+        List<DeliveryPerson> list = new ArrayList<>();
+
+        String sql = "SELECT delivery_id, name, email, phone, latitude, longitude FROM delivery_persons " +
+                "WHERE status = 'AVAILABLE' " +
+                "ORDER BY delivery_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                DeliveryPerson d = new DeliveryPerson();
+                d.setUserId(rs.getInt("delivery_id"));
+                d.setUsername(rs.getString("name"));
+                d.setEmail(rs.getString("email"));
+                d.setPhone(rs.getString("phone"));
+                d.setLocation(Locations.read(rs, "latitude", "longitude"));
+                list.add(d);
+            }
+
+        } catch (SQLException e) { Metrics.failed(e); }
+
+        return list;
+    }
+
+    /** GET DELIVERY ID BY NAME */
+    @Override
+    public int findIdByName(String name) {
+
+        String sql = "SELECT delivery_id FROM delivery_persons WHERE name = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, name);
+
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getInt("delivery_id");
+            }
+
+        } catch (SQLException e) { Metrics.failed(e); }
+
+        return -1;
+    }
+
+    /** UPDATE DELIVERY PERSON STATUS */
+    @Override
+    public boolean setStatus(int deliveryId, String status) {
+
+        String sql = "UPDATE delivery_persons SET status = ? WHERE delivery_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, status);
+            stmt.setInt(2, deliveryId);
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return false;
+    }
+
+    /** UPDATE DELIVERY PERSON POSITION */
+    @Override
+    public boolean setLocation(int deliveryId, GeoPoint location) {
+
+        String sql = "UPDATE delivery_persons SET latitude = ?, longitude = ? WHERE delivery_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            Locations.bind(stmt, 1, location);
+            stmt.setInt(3, deliveryId);
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return false;
+    }
+
+    /** RESERVE DELIVERY PERSON FOR A READY ORDER (AVAILABLE -> BUSY, ORDER -> OUT_FOR_DELIVERY) */
+    @Override
+    public boolean reserveFor(int deliveryId, int orderId) {
+
+        // both conditional, so a courier is never BUSY without the order, nor the order theirs while AVAILABLE
+        String reserve = "UPDATE delivery_persons SET status = 'BUSY' WHERE delivery_id = ? AND status = 'AVAILABLE'";
+        String assign = "UPDATE orders SET delivery_id = ?, status = 'OUT_FOR_DELIVERY', version = version + 1, " +
+                "updated_at = CURRENT_TIMESTAMP(6) " +
+                "WHERE order_id = ? AND delivery_id IS NULL AND status = 'READY_FOR_PICKUP'";
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement reserveStmt = conn.prepareStatement(reserve)) {
+                reserveStmt.setInt(1, deliveryId);
+                if (reserveStmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+
+            try (PreparedStatement assignStmt = conn.prepareStatement(assign)) {
+                assignStmt.setInt(1, deliveryId);
+                assignStmt.setInt(2, orderId);
+                if (assignStmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            try { if (conn != null) conn.rollback(); } catch (Exception ignored) {}
+            return false;
+
+        } finally {
+            try { if (conn != null) conn.setAutoCommit(true); } catch (Exception ignored) {}
+            try { if (conn != null) conn.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    /** RELEASE DELIVERY PERSON (BUSY -> AVAILABLE, ONCE NO ORDER OF THEIRS IS OPEN) */
+    @Override
+    public boolean release(int deliveryId) {
+
+        String sql = "UPDATE delivery_persons SET status = 'AVAILABLE' " +
+                "WHERE delivery_id = ? AND status = 'BUSY' AND NOT EXISTS (" +
+                "SELECT 1 FROM orders WHERE delivery_id = ? AND status NOT IN ('DELIVERED', 'CANCELLED'))";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, deliveryId);
+            stmt.setInt(2, deliveryId);
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,120 @@
+package repository;
+
+import models.FoodItem;
+import utils.DatabaseConnection;
+import utils.Metrics;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcFoodItemRepository implements FoodItemRepository {
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    @Override
+    public boolean insert(FoodItem foodItem) {
+        String query = "INSERT INTO food_items (restaurant_id, name, description, price, category, is_available) VALUES (?, ?, ?, ?, ?, ?)";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, foodItem.getRestaurantId());
+            stmt.setString(2, foodItem.getName());
+            stmt.setString(3, foodItem.getDescription());
+            stmt.setDouble(4, foodItem.getPrice());
+            stmt.setString(5, foodItem.getCategory());
+            stmt.setBoolean(6, foodItem.isAvailable());
+            if (stmt.executeUpdate() == 0) return false;
+
+            // the id is needed to index the new item for search
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) foodItem.setFoodId(keys.getInt(1));
+            }
+            return true;
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return false;
+        }
+    }
+
+    @Override
+    public List<FoodItem> findAvailable() {
+        List<FoodItem> foodItems = new ArrayList<>();
+        String query = "SELECT * FROM food_items WHERE is_available = true";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                foodItems.add(mapFoodItem(rs));
+            }
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+        return foodItems;
+    }
+
+    @Override
+    public boolean scanAvailable(RowVisitor visitor) {
+        String query = "SELECT food_id, restaurant_id, name, description, price, category " +
+                "FROM food_items WHERE is_available = true ORDER BY food_id";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setFetchSize(SCAN_FETCH_SIZE); // drivers that honour it stream instead of buffering the table
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visit(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                            rs.getDouble(5), rs.getString(6));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return false;
+        }
+    }
+
+    // by restaurant
+    @Override
+    public List<FoodItem> findByRestaurant(int restaurantId) {
+        List<FoodItem> foodItems = new ArrayList<>();
+        String query = "SELECT * FROM food_items WHERE restaurant_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, restaurantId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    foodItems.add(mapFoodItem(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+        return foodItems;
+    }
+
+    @Override
+    public FoodItem findById(int foodId) {
+        String query = "SELECT * FROM food_items WHERE food_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, foodId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) return mapFoodItem(rs);
+            }
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+        return null;
+    }
+
+    private FoodItem mapFoodItem(ResultSet rs) throws SQLException {
+        FoodItem foodItem = new FoodItem();
+        foodItem.setFoodId(rs.getInt("food_id"));
+        foodItem.setRestaurantId(rs.getInt("restaurant_id"));
+        foodItem.setName(rs.getString("name"));
+        foodItem.setDescription(rs.getString("description"));
+        foodItem.setPrice(rs.getDouble("price"));
+        foodItem.setCategory(rs.getString("category"));
+        foodItem.setAvailable(rs.getBoolean("is_available"));
+        return foodItem;
+    }
+}
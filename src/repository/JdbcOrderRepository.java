@@ -0,0 +1,651 @@
+package repository;
+
+import models.Cart;
+import models.FoodItem;
+import models.GeoPoint;
+import models.Order;
+import models.Order.OrderItem;
+import models.OrderPage;
+import models.OrderScope;
+import models.RouteStop;
+import utils.DatabaseConnection;
+import utils.Metrics;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class JdbcOrderRepository implements OrderRepository {
+
+    private static final int ORDER_ID_BLOCK = 1_000;
+
+    // order ids are known before the INSERT, so order_items never waits for generated keys
+    private final BlockIdAllocator orderIds = new BlockIdAllocator("orders", "order_id", ORDER_ID_BLOCK);
+
+    /** PLACE ORDER **/
+    @Override
+    public boolean insert(Order order, List<Cart> cartItems) {
+        Connection conn = null;
+
+        try {
+            order.setOrderId(orderIds.next()); // before borrowing: a new block takes a connection of its own
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            insertOrder(conn, order, cartItems);
+            readBackTimestamps(conn, List.of(order));
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            try { if (conn != null) conn.rollback(); } catch (Exception ignored) {}
+            return false;
+
+        } finally {
+            try { if (conn != null) conn.setAutoCommit(true); } catch (Exception ignored) {}
+            try { if (conn != null) conn.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    /** GROUP INSERT: many orders, one transaction and one commit **/
+    @Override
+    public boolean insertAll(List<Order> orders) {
+        if (orders.isEmpty()) return true;
+        Connection conn = null;
+
+        try {
+            int[] ids = orderIds.next(orders.size());
+            for (int i = 0; i < orders.size(); i++) orders.get(i).setOrderId(ids[i]);
+
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            insertOrders(conn, orders);
+            readBackTimestamps(conn, orders);
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            try { if (conn != null) conn.rollback(); } catch (Exception ignored) {}
+            return false;
+
+        } finally {
+            try { if (conn != null) conn.setAutoCommit(true); } catch (Exception ignored) {}
+            try { if (conn != null) conn.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    // order row plus one order_items row per cart line, on the caller's transaction; the order has its id
+    private void insertOrder(Connection conn, Order order, List<Cart> cartItems) throws SQLException {
+        int orderId = order.getOrderId();
+
+        String insertOrder =
+                "INSERT INTO orders (order_id, customer_id, restaurant_id, status, total_amount, delivery_address, " +
+                        "delivery_latitude, delivery_longitude, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP(6))";
+
+        try (PreparedStatement orderStmt = conn.prepareStatement(insertOrder)) {
+            orderStmt.setInt(1, orderId);
+            orderStmt.setInt(2, order.getCustomerId());
+            orderStmt.setInt(3, order.getRestaurantId());
+            orderStmt.setString(4, order.getStatus().name());
+            orderStmt.setDouble(5, order.getTotalAmount());
+            orderStmt.setString(6, order.getDeliveryAddress());
+            Locations.bind(orderStmt, 7, order.getDeliveryLocation());
+            orderStmt.executeUpdate();
+        }
+
+        String insertItem = "INSERT INTO order_items (order_id, food_id, quantity, price) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement itemStmt = conn.prepareStatement(insertItem)) {
+            for (Cart c : cartItems) {
+                itemStmt.setInt(1, orderId);
+                itemStmt.setInt(2, c.getFoodId());
+                itemStmt.setInt(3, c.getQuantity());
+                itemStmt.setDouble(4, c.getFoodItem().getPrice());
+                itemStmt.addBatch();
+            }
+            itemStmt.executeBatch();
+        }
+    }
+
+    /** CHECKOUT: cart -> one order per restaurant -> empty cart, all on one connection and one transaction **/
+    @Override
+    public List<Order> checkout(int customerId, String deliveryAddress, GeoPoint deliveryLocation) {
+        int idsNeeded = 0;
+        while (true) {
+            Connection conn = null;
+
+            try {
+                // ids are reserved with no connection held; the cart decides how many, so a short block means a retry
+                if (idsNeeded > 0) orderIds.ensureAvailable(idsNeeded);
+                conn = DatabaseConnection.getConnection();
+                conn.setAutoCommit(false);
+
+                // lock the cart lines and take today's prices, not the ones shown when they were added
+                String readCart = "SELECT c.food_id, c.quantity, f.name, f.price, f.restaurant_id " +
+                        "FROM cart c JOIN food_items f ON c.food_id = f.food_id " +
+                        "WHERE c.customer_id = ? ORDER BY c.cart_id FOR UPDATE";
+
+                List<Cart> cartItems = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(readCart)) {
+                    stmt.setInt(1, customerId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Cart cart = new Cart(customerId, rs.getInt("food_id"), rs.getInt("quantity"));
+
+                            FoodItem foodItem = new FoodItem();
+                            foodItem.setFoodId(rs.getInt("food_id"));
+                            foodItem.setName(rs.getString("name"));
+                            foodItem.setPrice(rs.getDouble("price"));
+                            foodItem.setRestaurantId(rs.getInt("restaurant_id"));
+                            cart.setFoodItem(foodItem);
+
+                            cartItems.add(cart);
+                        }
+                    }
+                }
+
+                if (cartItems.isEmpty()) {
+                    conn.rollback();
+                    return new ArrayList<>();
+                }
+
+                List<Order> orders = OrderRepository.splitByRestaurant(customerId, deliveryAddress, deliveryLocation, cartItems);
+                int[] ids = orderIds.tryNext(orders.size());
+                if (ids == null) {
+                    conn.rollback();
+                    idsNeeded = orders.size();
+                    continue;
+                }
+                for (int i = 0; i < orders.size(); i++) orders.get(i).setOrderId(ids[i]);
+                insertOrders(conn, orders);
+
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM cart WHERE customer_id = ?")) {
+                    stmt.setInt(1, customerId);
+                    stmt.executeUpdate();
+                }
+
+                readBackTimestamps(conn, orders);
+
+                conn.commit();
+                return orders;
+
+            } catch (SQLException e) {
+                Metrics.failed(e);
+                try { if (conn != null) conn.rollback(); } catch (Exception ignored) {}
+                return new ArrayList<>();
+
+            } finally {
+                try { if (conn != null) conn.setAutoCommit(true); } catch (Exception ignored) {}
+                try { if (conn != null) conn.close(); } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    /**
+     * All orders in one multi-row INSERT, then all of their items in a second one,
+     * so a mixed cart costs two statements however many restaurants it spans.
+     */
+    private void insertOrders(Connection conn, List<Order> orders) throws SQLException {
+        for (Order order : orders) {
+            for (OrderItem item : order.getItems()) item.setOrderId(order.getOrderId());
+        }
+
+        StringBuilder insertOrders = new StringBuilder(
+                "INSERT INTO orders (order_id, customer_id, restaurant_id, status, total_amount, delivery_address, " +
+                "delivery_latitude, delivery_longitude, updated_at) VALUES ");
+        StringBuilder insertItems = new StringBuilder(
+                "INSERT INTO order_items (order_id, food_id, quantity, price) VALUES ");
+        int itemCount = 0;
+
+        for (int i = 0; i < orders.size(); i++) {
+            insertOrders.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP(6))");
+            for (int j = 0; j < orders.get(i).getItems().size(); j++) {
+                insertItems.append(itemCount++ == 0 ? "" : ", ").append("(?, ?, ?, ?)");
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(insertOrders.toString())) {
+            int p = 1;
+            for (Order order : orders) {
+                stmt.setInt(p++, order.getOrderId());
+                stmt.setInt(p++, order.getCustomerId());
+                stmt.setInt(p++, order.getRestaurantId());
+                stmt.setString(p++, order.getStatus().name());
+                stmt.setDouble(p++, order.getTotalAmount());
+                stmt.setString(p++, order.getDeliveryAddress());
+                Locations.bind(stmt, p, order.getDeliveryLocation());
+                p += 2;
+            }
+            stmt.executeUpdate();
+        }
+
+        if (itemCount == 0) return;
+
+        try (PreparedStatement stmt = conn.prepareStatement(insertItems.toString())) {
+            int p = 1;
+            for (Order order : orders) {
+                for (OrderItem item : order.getItems()) {
+                    stmt.setInt(p++, order.getOrderId());
+                    stmt.setInt(p++, item.getFoodId());
+                    stmt.setInt(p++, item.getQuantity());
+                    stmt.setDouble(p++, item.getPrice());
+                }
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    // order_date / updated_at come from the database clock
+    private static void readBackTimestamps(Connection conn, List<Order> orders) throws SQLException {
+        Map<Integer, Order> byId = new HashMap<>();
+        StringBuilder query = new StringBuilder("SELECT order_id, order_date, updated_at FROM orders WHERE order_id IN (");
+        for (Order order : orders) {
+            query.append(byId.isEmpty() ? "?" : ", ?");
+            byId.put(order.getOrderId(), order);
+        }
+        query.append(")");
+
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int p = 1;
+            for (Order order : orders) stmt.setInt(p++, order.getOrderId());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Order order = byId.get(rs.getInt("order_id"));
+                    order.setOrderDate(rs.getTimestamp("order_date"));
+                    order.setUpdatedAt(rs.getTimestamp("updated_at"));
+                }
+            }
+        }
+    }
+
+    /** GET ORDER BY ID (FOR LIVE TRACKING) **/
+    @Override
+    public Order findById(int orderId) {
+        String query = "SELECT * FROM orders WHERE order_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, orderId);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return mapOrder(rs);
+            }
+
+        } catch (SQLException e) { Metrics.failed(e); }
+
+        return null;
+    }
+
+    /** GET ORDERS BY CUSTOMER **/
+    @Override
+    public List<Order> findByCustomer(int customerId) {
+        List<Order> orders = new ArrayList<>();
+
+        String query = "SELECT * FROM orders WHERE customer_id = ? ORDER BY order_date DESC";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, customerId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(mapOrder(rs));
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+        return orders;
+    }
+
+    /** GET ORDERS BY RESTAURANT **/
+    @Override
+    public List<Order> findByRestaurant(int restaurantId) {
+        List<Order> orders = new ArrayList<>();
+
+        String query = "SELECT * FROM orders WHERE restaurant_id = ? ORDER BY order_date DESC";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, restaurantId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(mapOrder(rs));
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+        return orders;
+    }
+
+    /** GET ORDERS BY DELIVERY PERSON **/
+    @Override
+    public List<Order> findByDeliveryPerson(int deliveryId) {
+        List<Order> orders = new ArrayList<>();
+
+        String query = "SELECT * FROM orders WHERE delivery_id = ? ORDER BY order_date DESC";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, deliveryId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(mapOrder(rs)); // with drop-off position, for route planning
+            }
+
+        } catch (SQLException e) { Metrics.failed(e); }
+
+        return orders;
+    }
+
+    /** GET OPEN ROUTE STOPS OF DELIVERY PERSON **/
+    @Override
+    public List<RouteStop> findOpenStops(int deliveryId) {
+        List<RouteStop> stops = new ArrayList<>();
+
+        // the open orders and their restaurants in one read, not the whole history plus a lookup each
+        String query =
+                "SELECT o.order_id, o.restaurant_id, o.delivery_address, o.delivery_latitude, o.delivery_longitude, " +
+                "r.name, r.latitude, r.longitude " +
+                "FROM orders o " +
+                "LEFT JOIN restaurants r ON o.restaurant_id = r.restaurant_id " +
+                "WHERE o.delivery_id = ? AND o.status NOT IN ('DELIVERED', 'CANCELLED') " +
+                "ORDER BY o.order_date DESC, o.order_id DESC";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, deliveryId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int orderId = rs.getInt("order_id");
+                    String restaurant = rs.getString("name");
+                    stops.add(new RouteStop(RouteStop.Kind.PICKUP, orderId,
+                            restaurant != null ? restaurant : "Restaurant #" + rs.getInt("restaurant_id"),
+                            Locations.read(rs, "latitude", "longitude")));
+                    stops.add(new RouteStop(RouteStop.Kind.DROP_OFF, orderId,
+                            rs.getString("delivery_address"),
+                            Locations.read(rs, "delivery_latitude", "delivery_longitude")));
+                }
+            }
+
+        } catch (SQLException e) { Metrics.failed(e); }
+
+        return stops;
+    }
+
+    /** GET ORDER ITEMS (FOR POPUP DETAILS) **/
+    @Override
+    public List<OrderItem> findItems(int orderId) {
+        List<OrderItem> items = new ArrayList<>();
+
+        String query =
+                "SELECT oi.food_id, oi.quantity, oi.price, f.name " +
+                "FROM order_items oi " +
+                "JOIN food_items f ON oi.food_id = f.food_id " +
+                "WHERE oi.order_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, orderId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                OrderItem item = new OrderItem(
+                        rs.getInt("food_id"),
+                        rs.getInt("quantity"),
+                        rs.getDouble("price")
+                );
+
+                item.setFoodName(rs.getString("name")); // Now this works
+
+                items.add(item);
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return items;
+    }
+
+    /** ORDER HISTORY PAGES (keyset on order_date, order_id) **/
+    @Override
+    public OrderPage findPageByCustomer(int customerId, OrderPage.Cursor after, int pageSize) {
+        return findPage("customer_id", customerId, after, pageSize);
+    }
+
+    @Override
+    public OrderPage findPageByRestaurant(int restaurantId, OrderPage.Cursor after, int pageSize) {
+        return findPage("restaurant_id", restaurantId, after, pageSize);
+    }
+
+    @Override
+    public OrderPage findPageByDeliveryPerson(int deliveryId, OrderPage.Cursor after, int pageSize) {
+        return findPage("delivery_id", deliveryId, after, pageSize);
+    }
+
+    /** RESTAURANT ORDERS FILTERED BY STATUS (uses idx_orders_restaurant_status) **/
+    @Override
+    public OrderPage findPageByRestaurantAndStatus(int restaurantId, Set<Order.OrderStatus> statuses,
+                                                   OrderPage.Cursor after, int pageSize) {
+        if (statuses.isEmpty()) return new OrderPage(new ArrayList<>(), null);
+        return findPage("restaurant_id", restaurantId, statuses, after, pageSize);
+    }
+
+    /** ORDER COUNT PER STATUS FOR ONE RESTAURANT **/
+    @Override
+    public Map<Order.OrderStatus, Integer> countByStatusForRestaurant(int restaurantId) {
+        Map<Order.OrderStatus, Integer> counts = new EnumMap<>(Order.OrderStatus.class);
+
+        String query = "SELECT status, COUNT(*) AS n FROM orders WHERE restaurant_id = ? GROUP BY status";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, restaurantId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(Order.OrderStatus.valueOf(rs.getString("status")), rs.getInt("n"));
+                }
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return counts;
+    }
+
+    private OrderPage findPage(String column, int id, OrderPage.Cursor after, int pageSize) {
+        return findPage(column, id, null, after, pageSize);
+    }
+
+    // column is one of the fixed names above, never user input; statuses null = any status
+    private OrderPage findPage(String column, int id, Set<Order.OrderStatus> statuses,
+                               OrderPage.Cursor after, int pageSize) {
+        List<Order> orders = new ArrayList<>();
+
+        StringBuilder query = new StringBuilder("SELECT * FROM orders WHERE ").append(column).append(" = ?");
+        if (statuses != null) {
+            query.append(" AND status IN (");
+            for (int n = 0; n < statuses.size(); n++) query.append(n == 0 ? "?" : ", ?");
+            query.append(")");
+        }
+        if (after != null) {
+            query.append(" AND (order_date < ? OR (order_date = ? AND order_id < ?))");
+        }
+        query.append(" ORDER BY order_date DESC, order_id DESC LIMIT ?");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+
+            int i = 1;
+            stmt.setInt(i++, id);
+            if (statuses != null) {
+                for (Order.OrderStatus status : statuses) stmt.setString(i++, status.name());
+            }
+            if (after != null) {
+                stmt.setTimestamp(i++, after.getOrderDate());
+                stmt.setTimestamp(i++, after.getOrderDate());
+                stmt.setInt(i++, after.getOrderId());
+            }
+            // one extra row tells us whether another page exists
+            stmt.setInt(i, pageSize + 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapOrder(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return OrderPage.of(orders, pageSize);
+    }
+
+    private static Order mapOrder(ResultSet rs) throws SQLException {
+        Order order = new Order(
+                rs.getInt("customer_id"),
+                rs.getInt("restaurant_id"),
+                rs.getDouble("total_amount"),
+                rs.getString("delivery_address")
+        );
+
+        order.setOrderId(rs.getInt("order_id"));
+        order.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
+        order.setOrderDate(rs.getTimestamp("order_date"));
+        order.setDeliveryId(rs.getInt("delivery_id"));
+        order.setUpdatedAt(rs.getTimestamp("updated_at"));
+        order.setDeliveryLocation(Locations.read(rs, "delivery_latitude", "delivery_longitude"));
+        order.setVersion(rs.getInt("version"));
+        return order;
+    }
+
+    /** ORDERS INSERTED OR CHANGED SINCE A POINT IN TIME (for incremental refresh) **/
+    @Override
+    public List<Order> findChangedSince(OrderScope scope, Timestamp since) {
+        List<Order> orders = new ArrayList<>();
+
+        String query = "SELECT * FROM orders WHERE " + scopeColumn(scope) + " = ? AND updated_at >= ? " +
+                "ORDER BY updated_at, order_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, scope.getId());
+            stmt.setTimestamp(2, since);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapOrder(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return orders;
+    }
+
+    /** DATABASE CLOCK, the same one that stamps updated_at **/
+    @Override
+    public Timestamp currentTime() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP(6)")) {
+
+            if (rs.next()) return rs.getTimestamp(1);
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return new Timestamp(System.currentTimeMillis());
+    }
+
+    private static String scopeColumn(OrderScope scope) {
+        switch (scope.getType()) {
+            case CUSTOMER: return "customer_id";
+            case RESTAURANT: return "restaurant_id";
+            case DELIVERY_PERSON: return "delivery_id";
+            default: return "order_id";
+        }
+    }
+
+    /** UPDATE ORDER STATUS (COMPARE-AND-SET ON VERSION) **/
+    @Override
+    public boolean updateStatus(int orderId, int expectedVersion, Order.OrderStatus status) {
+        Set<Order.OrderStatus> from = status.previousStatuses();
+        if (from.isEmpty()) return false;
+
+        // no lock: the version (and the allowed previous statuses) are checked in the update itself
+        StringBuilder query = new StringBuilder(
+                "UPDATE orders SET status = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP(6) " +
+                "WHERE order_id = ? AND version = ? AND status IN (");
+        for (int n = 0; n < from.size(); n++) query.append(n == 0 ? "?" : ", ?");
+        query.append(")");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+
+            int i = 1;
+            stmt.setString(i++, status.name());
+            stmt.setInt(i++, orderId);
+            stmt.setInt(i++, expectedVersion);
+            for (Order.OrderStatus s : from) stmt.setString(i++, s.name());
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return false;
+        }
+    }
+
+    /** ASSIGN DELIVERY PERSON TO ORDER */
+    @Override
+    public boolean assignDelivery(int orderId, int deliveryId) {
+
+        // conditional, so two terminals cannot both hand the order to a courier
+        String sql = "UPDATE orders SET delivery_id = ?, status='OUT_FOR_DELIVERY', version = version + 1, " +
+                "updated_at = CURRENT_TIMESTAMP(6) " +
+                "WHERE order_id = ? AND delivery_id IS NULL AND status = 'READY_FOR_PICKUP'";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, deliveryId);
+            stmt.setInt(2, orderId);
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return false;
+    }
+}
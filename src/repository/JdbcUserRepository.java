@@ -0,0 +1,363 @@
+package repository;
+
+import models.Customer;
+import models.GeoPoint;
+import models.Restaurant;
+import models.User;
+import utils.DatabaseConnection;
+import utils.Metrics;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcUserRepository implements UserRepository {
+
+    private static final int USER_ID_BLOCK = 100;
+
+    private final BlockIdAllocator userIds = new BlockIdAllocator("users", "user_id", USER_ID_BLOCK);
+
+    /**
+     * Registers a new customer:
+     * 1. Insert into users table
+     * 2. Insert into customers table
+     * Both must succeed together (transaction)
+     */
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        Connection conn = null;
+        PreparedStatement userStmt = null;
+        PreparedStatement custStmt = null;
+
+        try {
+            // Reserve the new user_id up front (no generated-key round trip), before
+            // borrowing: a new block takes a connection of its own
+            int userId = userIds.next();
+
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Insert into users table
+            String userQuery =
+                    "INSERT INTO users (user_id, username, email, password, phone, user_type) VALUES (?, ?, ?, ?, ?, ?)";
+
+            userStmt = conn.prepareStatement(userQuery);
+            userStmt.setInt(1, userId);
+            userStmt.setString(2, customer.getUsername());
+            userStmt.setString(3, customer.getEmail());
+            userStmt.setString(4, customer.getPassword());
+            userStmt.setString(5, customer.getPhone());
+            userStmt.setString(6, "CUSTOMER");
+
+            if (userStmt.executeUpdate() == 0) {
+                conn.rollback();
+                return false;
+            }
+
+            customer.setUserId(userId);
+
+            // Insert into customers table
+            String custQuery = "INSERT INTO customers (customer_id, address, latitude, longitude) VALUES (?, ?, ?, ?)";
+
+            custStmt = conn.prepareStatement(custQuery);
+            custStmt.setInt(1, userId);
+            custStmt.setString(2, customer.getAddress());
+            Locations.bind(custStmt, 3, customer.getLocation());
+
+            if (custStmt.executeUpdate() == 0) {
+                conn.rollback();
+                return false;
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                Metrics.failed(ex);
+            }
+            return false;
+
+        } finally {
+            try { if (userStmt != null) userStmt.close(); } catch (Exception ignored) {}
+            try { if (custStmt != null) custStmt.close(); } catch (Exception ignored) {}
+            try { if (conn != null) conn.setAutoCommit(true); } catch (Exception ignored) {}
+            try { if (conn != null) conn.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    /**
+     * Authenticate a customer at login
+     */
+    @Override
+    public Customer findCustomerByCredentials(String username, String password) {
+        String query =
+                "SELECT u.*, c.address, c.latitude, c.longitude " +
+                "FROM users u " +
+                "JOIN customers c ON u.user_id = c.customer_id " +
+                "WHERE u.username = ? AND u.password = ? AND u.user_type = 'CUSTOMER'";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setString(1, username);
+            stmt.setString(2, password);
+
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                Customer customer = new Customer();
+                customer.setUserId(rs.getInt("user_id"));
+                customer.setUsername(rs.getString("username"));
+                customer.setEmail(rs.getString("email"));
+                customer.setPassword(rs.getString("password"));
+                customer.setPhone(rs.getString("phone"));
+                customer.setAddress(rs.getString("address"));
+                customer.setLocation(Locations.read(rs, "latitude", "longitude"));
+
+                // Correct method
+                customer.setUserType(User.UserType.CUSTOMER);
+
+                return customer;
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns all customers (Admin)
+     */
+    @Override
+    public List<Customer> findAllCustomers() {
+        List<Customer> customers = new ArrayList<>();
+
+        String query =
+                "SELECT u.*, c.address, c.latitude, c.longitude " +
+                "FROM users u " +
+                "JOIN customers c ON u.user_id = c.customer_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            while (rs.next()) {
+                Customer customer = new Customer();
+                customer.setUserId(rs.getInt("user_id"));
+                customer.setUsername(rs.getString("username"));
+                customer.setEmail(rs.getString("email"));
+                customer.setPhone(rs.getString("phone"));
+                customer.setAddress(rs.getString("address"));
+                customer.setLocation(Locations.read(rs, "latitude", "longitude"));
+
+                // Correct method
+                customer.setUserType(User.UserType.CUSTOMER);
+
+                customers.add(customer);
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return customers;
+    }
+
+    /**
+     * Registers a new restaurant.
+     * Inserts into users table AND restaurants table.
+     * Rolls back transaction if any operation fails.
+     */
+    @Override
+    public boolean insertRestaurant(Restaurant restaurant) {
+        Connection conn = null;
+
+        try {
+            int userId = userIds.next(); // reserved before borrowing, as in insertCustomer
+
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Insert user record with the id reserved up front
+            String userSql = "INSERT INTO users (user_id, username, email, password, phone, user_type) VALUES (?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement userStmt = conn.prepareStatement(userSql)) {
+
+                userStmt.setInt(1, userId);
+                userStmt.setString(2, restaurant.getUsername());
+                userStmt.setString(3, restaurant.getEmail());
+                userStmt.setString(4, restaurant.getPassword());
+                userStmt.setString(5, restaurant.getPhone());
+                userStmt.setString(6, "RESTAURANT");
+
+                int affected = userStmt.executeUpdate();
+                if (affected == 0) {
+                    conn.rollback();
+                    return false;
+                }
+
+                restaurant.setUserId(userId);
+            }
+
+            // Insert into restaurants table
+            String restaurantSql =
+                    "INSERT INTO restaurants (restaurant_id, name, address, cuisine_type, latitude, longitude) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+
+            try (PreparedStatement restStmt = conn.prepareStatement(restaurantSql)) {
+
+                restStmt.setInt(1, restaurant.getUserId());
+                restStmt.setString(2, restaurant.getName());
+                restStmt.setString(3, restaurant.getAddress());
+                restStmt.setString(4, restaurant.getCuisineType());
+                Locations.bind(restStmt, 5, restaurant.getLocation());
+
+                int affected = restStmt.executeUpdate();
+                if (affected == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+
+            // Success
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                Metrics.failed(ex);
+            }
+            return false;
+
+        } finally {
+            try {
+                if (conn != null) conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                Metrics.failed(e);
+            }
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                Metrics.failed(e);
+            }
+        }
+    }
+
+    /**
+     * Restaurant login authentication.
+     */
+    @Override
+    public Restaurant findRestaurantByCredentials(String username, String password) {
+
+        String sql =
+                "SELECT u.*, r.name, r.address, r.cuisine_type, r.latitude, r.longitude " +
+                "FROM users u " +
+                "JOIN restaurants r ON u.user_id = r.restaurant_id " +
+                "WHERE u.username = ? AND u.password = ? AND u.user_type = 'RESTAURANT'";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, username);
+            stmt.setString(2, password);
+
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                Restaurant r = new Restaurant();
+                r.setUserId(rs.getInt("user_id"));
+                r.setUsername(rs.getString("username"));
+                r.setEmail(rs.getString("email"));
+                r.setPassword(rs.getString("password"));
+                r.setPhone(rs.getString("phone"));
+                r.setName(rs.getString("name"));
+                r.setAddress(rs.getString("address"));
+                r.setCuisineType(rs.getString("cuisine_type"));
+                r.setLocation(Locations.read(rs, "latitude", "longitude"));
+                r.setUserType(User.UserType.RESTAURANT);
+                return r;
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return null; // Login failed
+    }
+
+    /**
+     * All restaurants (no passwords), e.g. to build the nearby-restaurants index.
+     */
+    @Override
+    public List<Restaurant> findAllRestaurants() {
+        List<Restaurant> restaurants = new ArrayList<>();
+
+        String query =
+                "SELECT u.user_id, u.username, u.email, u.phone, r.name, r.address, r.cuisine_type, r.latitude, r.longitude " +
+                "FROM users u " +
+                "JOIN restaurants r ON u.user_id = r.restaurant_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            while (rs.next()) {
+                Restaurant r = new Restaurant();
+                r.setUserId(rs.getInt("user_id"));
+                r.setUsername(rs.getString("username"));
+                r.setEmail(rs.getString("email"));
+                r.setPhone(rs.getString("phone"));
+                r.setName(rs.getString("name"));
+                r.setAddress(rs.getString("address"));
+                r.setCuisineType(rs.getString("cuisine_type"));
+                r.setLocation(Locations.read(rs, "latitude", "longitude"));
+                r.setUserType(User.UserType.RESTAURANT);
+                restaurants.add(r);
+            }
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return restaurants;
+    }
+
+    /**
+     * Sets (or clears, with null) a customer's default drop-off position.
+     */
+    @Override
+    public boolean setCustomerLocation(int customerId, GeoPoint location) {
+        return setLocation("UPDATE customers SET latitude = ?, longitude = ? WHERE customer_id = ?", customerId, location);
+    }
+
+    /**
+     * Sets (or clears, with null) a restaurant's position.
+     */
+    @Override
+    public boolean setRestaurantLocation(int restaurantId, GeoPoint location) {
+        return setLocation("UPDATE restaurants SET latitude = ?, longitude = ? WHERE restaurant_id = ?", restaurantId, location);
+    }
+
+    private boolean setLocation(String sql, int id, GeoPoint location) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            Locations.bind(stmt, 1, location);
+            stmt.setInt(3, id);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            Metrics.failed(e);
+        }
+
+        return false;
+    }
+}
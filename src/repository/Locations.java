@@ -0,0 +1,36 @@
+package repository;
+
+import models.GeoPoint;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Nullable latitude / longitude column pairs.
+ */
+final class Locations {
+
+    private Locations() {}
+
+    /** null unless both columns are set */
+    static GeoPoint read(ResultSet rs, String latitudeColumn, String longitudeColumn) throws SQLException {
+        double lat = rs.getDouble(latitudeColumn);
+        if (rs.wasNull()) return null;
+        double lon = rs.getDouble(longitudeColumn);
+        if (rs.wasNull()) return null;
+        return new GeoPoint(lat, lon);
+    }
+
+    /** Binds the point to parameters index and index + 1 (both NULL when point is null). */
+    static void bind(PreparedStatement stmt, int index, GeoPoint point) throws SQLException {
+        if (point == null) {
+            stmt.setNull(index, Types.DOUBLE);
+            stmt.setNull(index + 1, Types.DOUBLE);
+        } else {
+            stmt.setDouble(index, point.getLatitude());
+            stmt.setDouble(index + 1, point.getLongitude());
+        }
+    }
+}
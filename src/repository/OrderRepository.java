@@ -0,0 +1,121 @@
+package repository;
+
+import models.Cart;
+import models.GeoPoint;
+import models.Order;
+import models.Order.OrderItem;
+import models.OrderPage;
+import models.OrderScope;
+import models.RouteStop;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage for the orders and order_items tables.
+ * All list lookups return newest orders first.
+ */
+public interface OrderRepository {
+
+    /**
+     * Inserts the order and one order_items row per cart line in one transaction;
+     * sets the generated order id, order date and updated_at on the order.
+     */
+    boolean insert(Order order, List<Cart> cartItems);
+
+    /**
+     * Inserts many orders, each with the items in Order.getItems(), in one transaction;
+     * sets order id, order date and updated_at on every order.
+     */
+    boolean insertAll(List<Order> orders);
+
+    /**
+     * Turns the customer's stored cart into orders in one transaction: reads the
+     * lines with current food_items prices, inserts one order per restaurant with
+     * its items and empties the cart. Returns the new orders with their items
+     * (oldest id first), or an empty list if the cart was empty or the transaction failed.
+     * deliveryLocation may be null.
+     */
+    List<Order> checkout(int customerId, String deliveryAddress, GeoPoint deliveryLocation);
+
+    /**
+     * One order per restaurant in the cart, in the order restaurants first appear,
+     * priced from the lines' food items.
+     */
+    static List<Order> splitByRestaurant(int customerId, String deliveryAddress, GeoPoint deliveryLocation,
+                                         List<Cart> cartItems) {
+        Map<Integer, Order> byRestaurant = new LinkedHashMap<>();
+
+        for (Cart c : cartItems) {
+            int restaurantId = c.getFoodItem().getRestaurantId();
+            Order order = byRestaurant.computeIfAbsent(restaurantId,
+                    id -> new Order(customerId, id, 0, deliveryAddress));
+
+            double price = c.getFoodItem().getPrice();
+            order.setTotalAmount(order.getTotalAmount() + price * c.getQuantity());
+
+            OrderItem item = new OrderItem(c.getFoodId(), c.getQuantity(), price);
+            item.setFoodName(c.getFoodItem().getName());
+            order.getItems().add(item);
+        }
+        for (Order order : byRestaurant.values()) order.setDeliveryLocation(deliveryLocation);
+        return new ArrayList<>(byRestaurant.values());
+    }
+
+    Order findById(int orderId);
+
+    List<Order> findByCustomer(int customerId);
+
+    List<Order> findByRestaurant(int restaurantId);
+
+    List<Order> findByDeliveryPerson(int deliveryId);
+
+    /**
+     * The courier's orders that are not DELIVERED or CANCELLED, each as a pickup
+     * (restaurant name and position) followed by its drop-off.
+     */
+    List<RouteStop> findOpenStops(int deliveryId);
+
+    /**
+     * Keyset-paginated variants of the lookups above: at most pageSize orders
+     * strictly after the cursor (null for the first page).
+     */
+    OrderPage findPageByCustomer(int customerId, OrderPage.Cursor after, int pageSize);
+
+    OrderPage findPageByRestaurant(int restaurantId, OrderPage.Cursor after, int pageSize);
+
+    OrderPage findPageByDeliveryPerson(int deliveryId, OrderPage.Cursor after, int pageSize);
+
+    /** Restaurant orders whose status is one of statuses, paged like findPageByRestaurant. */
+    OrderPage findPageByRestaurantAndStatus(int restaurantId, Set<Order.OrderStatus> statuses,
+                                            OrderPage.Cursor after, int pageSize);
+
+    /** Number of orders per status for a restaurant; statuses with no orders are left out. */
+    Map<Order.OrderStatus, Integer> countByStatusForRestaurant(int restaurantId);
+
+    /** Orders in scope whose updated_at is at or after since, oldest change first. */
+    List<Order> findChangedSince(OrderScope scope, Timestamp since);
+
+    /** Current time on the clock that stamps updated_at. */
+    Timestamp currentTime();
+
+    /** Order items joined with the food item name. */
+    List<OrderItem> findItems(int orderId);
+
+    /**
+     * Compare-and-set: moves the order to status and bumps its version, only if the
+     * version is still expectedVersion and the current status may move to status
+     * (OrderStatus.canMoveTo). False if either check fails.
+     */
+    boolean updateStatus(int orderId, int expectedVersion, Order.OrderStatus status);
+
+    /**
+     * Sets delivery_id and moves the order to OUT_FOR_DELIVERY (bumping its version),
+     * only if no one is assigned yet and the order is READY_FOR_PICKUP.
+     */
+    boolean assignDelivery(int orderId, int deliveryId);
+}
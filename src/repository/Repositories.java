@@ -0,0 +1,77 @@
+package repository;
+
+import utils.DatabaseConnection;
+
+/**
+ * Picks the storage engine used by the services.
+ *
+ * Defaults to MySQL through JDBC. Start the JVM with -Dfooddb.storage=memory
+ * (or call {@link #useInMemory()} before creating any service) to run the
+ * whole app in-process without a database.
+ *
+ * With JDBC, carts are served from memory and written behind to the cart table
+ * every -Dfooddb.cartFlushMillis (default 2000); 0 writes every change directly.
+ */
+public final class Repositories {
+
+    private static final long CART_FLUSH_MILLIS = Long.getLong("fooddb.cartFlushMillis", 2_000);
+
+    private static volatile UserRepository users;
+    private static volatile FoodItemRepository foodItems;
+    private static volatile CartRepository carts;
+    private static volatile OrderRepository orders;
+    private static volatile DeliveryPersonRepository deliveryPersons;
+
+    static {
+        if ("memory".equalsIgnoreCase(System.getProperty("fooddb.storage"))) {
+            useInMemory();
+        } else {
+            useJdbc();
+        }
+    }
+
+    private Repositories() {}
+
+    public static synchronized void useJdbc() {
+        JdbcFoodItemRepository food = new JdbcFoodItemRepository();
+        shutdownCarts();
+        users = new JdbcUserRepository();
+        foodItems = food;
+        carts = jdbcCarts(food);
+        orders = new JdbcOrderRepository();
+        deliveryPersons = new JdbcDeliveryPersonRepository();
+    }
+
+    /** Switches to a fresh, empty in-memory store. */
+    public static synchronized void useInMemory() {
+        InMemoryFoodItemRepository food = new InMemoryFoodItemRepository();
+        shutdownCarts();
+        InMemoryUserRepository user = new InMemoryUserRepository();
+        InMemoryCartRepository cart = new InMemoryCartRepository(food);
+        users = user;
+        foodItems = food;
+        carts = cart;
+        orders = new InMemoryOrderRepository(food, cart, user);
+        deliveryPersons = new InMemoryDeliveryPersonRepository(orders);
+    }
+
+    private static CartRepository jdbcCarts(FoodItemRepository food) {
+        if (CART_FLUSH_MILLIS <= 0) return new JdbcCartRepository();
+
+        WriteBehindCartRepository writeBehind =
+                new WriteBehindCartRepository(new JdbcCartRepository(), food, CART_FLUSH_MILLIS);
+        DatabaseConnection.runBeforeShutdown(writeBehind::shutdown);
+        return writeBehind;
+    }
+
+    // write out anything still buffered before the engine is replaced
+    private static void shutdownCarts() {
+        if (carts instanceof WriteBehindCartRepository writeBehind) writeBehind.shutdown();
+    }
+
+    public static UserRepository users() { return users; }
+    public static FoodItemRepository foodItems() { return foodItems; }
+    public static CartRepository carts() { return carts; }
+    public static OrderRepository orders() { return orders; }
+    public static DeliveryPersonRepository deliveryPersons() { return deliveryPersons; }
+}
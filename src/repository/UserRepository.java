@@ -0,0 +1,34 @@
+package repository;
+
+import models.Customer;
+import models.GeoPoint;
+import models.Restaurant;
+
+import java.util.List;
+
+/**
+ * Storage for the users table and its customers / restaurants extensions.
+ */
+public interface UserRepository {
+
+    /** Inserts the user and customer rows together; sets the generated user id. */
+    boolean insertCustomer(Customer customer);
+
+    Customer findCustomerByCredentials(String username, String password);
+
+    List<Customer> findAllCustomers();
+
+    /** Inserts the user and restaurant rows together; sets the generated user id. */
+    boolean insertRestaurant(Restaurant restaurant);
+
+    Restaurant findRestaurantByCredentials(String username, String password);
+
+    /** Every restaurant, without passwords. */
+    List<Restaurant> findAllRestaurants();
+
+    /** Sets or clears (null) the customer's default drop-off position. */
+    boolean setCustomerLocation(int customerId, GeoPoint location);
+
+    /** Sets or clears (null) the restaurant's position. */
+    boolean setRestaurantLocation(int restaurantId, GeoPoint location);
+}
@@ -0,0 +1,342 @@
+package repository;
+
+import models.Cart;
+import models.FoodItem;
+import utils.Metrics;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Carts served from memory and written behind to the cart table.
+ *
+ * Each customer's cart is loaded from the table the first time it is touched
+ * (so the table is what the store recovers from after a restart), then its
+ * lines stay in memory. Changed customers are marked dirty and a background
+ * flusher writes them in one batch every flush interval, so a burst of adds
+ * costs one write. {@link #flush(int)} writes one customer through
+ * immediately. Carts untouched for a while are dropped once written, so
+ * memory holds only the lines of recently active customers. findLines is
+ * answered from memory; findByCustomer also reads names and prices from
+ * food_items, for callers without an in-memory menu to price them from.
+ */
+public class WriteBehindCartRepository implements CartRepository {
+
+    private static final long IDLE_EVICT_MILLIS = 15 * 60_000;
+
+    private final JdbcCartRepository table;
+    private final FoodItemRepository foodItems;
+
+    private final Map<Integer, CustomerCart> carts = new ConcurrentHashMap<>();
+    private final Set<Integer> knownFoods = ConcurrentHashMap.newKeySet(); // ids seen in food_items (the foreign key)
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+
+    // one writer at a time, so an older snapshot can never overwrite a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    public WriteBehindCartRepository(JdbcCartRepository table, FoodItemRepository foodItems, long flushMillis) {
+        this.table = table;
+        this.foodItems = foodItems;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cart-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean addQuantity(int customerId, int foodId, int quantity) {
+        if (!exists(foodId)) return false; // foreign key, checked now rather than at flush
+
+        return change(customerId, cart -> {
+            cart.add(foodId, quantity);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean addQuantities(int customerId, Map<Integer, Integer> quantities) {
+        for (int foodId : quantities.keySet()) {
+            if (!exists(foodId)) return false;
+        }
+
+        return change(customerId, cart -> {
+            for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+                cart.add(line.getKey(), line.getValue());
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public List<Cart> findByCustomer(int customerId) {
+        List<Cart> cartItems = new ArrayList<>();
+        CustomerCart customerCart = cart(customerId);
+        if (customerCart == null) return cartItems;
+        customerCart.lastUsed = System.currentTimeMillis();
+
+        // current names and prices, one read for the whole cart
+        Map<Integer, Integer> lines = customerCart.snapshot();
+        Map<Integer, FoodItem> foods;
+        try {
+            foods = table.loadFoods(lines.keySet());
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return cartItems;
+        }
+
+        for (Map.Entry<Integer, Integer> line : lines.entrySet()) {
+            FoodItem foodItem = foods.get(line.getKey());
+            if (foodItem == null) continue;
+
+            Cart cart = new Cart(customerId, line.getKey(), line.getValue());
+            cart.setFoodItem(foodItem);
+            cartItems.add(cart);
+        }
+        return cartItems;
+    }
+
+    @Override
+    public Map<Integer, Integer> findLines(int customerId) {
+        CustomerCart customerCart = cart(customerId);
+        if (customerCart == null) return new LinkedHashMap<>();
+        customerCart.lastUsed = System.currentTimeMillis();
+        return customerCart.snapshot();
+    }
+
+    @Override
+    public boolean clear(int customerId) {
+        return change(customerId, CustomerCart::clear);
+    }
+
+    @Override
+    public boolean flush(int customerId) {
+        flushLock.lock();
+        try {
+            CustomerCart cart = carts.get(customerId);
+            if (!dirty.remove(customerId) || cart == null) return true;
+            return write(Map.of(customerId, cart.snapshot()));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the cart for the checkout: changes to it wait, and the flusher
+     * leaves it alone, so nothing is lost between the write-through and the
+     * checkout transaction and nothing the transaction deleted is written back.
+     * Afterwards the cart is reloaded from the table on next use. If the
+     * write-through fails the checkout is skipped and the cart stays in memory,
+     * dirty, for the flusher to retry.
+     */
+    @Override
+    public <T> T aroundCheckout(int customerId, Supplier<T> checkout, T notSaved) {
+        CustomerCart cart;
+        while (true) {
+            cart = openCart(customerId);
+            if (cart == null) return checkout.get(); // not loaded, so nothing buffered either
+            synchronized (cart) {
+                if (!cart.closed && !cart.evicted) {
+                    cart.closed = true;
+                    break;
+                }
+            }
+        }
+
+        boolean saved = false;
+        try {
+            if (!flush(customerId)) return notSaved; // the table would have an older cart
+            saved = true;
+            return checkout.get();
+        } finally {
+            synchronized (cart) {
+                if (saved) {
+                    cart.evicted = true;
+                    carts.remove(customerId, cart);
+                    dirty.remove(customerId);
+                } else {
+                    cart.closed = false;
+                }
+                cart.notifyAll();
+            }
+        }
+    }
+
+    /** Writes every dirty cart in one batch, then drops carts idle long enough; runs on the flusher thread and at shutdown. */
+    public void flushAll() {
+        flushLock.lock();
+        try {
+            if (!dirty.isEmpty()) {
+                Map<Integer, Map<Integer, Integer>> batch = new HashMap<>();
+                for (Integer customerId : dirty) {
+                    CustomerCart cart = carts.get(customerId);
+                    if (cart != null && cart.closed) continue; // its checkout writes it
+
+                    // unmark before the snapshot: a change made after this re-marks the cart
+                    dirty.remove(customerId);
+                    if (cart != null) batch.put(customerId, cart.snapshot());
+                }
+                write(batch);
+            }
+            evictIdle();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void shutdown() {
+        flusher.shutdown();
+        flushAll();
+    }
+
+    // under flushLock, so every cart not marked dirty has been written
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - IDLE_EVICT_MILLIS;
+        for (Map.Entry<Integer, CustomerCart> e : carts.entrySet()) {
+            CustomerCart cart = e.getValue();
+            if (cart.lastUsed >= cutoff) continue;
+            synchronized (cart) {
+                if (cart.closed || cart.evicted || dirty.contains(e.getKey())) continue;
+                cart.evicted = true;
+                carts.remove(e.getKey(), cart);
+            }
+        }
+    }
+
+    // true if every cart was written; the others are marked dirty again
+    private boolean write(Map<Integer, Map<Integer, Integer>> batch) {
+        if (table.replaceAll(batch)) return true;
+
+        // one bad cart must not hold back the rest: retry one by one, keep failures dirty
+        boolean all = true;
+        if (batch.size() > 1) {
+            for (Map.Entry<Integer, Map<Integer, Integer>> cart : batch.entrySet()) {
+                if (!table.replaceAll(Map.of(cart.getKey(), cart.getValue()))) {
+                    dirty.add(cart.getKey());
+                    all = false;
+                }
+            }
+        } else {
+            dirty.addAll(batch.keySet());
+            all = false;
+        }
+        return all;
+    }
+
+    // applies change to the customer's open cart and marks it dirty if change says it changed;
+    // false if the cart could not be loaded
+    private boolean change(int customerId, Predicate<CustomerCart> change) {
+        while (true) {
+            CustomerCart cart = openCart(customerId);
+            if (cart == null) return false;
+            synchronized (cart) {
+                if (cart.closed || cart.evicted) continue; // closed or dropped meanwhile: take the next one
+                cart.lastUsed = System.currentTimeMillis();
+                boolean changed = change.test(cart);
+                if (changed) dirty.add(customerId);
+                return changed;
+            }
+        }
+    }
+
+    // the customer's cart once no checkout holds it; null if it could not be loaded
+    private CustomerCart openCart(int customerId) {
+        while (true) {
+            CustomerCart cart = cart(customerId);
+            if (cart == null) return null;
+            synchronized (cart) {
+                while (cart.closed && !cart.evicted) {
+                    try {
+                        cart.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                }
+                if (!cart.evicted) return cart;
+            }
+        }
+    }
+
+    // null if the cart could not be loaded; nothing is cached then, so a later flush
+    // cannot overwrite the stored cart with a partial one
+    private CustomerCart cart(int customerId) {
+        CustomerCart cart = carts.get(customerId);
+        if (cart != null) return cart;
+
+        // first touch: recover the customer's cart from the table
+        CustomerCart loaded = new CustomerCart();
+        try {
+            for (Cart line : table.load(customerId)) {
+                loaded.add(line.getFoodId(), line.getQuantity());
+                knownFoods.add(line.getFoodId());
+            }
+        } catch (SQLException e) {
+            Metrics.failed(e);
+            return null;
+        }
+        CustomerCart raced = carts.putIfAbsent(customerId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private boolean exists(int foodId) {
+        if (knownFoods.contains(foodId)) return true;
+        if (foodItems.findById(foodId) == null) return false;
+        knownFoods.add(foodId);
+        return true;
+    }
+
+    /** One customer's lines as parallel int arrays, in insertion order; its monitor guards the flags. */
+    private static final class CustomerCart {
+        private int[] foodIds = new int[4];
+        private int[] quantities = new int[4];
+        private int size;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile boolean closed;   // a checkout is using it
+        volatile boolean evicted;  // no longer in the map; callers load a fresh one
+
+        synchronized void add(int foodId, int quantity) {
+            for (int i = 0; i < size; i++) {
+                if (foodIds[i] == foodId) {
+                    quantities[i] += quantity;
+                    return;
+                }
+            }
+            if (size == foodIds.length) {
+                foodIds = Arrays.copyOf(foodIds, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            foodIds[size] = foodId;
+            quantities[size] = quantity;
+            size++;
+        }
+
+        synchronized boolean clear() {
+            boolean hadLines = size > 0;
+            size = 0;
+            return hadLines;
+        }
+
+        synchronized Map<Integer, Integer> snapshot() {
+            Map<Integer, Integer> lines = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) lines.put(foodIds[i], quantities[i]);
+            return lines;
+        }
+    }
+}
@@ -1,137 +1,159 @@
 package services;
 
 import models.DeliveryPerson;
-import utils.DatabaseConnection;
+import models.GeoPoint;
+import models.RouteStop;
+import repository.DeliveryPersonRepository;
+import repository.OrderRepository;
+import repository.Repositories;
+import utils.Metrics;
+import utils.StopSequencer;
 
-import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class DeliveryService {
 
-    /** LOGIN DELIVERY PERSON */
-    public DeliveryPerson authenticateDelivery(String username, String password) {
-
-        String sql = "SELECT * FROM delivery_persons WHERE name = ? AND password = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, username);
-            stmt.setString(2, password);
+    private static final Metrics.Group METRICS = Metrics.group("DeliveryService");
 
-            ResultSet rs = stmt.executeQuery();
+    private final DeliveryPersonRepository deliveryPersons;
+    private final OrderRepository orders;
+    private final DispatchEngine dispatch;
 
-            if (rs.next()) {
-
-                DeliveryPerson d = new DeliveryPerson();
-
-                // User parent class (userId = delivery_id)
-                d.setUserId(rs.getInt("delivery_id"));
-                d.setUsername(rs.getString("name"));
-                d.setEmail(rs.getString("email"));
-                d.setPhone(rs.getString("phone"));
-
-                // availability
-                d.setAvailable(rs.getString("status").equalsIgnoreCase("AVAILABLE"));
+    public DeliveryService() {
+        this(Repositories.deliveryPersons(), Repositories.orders(), DispatchEngine.shared());
+    }
 
-                return d;
-            }
+    public DeliveryService(DeliveryPersonRepository deliveryPersons, OrderRepository orders) {
+        this(deliveryPersons, orders, DispatchEngine.shared(deliveryPersons, orders));
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /** dispatch: an engine of the caller's, e.g. with its own bus or batch window */
+    public DeliveryService(DeliveryPersonRepository deliveryPersons, OrderRepository orders, DispatchEngine dispatch) {
+        this.deliveryPersons = deliveryPersons;
+        this.orders = orders;
+        this.dispatch = dispatch;
+    }
 
-        return null;
+    /** LOGIN DELIVERY PERSON */
+    public DeliveryPerson authenticateDelivery(String username, String password) {
+        return METRICS.time("authenticateDelivery", () -> deliveryPersons.findByCredentials(username, password));
     }
 
 
     /** GET AVAILABLE DELIVERY PERSONS */
     public List<String> getAvailableDeliveryNames() {
+        return METRICS.time("getAvailableDeliveryNames", deliveryPersons::findAvailableNames);
+    }
 
-        List<String> list = new ArrayList<>();
-
-        String sql = "SELECT name FROM delivery_persons WHERE status = 'AVAILABLE'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                list.add(rs.getString("name"));
-            }
-
-        } catch (SQLException e) { e.printStackTrace(); }
 
-        return list;
+    /** GET AVAILABLE DELIVERY PERSONS (ID + NAME, LONGEST IDLE FIRST) */
+    public List<DeliveryPerson> getAvailableDeliveryPersons() {
+        return METRICS.time("getAvailableDeliveryPersons", () -> {
+            dispatch.refreshPool();
+            return dispatch.getAvailable();
+        });
     }
 
 
     /** GET DELIVERY ID BY NAME */
     public int getDeliveryIdByName(String name) {
+        return METRICS.time("getDeliveryIdByName", () -> deliveryPersons.findIdByName(name));
+    }
 
-        String sql = "SELECT delivery_id FROM delivery_persons WHERE name = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * ASSIGN DELIVERY PERSON TO ORDER: reserves the delivery person and assigns the
+     * READY_FOR_PICKUP order in one transaction, so false if someone else got them
+     * (or the order) in the meantime, or the order is not ready.
+     */
+    public boolean assignDelivery(int orderId, int deliveryId) {
+        return METRICS.time("assignDelivery", () -> dispatch.assign(orderId, deliveryId));
+    }
 
-            stmt.setString(1, name);
 
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * AUTO-ASSIGN: the delivery person idle longest gets the order. Returns them, or
+     * null if none is free or the order is not READY_FOR_PICKUP yet; the order is
+     * then assigned as soon as both hold.
+     */
+    public DeliveryPerson dispatchOrder(int orderId) {
+        return METRICS.time("dispatchOrder", () -> dispatch.dispatch(orderId));
+    }
 
-            if (rs.next()) {
-                return rs.getInt("delivery_id");
-            }
 
-        } catch (SQLException e) { e.printStackTrace(); }
+    /** true when auto-assigned orders wait for the dispatch batch window */
+    public boolean isBatching() {
+        return dispatch.isBatching();
+    }
 
-        return -1;
+    /**
+     * AUTO-ASSIGN the available delivery person nearest to the pickup point (null = longest idle).
+     * In batch mode the order joins the current dispatch window and null is returned.
+     */
+    public DeliveryPerson dispatchOrder(int orderId, GeoPoint pickup) {
+        return METRICS.time("dispatchOrderNear", () -> {
+            if (dispatch.isBatching()) {
+                dispatch.submitForBatch(orderId, pickup);
+                return null;
+            }
+            return dispatch.dispatch(orderId, 0, pickup);
+        });
     }
 
 
-    /** ASSIGN DELIVERY PERSON TO ORDER */
-    public boolean assignDelivery(int orderId, int deliveryId) {
+    /**
+     * BATCH AUTO-ASSIGN: orders picked up at the same place, matched to delivery persons
+     * together (least total pickup distance). Returns the assignments made now, by order
+     * id; the rest wait for the next free delivery person (or the next batch window).
+     */
+    public Map<Integer, DeliveryPerson> dispatchOrders(List<Integer> orderIds, GeoPoint pickup) {
+        return METRICS.time("dispatchOrders", () -> {
+            List<DispatchEngine.Pickup> pickups = new ArrayList<>(orderIds.size());
+            for (int orderId : orderIds) pickups.add(new DispatchEngine.Pickup(orderId, pickup));
 
-        String sql = "UPDATE orders SET delivery_id = ?, status='OUT_FOR_DELIVERY' WHERE order_id = ?";
+            if (dispatch.isBatching()) {
+                for (DispatchEngine.Pickup p : pickups) dispatch.submitForBatch(p.orderId, pickup);
+                return new HashMap<>();
+            }
+            return dispatch.dispatchBatch(pickups);
+        });
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, deliveryId);
-            stmt.setInt(2, orderId);
+    /** UPDATE DELIVERY PERSON POSITION (e.g. from the courier's phone) */
+    public boolean updateLocation(int deliveryId, GeoPoint location) {
+        return METRICS.time("updateLocation", () -> {
+            if (!deliveryPersons.setLocation(deliveryId, location)) return false;
+            dispatch.moved(deliveryId, location);
+            return true;
+        });
+    }
 
-            int updated = stmt.executeUpdate();
 
-            if (updated > 0) {
-                setDeliveryStatus(deliveryId, "BUSY");
-                return true;
+    /**
+     * ROUTE: the delivery person's open orders as stops (a pickup for each order not
+     * in collected, a drop-off for each), in a short visiting order from their last
+     * reported position. Stops without a position come last.
+     */
+    public List<RouteStop> planRoute(DeliveryPerson deliveryPerson, Set<Integer> collected) {
+        return METRICS.time("planRoute", () -> {
+            List<RouteStop> stops = new ArrayList<>();
+            for (RouteStop stop : orders.findOpenStops(deliveryPerson.getUserId())) {
+                // assignment already sets OUT_FOR_DELIVERY, so only the courier knows what is on board
+                if (stop.isPickup() && collected.contains(stop.getOrderId())) continue;
+                stops.add(stop);
             }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return false;
+            return StopSequencer.sequence(deliveryPerson.getLocation(), stops);
+        });
     }
 
 
     /** UPDATE DELIVERY PERSON STATUS */
     public boolean setDeliveryStatus(int deliveryId, String status) {
-
-        String sql = "UPDATE delivery_persons SET status = ? WHERE delivery_id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, status);
-            stmt.setInt(2, deliveryId);
-
-            return stmt.executeUpdate() > 0;
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return false;
+        return METRICS.time("setDeliveryStatus", () -> deliveryPersons.setStatus(deliveryId, status));
     }
 }
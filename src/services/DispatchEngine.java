@@ -0,0 +1,673 @@
+package services;
+
+import events.OrderEvent;
+import events.OrderEventBus;
+import events.OrderEventListener;
+import models.DeliveryPerson;
+import models.GeoPoint;
+import models.Order;
+import repository.DeliveryPersonRepository;
+import repository.OrderRepository;
+import repository.Repositories;
+import utils.AssignmentSolver;
+import utils.DatabaseConnection;
+import utils.GeoGrid;
+import utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Automatic courier dispatch.
+ *
+ * Keeps a pool of available delivery persons in memory, longest idle first,
+ * and a queue of orders waiting for one, highest priority first and FIFO within
+ * a priority. Pairing an order with a courier is one transaction of two
+ * conditional updates (DeliveryPersonRepository.reserveFor): the courier goes
+ * AVAILABLE -> BUSY only if still available, and the order takes the courier
+ * only if it is READY_FOR_PICKUP and has none yet; both happen or neither.
+ * Whoever loses either race backs off, so a courier is never double-booked,
+ * across terminals too. Only a failed pairing costs a read, to tell which side
+ * said no. Orders not ready yet are parked until their READY_FOR_PICKUP event
+ * (or the next refresh), with the courier back in the pool.
+ *
+ * When the order comes with a pickup point, the nearest available courier
+ * (by last reported position, from a grid index) is chosen instead of the
+ * longest idle one.
+ *
+ * Batch mode: dispatchBatch() matches many orders to the pool at once so the
+ * total pickup distance is minimal (AssignmentSolver: exact within a time
+ * budget, greedy beyond it). With -Dfooddb.dispatch.batchWindowMillis > 0,
+ * submitForBatch() collects orders for that long and solves them together;
+ * -Dfooddb.dispatch.solveMillis bounds each solve (default 200).
+ *
+ * Bundling: an order whose restaurant is within BUNDLE_PICKUP_KM of a busy
+ * courier's pickup, and whose drop-off is within BUNDLE_DROP_OFF_KM of one of
+ * theirs, rides along with that courier instead of taking a new one, up to
+ * -Dfooddb.dispatch.maxBundle orders per trip (default 3, 1 = off). A trip
+ * stops taking orders once one of them is delivered, or after
+ * -Dfooddb.dispatch.bundleWindowMillis from its first order (default 10 min).
+ *
+ * Couriers return to the pool when all their orders are DELIVERED or CANCELLED
+ * (seen on the event bus). Couriers freed by other terminals are picked up by
+ * {@link #refreshPool()}, which also runs in the background right after
+ * construction and then every -Dfooddb.dispatch.refreshMillis (default 30 s),
+ * so waiting and parked orders are retried even when no courier is freed here.
+ */
+public class DispatchEngine {
+
+    private static final double GRID_CELL_DEGREES = 0.01; // ~1 km
+    private static final int NEAREST_CANDIDATES = 8;
+    private static final double UNKNOWN_DISTANCE_KM = 1_000; // courier or pickup without a position
+
+    public static final long DEFAULT_BATCH_WINDOW_MILLIS = Long.getLong("fooddb.dispatch.batchWindowMillis", 0);
+    public static final long DEFAULT_SOLVE_MILLIS = Long.getLong("fooddb.dispatch.solveMillis", 200);
+    public static final int DEFAULT_MAX_BUNDLE = Integer.getInteger("fooddb.dispatch.maxBundle", 3);
+    public static final long BUNDLE_WINDOW_MILLIS = Long.getLong("fooddb.dispatch.bundleWindowMillis", 10 * 60_000);
+    public static final long REFRESH_MILLIS = Long.getLong("fooddb.dispatch.refreshMillis", 30_000);
+
+    private static final double BUNDLE_PICKUP_KM = 1.0;   // restaurants this close count as one pickup
+    private static final double BUNDLE_DROP_OFF_KM = 2.0; // from the nearest drop-off already on the trip
+
+    private static final Set<Order.OrderStatus> NOT_READY =
+            EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED, Order.OrderStatus.PREPARING);
+
+    private static DispatchEngine shared;
+
+    private final DeliveryPersonRepository couriers;
+    private final OrderRepository orders;
+    private final OrderEventBus events;
+
+    // pool: ids in idle order; a courier is in the pool iff present in `available`
+    private final Queue<Integer> idle = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, DeliveryPerson> available = new ConcurrentHashMap<>();
+    private final Map<Integer, DeliveryPerson> known = new ConcurrentHashMap<>(); // everyone seen, for names
+    private final GeoGrid<DeliveryPerson> nearby = new GeoGrid<>(GRID_CELL_DEGREES); // pool members with a position
+
+    private final PriorityBlockingQueue<Request> waiting = new PriorityBlockingQueue<>(64,
+            Comparator.comparingInt((Request r) -> -r.priority).thenComparingLong(r -> r.seq));
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final Map<Integer, Request> notReady = new ConcurrentHashMap<>(); // parked until READY_FOR_PICKUP
+
+    private final long solveMillis;
+    private final List<Pickup> batch = new ArrayList<>(); // guarded by itself
+    private final ScheduledExecutorService batcher;       // null when batching is off
+
+    // every courier with orders, by courier id; trips that can still take more are also in openBundles
+    private final int maxBundle;
+    private final Map<Integer, Bundle> bundles = new ConcurrentHashMap<>();
+    private final GeoGrid<Bundle> openBundles = new GeoGrid<>(GRID_CELL_DEGREES);
+
+    private final ScheduledExecutorService refresher;
+    private volatile boolean loaded; // the pool has been read at least once
+    private final ExecutorService listenerThread;
+    private final OrderEventBus.Subscription subscription;
+
+    public DispatchEngine() {
+        this(Repositories.deliveryPersons(), Repositories.orders(), OrderEventBus.get());
+    }
+
+    public DispatchEngine(DeliveryPersonRepository couriers, OrderRepository orders, OrderEventBus events) {
+        this(couriers, orders, events, DEFAULT_BATCH_WINDOW_MILLIS, DEFAULT_SOLVE_MILLIS);
+    }
+
+    /** batchWindowMillis: how long submitForBatch collects orders (0 = no batching) */
+    public DispatchEngine(DeliveryPersonRepository couriers, OrderRepository orders, OrderEventBus events,
+                          long batchWindowMillis, long solveMillis) {
+        this(couriers, orders, events, batchWindowMillis, solveMillis, DEFAULT_MAX_BUNDLE);
+    }
+
+    /** maxBundle: most orders one courier carries per trip (1 = no bundling) */
+    public DispatchEngine(DeliveryPersonRepository couriers, OrderRepository orders, OrderEventBus events,
+                          long batchWindowMillis, long solveMillis, int maxBundle) {
+        this.couriers = couriers;
+        this.orders = orders;
+        this.events = events;
+        this.solveMillis = solveMillis;
+        this.maxBundle = maxBundle;
+
+        if (batchWindowMillis > 0) {
+            batcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "dispatch-batch");
+                t.setDaemon(true);
+                return t;
+            });
+            batcher.scheduleWithFixedDelay(this::dispatchCollected, batchWindowMillis, batchWindowMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            batcher = null;
+        }
+
+        listenerThread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "dispatch-events");
+            t.setDaemon(true);
+            return t;
+        });
+        subscription = events.subscribe(null, listenerThread, new OrderEventListener() {
+            @Override
+            public void onEvent(OrderEvent event) {
+                if (event instanceof OrderEvent.StatusChanged) onStatusChanged(event.getOrder());
+            }
+
+            @Override
+            public void onMissedEvents() {
+                refreshPool();
+            }
+        });
+
+        // the first load runs here too, so constructing the engine (e.g. on the EDT) does no JDBC
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dispatch-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** The engine shared by default-constructed DeliveryServices. */
+    public static DispatchEngine shared() {
+        return shared(Repositories.deliveryPersons(), Repositories.orders());
+    }
+
+    /**
+     * The one engine (threads and courier pool) of the process, on these repositories;
+     * asking for other ones, e.g. after Repositories switched, replaces it.
+     */
+    public static synchronized DispatchEngine shared(DeliveryPersonRepository couriers, OrderRepository orders) {
+        if (shared == null || shared.couriers != couriers || shared.orders != orders) {
+            if (shared != null) shared.shutdown();
+            shared = new DispatchEngine(couriers, orders, OrderEventBus.get());
+            DatabaseConnection.runBeforeShutdown(shared::shutdown);
+        }
+        return shared;
+    }
+
+    /**
+     * Assigns the next courier to the order (FIFO among orders), or queues the order
+     * until one is free and it is READY_FOR_PICKUP. Returns the courier, or null if
+     * the order is waiting.
+     */
+    public DeliveryPerson dispatch(int orderId) {
+        return dispatch(orderId, 0);
+    }
+
+    /** Like dispatch(orderId); waiting orders with a higher priority are served first. */
+    public DeliveryPerson dispatch(int orderId, int priority) {
+        return dispatch(orderId, priority, null);
+    }
+
+    /**
+     * Like dispatch(orderId, priority), but picks the available courier nearest to
+     * pickup (null = longest idle). Couriers without a position are used only when
+     * none with one is free.
+     */
+    public DeliveryPerson dispatch(int orderId, int priority, GeoPoint pickup) {
+        loadPool();
+        DeliveryPerson riding = joinBundle(orderId, pickup);
+        if (riding != null) return riding;
+
+        Request request = new Request(orderId, priority, pickup, nextSeq.getAndIncrement());
+        waiting.add(request);
+        drain();
+        return request.assigned;
+    }
+
+    /**
+     * Assigns this particular courier (manual pick). False if they are no longer
+     * available, or the order is not READY_FOR_PICKUP or already has a courier.
+     */
+    public boolean assign(int orderId, int deliveryId) {
+        loadPool();
+        DeliveryPerson courier = available.remove(deliveryId); // its idle entry goes stale
+        nearby.remove(deliveryId);
+        if (couriers.reserveFor(deliveryId, orderId)) {
+            assigned(known.get(deliveryId), deliveryId, orderId, null);
+            return true;
+        }
+        if (courier != null) {
+            // perhaps only the order said no; if another terminal has them, the next pairing drops them
+            addToPool(courier);
+            drain();
+        }
+        return false;
+    }
+
+    public boolean isBatching() {
+        return batcher != null;
+    }
+
+    /**
+     * Batch mode: the order joins the current window and is matched together with
+     * the others when it closes. Without a window it is dispatched right away.
+     */
+    public void submitForBatch(int orderId, GeoPoint pickup) {
+        if (batcher == null) {
+            dispatch(orderId, 0, pickup);
+            return;
+        }
+        synchronized (batch) {
+            batch.add(new Pickup(orderId, pickup));
+        }
+    }
+
+    /**
+     * Matches the orders to available couriers all at once, minimizing the total
+     * distance from courier to pickup. Orders left over (more orders than couriers,
+     * or a courier lost to another terminal) join the waiting queue, and orders not
+     * READY_FOR_PICKUP yet are parked. Returns the assignments made, by order id.
+     */
+    public Map<Integer, DeliveryPerson> dispatchBatch(List<Pickup> pickups) {
+        loadPool();
+        Map<Integer, DeliveryPerson> assigned = new HashMap<>();
+        List<Pickup> unbundled = new ArrayList<>(pickups.size());
+        for (Pickup pickup : pickups) {
+            DeliveryPerson riding = joinBundle(pickup.orderId, pickup.location);
+            if (riding != null) assigned.put(pickup.orderId, riding);
+            else unbundled.add(pickup);
+        }
+        pickups = unbundled;
+
+        List<DeliveryPerson> pool = getAvailable();
+        if (pickups.isEmpty()) return assigned;
+
+        double[][] cost = new double[pickups.size()][pool.size()];
+        for (int i = 0; i < pickups.size(); i++) {
+            GeoPoint at = pickups.get(i).location;
+            for (int j = 0; j < pool.size(); j++) {
+                GeoPoint from = pool.get(j).getLocation();
+                cost[i][j] = at == null || from == null ? UNKNOWN_DISTANCE_KM : from.distanceKm(at);
+            }
+        }
+        int[] match = pool.isEmpty() ? null
+                : AssignmentSolver.solve(cost, TimeUnit.MILLISECONDS.toNanos(solveMillis));
+
+        for (int i = 0; i < pickups.size(); i++) {
+            Pickup pickup = pickups.get(i);
+            DeliveryPerson courier = match == null || match[i] < 0 ? null : pool.get(match[i]);
+
+            if (courier != null && claim(courier)) {
+                Request request = new Request(pickup.orderId, 0, pickup.location, nextSeq.getAndIncrement());
+                if (pair(courier, request)) assigned.put(pickup.orderId, courier);
+                continue; // otherwise pair queued, parked or dropped the order
+            }
+            // no courier for it in this batch: first come, first served from here on
+            DeliveryPerson d = dispatch(pickup.orderId, 0, pickup.location);
+            if (d != null) assigned.put(pickup.orderId, d);
+        }
+        drain(); // orders pair put back in the queue
+        return assigned;
+    }
+
+    /** Couriers in the pool, longest idle first. */
+    public List<DeliveryPerson> getAvailable() {
+        loadPool();
+        List<DeliveryPerson> list = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (Integer id : idle) {
+            DeliveryPerson d = available.get(id);
+            if (d != null && seen.add(id)) list.add(d);
+        }
+        return list;
+    }
+
+    /** Latest position report for a courier; moves them in the index if they are in the pool. */
+    public void moved(int deliveryId, GeoPoint location) {
+        DeliveryPerson d = known.get(deliveryId);
+        if (d == null) return;
+        d.setLocation(location);
+        if (available.containsKey(deliveryId)) nearby.put(deliveryId, d, location);
+    }
+
+    public int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Re-reads who is AVAILABLE, e.g. couriers released by other terminals, and
+     * queues the parked orders again in case they became ready elsewhere.
+     */
+    public void refreshPool() {
+        for (DeliveryPerson d : couriers.findAvailable()) addToPool(d);
+        loaded = true;
+        for (Request parked : notReady.values()) {
+            if (notReady.remove(parked.orderId, parked)) waiting.add(parked);
+        }
+        drain();
+    }
+
+    public void shutdown() {
+        subscription.close();
+        refresher.shutdown();
+        listenerThread.shutdown();
+        if (batcher != null) {
+            batcher.shutdown();
+            dispatchCollected();
+        }
+    }
+
+    // a call that needs the pool before the background load got to it reads it itself
+    private void loadPool() {
+        if (!loaded) refreshPool();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refreshPool();
+        } catch (RuntimeException e) {
+            Metrics.failed(e); // keep the schedule alive
+        }
+    }
+
+    // the window closed: solve everything collected during it
+    private void dispatchCollected() {
+        List<Pickup> window;
+        synchronized (batch) {
+            if (batch.isEmpty()) return;
+            window = new ArrayList<>(batch);
+            batch.clear();
+        }
+        try {
+            dispatchBatch(window);
+        } catch (RuntimeException e) {
+            Metrics.failed(e); // keep the schedule alive
+        }
+    }
+
+    /*
+     * A parked order that is now ready is dispatched; a delivered or cancelled
+     * order frees its courier once it was the last of their trip.
+     */
+    private void onStatusChanged(Order order) {
+        if (order.getStatus() == Order.OrderStatus.READY_FOR_PICKUP) {
+            Request parked = notReady.remove(order.getOrderId());
+            if (parked != null && joinBundle(parked.orderId, parked.pickup) == null) {
+                waiting.add(parked);
+                drain();
+            }
+            return;
+        }
+
+        int courierId = order.getDeliveryId();
+        if (courierId <= 0) return;
+        if (order.getStatus() != Order.OrderStatus.DELIVERED
+                && order.getStatus() != Order.OrderStatus.CANCELLED) return;
+
+        Bundle trip = bundles.get(courierId);
+        if (trip == null) {
+            giveBack(courierId); // not assigned through this engine
+            return;
+        }
+        boolean last;
+        synchronized (trip) {
+            trip.orderIds.remove(order.getOrderId());
+            if (order.getStatus() == Order.OrderStatus.DELIVERED) trip.closed = true; // on the road
+            last = trip.finishIfEmpty();
+            if (trip.accepts(maxBundle)) openBundles.put(courierId, trip, trip.pickup); // a cancellation frees a place
+            else openBundles.remove(courierId);
+        }
+        if (last) endTrip(trip);
+    }
+
+    /*
+     * An order rides along with a courier already heading to (nearly) the same
+     * pickup whose drop-offs are close to its own. Returns the courier, or null
+     * if no trip fits. The courier stays BUSY, so only the order is updated.
+     */
+    private DeliveryPerson joinBundle(int orderId, GeoPoint pickup) {
+        if (maxBundle <= 1 || pickup == null || openBundles.size() == 0) return null;
+
+        List<Bundle> trips = openBundles.nearest(pickup, NEAREST_CANDIDATES, BUNDLE_PICKUP_KM, null);
+        if (trips.isEmpty()) return null;
+
+        Order order = orders.findById(orderId);
+        if (order == null || order.getDeliveryId() > 0 || order.getDeliveryLocation() == null) return null;
+        GeoPoint dropOff = order.getDeliveryLocation();
+
+        for (Bundle trip : trips) {
+            synchronized (trip) {
+                if (!trip.accepts(maxBundle)) {
+                    openBundles.remove(trip.courierId); // its window has passed
+                    continue;
+                }
+                if (!trip.nearDropOff(dropOff)) continue;
+                trip.joining++;
+            }
+
+            boolean joined = orders.assignDelivery(orderId, trip.courierId);
+            boolean last;
+            synchronized (trip) {
+                trip.joining--;
+                if (joined) trip.add(orderId, dropOff);
+                if (!trip.accepts(maxBundle)) openBundles.remove(trip.courierId);
+                last = trip.finishIfEmpty();
+            }
+            if (joined) {
+                publishAssigned(orderId);
+                return trip.courier;
+            }
+            if (last) endTrip(trip);
+            return null; // the order got a courier elsewhere, is not ready, or was delivered or cancelled
+        }
+        return null;
+    }
+
+    // after any assignment: publish it and add the order to the courier's trip (opening one if needed)
+    private void assigned(DeliveryPerson courier, int courierId, int orderId, GeoPoint pickup) {
+        Order order = publishAssigned(orderId);
+        GeoPoint dropOff = order == null ? null : order.getDeliveryLocation();
+
+        Bundle trip = bundles.computeIfAbsent(courierId, id -> new Bundle(courier, id, pickup));
+        synchronized (trip) {
+            trip.add(orderId, dropOff);
+            if (trip.accepts(maxBundle)) openBundles.put(courierId, trip, trip.pickup);
+            else openBundles.remove(courierId);
+        }
+    }
+
+    private void endTrip(Bundle trip) {
+        bundles.remove(trip.courierId, trip);
+        openBundles.remove(trip.courierId);
+        giveBack(trip.courierId);
+    }
+
+    /*
+     * Pairs waiting orders with idle couriers until one side runs out. Any
+     * thread may run it; a caller that puts an order back re-checks the pool,
+     * and a caller that adds a courier re-checks the queue, so neither side can
+     * be left waiting while the other has entries.
+     */
+    private void drain() {
+        while (!waiting.isEmpty() && !available.isEmpty()) {
+            Request request = waiting.poll();
+            if (request == null) return;
+
+            DeliveryPerson courier = request.pickup == null ? null : takeNearest(request.pickup);
+            if (courier == null) courier = takeIdle();
+            if (courier == null) {
+                waiting.add(request);
+                continue;
+            }
+
+            pair(courier, request);
+        }
+    }
+
+    /*
+     * Reserves the courier (already out of the pool) for the order, both in one
+     * transaction. When that fails nothing changed, and one read of the order
+     * tells which side said no:
+     * - ready and still unassigned: another terminal took the courier; they stay
+     *   out of the pool and the order goes back in the queue,
+     * - not ready yet: the order is parked and the courier returns to the pool,
+     * - assigned elsewhere, delivered, cancelled or gone: the order leaves the
+     *   queue and the courier returns to the pool.
+     */
+    private boolean pair(DeliveryPerson courier, Request request) {
+        int courierId = courier.getUserId();
+        if (couriers.reserveFor(courierId, request.orderId)) {
+            request.assigned = courier;
+            assigned(courier, courierId, request.orderId, request.pickup);
+            return true;
+        }
+
+        Order order = orders.findById(request.orderId);
+        boolean unassigned = order != null && order.getDeliveryId() <= 0;
+        if (unassigned && order.getStatus() == Order.OrderStatus.READY_FOR_PICKUP) {
+            waiting.add(request);
+            return false;
+        }
+        if (unassigned && NOT_READY.contains(order.getStatus())) notReady.put(request.orderId, request);
+        addToPool(courier);
+        return false;
+    }
+
+    private DeliveryPerson takeIdle() {
+        Integer id;
+        while ((id = idle.poll()) != null) {
+            DeliveryPerson d = available.remove(id);
+            if (d != null) {
+                nearby.remove(id);
+                return d;
+            }
+            // otherwise a stale entry
+        }
+        return null;
+    }
+
+    // takes this courier out of the pool; false if someone else got them first
+    private boolean claim(DeliveryPerson d) {
+        if (available.remove(d.getUserId()) == null) return false;
+        nearby.remove(d.getUserId()); // its idle entry goes stale
+        return true;
+    }
+
+    private DeliveryPerson takeNearest(GeoPoint pickup) {
+        while (nearby.size() > 0) {
+            List<DeliveryPerson> candidates = nearby.nearest(pickup, NEAREST_CANDIDATES);
+            if (candidates.isEmpty()) return null;
+
+            for (DeliveryPerson d : candidates) {
+                nearby.remove(d.getUserId());
+                if (available.remove(d.getUserId()) != null) return d; // its idle entry goes stale
+            }
+            // all taken by other threads in the meantime: look again
+        }
+        return null;
+    }
+
+    private void addToPool(DeliveryPerson d) {
+        known.put(d.getUserId(), d);
+        if (available.putIfAbsent(d.getUserId(), d) == null) {
+            idle.add(d.getUserId());
+            if (d.getLocation() != null) nearby.put(d.getUserId(), d, d.getLocation());
+        }
+    }
+
+    // BUSY -> AVAILABLE and back into the pool (at the end: longest idle goes first)
+    private void giveBack(int deliveryId) {
+        if (!couriers.release(deliveryId)) return;
+
+        DeliveryPerson d = known.get(deliveryId);
+        if (d == null) {
+            refreshPool(); // someone this engine has not seen yet
+            return;
+        }
+        addToPool(d);
+        drain();
+    }
+
+    private Order publishAssigned(int orderId) {
+        Order assigned = orders.findById(orderId);
+        if (assigned != null) events.publish(new OrderEvent.CourierAssigned(assigned));
+        return assigned;
+    }
+
+    /** An order for batch dispatch and where its courier has to go first (null if unknown). */
+    public static final class Pickup {
+        final int orderId;
+        final GeoPoint location;
+
+        public Pickup(int orderId, GeoPoint location) {
+            this.orderId = orderId;
+            this.location = location;
+        }
+    }
+
+    // one courier's current trip; guarded by itself
+    private static final class Bundle {
+        final DeliveryPerson courier; // null if assigned by id to someone this engine has not seen
+        final int courierId;
+        final GeoPoint pickup;        // null: nothing can join
+        final Set<Integer> orderIds = new HashSet<>();
+        final List<GeoPoint> dropOffs = new ArrayList<>();
+        final long openedAt = System.currentTimeMillis();
+        int joining;    // orders being assigned to it right now
+        boolean closed; // on the road, or finished
+        boolean mixed;  // an order without a drop-off position: nothing can join
+        boolean finished;
+
+        Bundle(DeliveryPerson courier, int courierId, GeoPoint pickup) {
+            this.courier = courier;
+            this.courierId = courierId;
+            this.pickup = pickup;
+        }
+
+        void add(int orderId, GeoPoint dropOff) {
+            orderIds.add(orderId);
+            if (dropOff != null) dropOffs.add(dropOff);
+            else mixed = true;
+        }
+
+        boolean accepts(int maxBundle) {
+            return !closed && !mixed && pickup != null && courier != null
+                    && orderIds.size() + joining < maxBundle
+                    && System.currentTimeMillis() - openedAt < BUNDLE_WINDOW_MILLIS;
+        }
+
+        boolean nearDropOff(GeoPoint dropOff) {
+            for (GeoPoint p : dropOffs) {
+                if (p.distanceKm(dropOff) <= BUNDLE_DROP_OFF_KM) return true;
+            }
+            return false;
+        }
+
+        // true exactly once: when the last order is done and none is joining
+        boolean finishIfEmpty() {
+            if (orderIds.isEmpty() && joining == 0 && !finished) {
+                finished = closed = true;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Request {
+        final int orderId;
+        final int priority;
+        final GeoPoint pickup;
+        final long seq;
+        volatile DeliveryPerson assigned;
+
+        Request(int orderId, int priority, GeoPoint pickup, long seq) {
+            this.orderId = orderId;
+            this.priority = priority;
+            this.pickup = pickup;
+            this.seq = seq;
+        }
+    }
+}
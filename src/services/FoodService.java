@@ -2,152 +2,239 @@ package services;
 
 import models.Cart;
 import models.FoodItem;
+import models.MenuFacet;
+import models.MenuPage;
+import models.Restaurant;
+import repository.CartRepository;
+import repository.FoodItemRepository;
+import repository.Repositories;
+import repository.UserRepository;
 import utils.DatabaseConnection;
+import utils.Metrics;
 
-import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class FoodService {
 
+    private static final Metrics.Group METRICS = Metrics.group("FoodService");
+
+    // 0 = only reloadMenu; checkout reads the current prices itself either way
+    public static final long MENU_REFRESH_MILLIS = Long.getLong("fooddb.menu.refreshMillis", 60_000);
+
+    // menu search, facets and prices, shared by every service on the same repository; built on
+    // first use and replaced whole on reload, so readers never wait for or see a half-built one
+    private static volatile MenuCatalog catalog;
+
+    // rebuilds the catalog every MENU_REFRESH_MILLIS, so price and availability changes made
+    // elsewhere (other terminals, the database) show up; both guarded by FoodService.class
+    private static ScheduledExecutorService refresher;
+    private static FoodService refreshedBy; // whose repositories the rebuild reads
+
+    private final FoodItemRepository foodItems;
+    private final CartRepository carts;
+    private final UserRepository users;
+
+    public FoodService() {
+        this(Repositories.foodItems(), Repositories.carts(), Repositories.users());
+    }
+
+    public FoodService(FoodItemRepository foodItems, CartRepository carts, UserRepository users) {
+        this.foodItems = foodItems;
+        this.carts = carts;
+        this.users = users;
+    }
+
+    // inserts are serialized with catalog builds so new ids reach the catalog in ascending order
     public boolean addFoodItem(FoodItem foodItem) {
-        String query = "INSERT INTO food_items (restaurant_id, name, description, price, category, is_available) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, foodItem.getRestaurantId());
-            stmt.setString(2, foodItem.getName());
-            stmt.setString(3, foodItem.getDescription());
-            stmt.setDouble(4, foodItem.getPrice());
-            stmt.setString(5, foodItem.getCategory());
-            stmt.setBoolean(6, foodItem.isAvailable());
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        return METRICS.time("addFoodItem", () -> {
+            synchronized (FoodService.class) {
+                if (!foodItems.insert(foodItem)) return false;
+
+                MenuCatalog current = catalog;
+                if (current != null && current.isFrom(foodItems) && foodItem.isAvailable()) {
+                    // a restaurant that registered after the build brings its cuisine now
+                    if (!current.knowsRestaurant(foodItem.getRestaurantId())) current.putCuisines(loadCuisines());
+                    current.add(foodItem);
+                }
+                return true;
+            }
+        });
     }
 
     public List<FoodItem> getAllFoodItems() {
-        List<FoodItem> foodItems = new ArrayList<>();
-        String query = "SELECT * FROM food_items WHERE is_available = true";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                FoodItem foodItem = new FoodItem();
-                foodItem.setFoodId(rs.getInt("food_id"));
-                foodItem.setRestaurantId(rs.getInt("restaurant_id"));
-                foodItem.setName(rs.getString("name"));
-                foodItem.setDescription(rs.getString("description"));
-                foodItem.setPrice(rs.getDouble("price"));
-                foodItem.setCategory(rs.getString("category"));
-                foodItem.setAvailable(rs.getBoolean("is_available"));
-                foodItems.add(foodItem);
+        return METRICS.time("getAllFoodItems", foodItems::findAvailable);
+    }
+
+    /**
+     * Menu search over name, category and description: every word must match,
+     * exactly, as a prefix, or with a typo or two. Best matches first. The first
+     * call loads the available items; later calls are in-memory.
+     */
+    public List<FoodItem> searchFoodItems(String query, int limit) {
+        return searchFoodItems(query, null, limit);
+    }
+
+    /** As searchFoodItems(query, limit), within the selected facet values (null or empty = any). */
+    public List<FoodItem> searchFoodItems(String query, Map<MenuFacet, Set<String>> selected, int limit) {
+        return METRICS.time("searchFoodItems", () -> catalog().search(query, selected, limit));
+    }
+
+    /**
+     * Available items in food id order, filtered by facet: values picked in the
+     * same facet are alternatives, different facets must all match. Comes with
+     * the count for every facet value. In-memory after the first call.
+     */
+    public MenuPage browseFoodItems(Map<MenuFacet, Set<String>> selected, int offset, int limit) {
+        return METRICS.time("browseFoodItems", () -> catalog().browse(selected, offset, limit));
+    }
+
+    /**
+     * Reloads the in-memory menu from the repository. Searches and browsing keep
+     * using the old one until the new one is complete, or for good if loading fails.
+     * Also runs in the background every -Dfooddb.menu.refreshMillis (default 60 s).
+     */
+    public boolean reloadMenu() {
+        return METRICS.time("reloadMenu", () -> {
+            synchronized (FoodService.class) {
+                MenuCatalog built = buildCatalog();
+                if (built == null) return false;
+                catalog = built;
+                scheduleRefresh();
+                return true;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        });
+    }
+
+    /**
+     * Total of the cart lines in paise at current menu prices; a line whose item
+     * is off the menu (or before the menu is loaded) counts at the price it carries.
+     */
+    public long cartTotalPaise(List<Cart> lines) {
+        MenuCatalog current = catalog;
+        long total = 0;
+        for (Cart line : lines) {
+            long price = current != null && current.isFrom(foodItems) ? current.pricePaise(line.getFoodId()) : -1;
+            if (price < 0) price = MenuSnapshot.toPaise(line.getFoodItem().getPrice());
+            total += price * line.getQuantity();
         }
-        return foodItems;
+        return total;
     }
 
     // by restaurant
     public List<FoodItem> getFoodItemsByRestaurant(int restaurantId) {
-        List<FoodItem> foodItems = new ArrayList<>();
-        String query = "SELECT * FROM food_items WHERE restaurant_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, restaurantId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    FoodItem foodItem = new FoodItem();
-                    foodItem.setFoodId(rs.getInt("food_id"));
-                    foodItem.setRestaurantId(rs.getInt("restaurant_id"));
-                    foodItem.setName(rs.getString("name"));
-                    foodItem.setDescription(rs.getString("description"));
-                    foodItem.setPrice(rs.getDouble("price"));
-                    foodItem.setCategory(rs.getString("category"));
-                    foodItem.setAvailable(rs.getBoolean("is_available"));
-                    foodItems.add(foodItem);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return foodItems;
+        return METRICS.time("getFoodItemsByRestaurant", () -> foodItems.findByRestaurant(restaurantId));
     }
 
     public boolean addToCart(int customerId, int foodId, int quantity) {
-        String checkQuery = "SELECT quantity FROM cart WHERE customer_id = ? AND food_id = ?";
-        String updateQuery = "UPDATE cart SET quantity = quantity + ? WHERE customer_id = ? AND food_id = ?";
-        String insertQuery = "INSERT INTO cart (customer_id, food_id, quantity) VALUES (?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkQuery)) {
-                checkStmt.setInt(1, customerId);
-                checkStmt.setInt(2, foodId);
-                try (ResultSet rs = checkStmt.executeQuery()) {
-                    if (rs.next()) {
-                        try (PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
-                            updateStmt.setInt(1, quantity);
-                            updateStmt.setInt(2, customerId);
-                            updateStmt.setInt(3, foodId);
-                            return updateStmt.executeUpdate() > 0;
-                        }
-                    } else {
-                        try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
-                            insertStmt.setInt(1, customerId);
-                            insertStmt.setInt(2, foodId);
-                            insertStmt.setInt(3, quantity);
-                            return insertStmt.executeUpdate() > 0;
-                        }
-                    }
-                }
+        return METRICS.time("addToCart", () -> carts.addQuantity(customerId, foodId, quantity));
+    }
+
+    // whole basket at once: food_id -> quantity
+    public boolean addToCart(int customerId, Map<Integer, Integer> quantities) {
+        return METRICS.time("addBasketToCart", () -> carts.addQuantities(customerId, quantities));
+    }
+
+    /**
+     * The customer's cart lines with name and price. Once the menu is loaded they
+     * are priced from it in memory; an item off the menu makes this read the
+     * joined lines from the repository instead.
+     */
+    public List<Cart> getCartItems(int customerId) {
+        return METRICS.time("getCartItems", () -> {
+            MenuCatalog current = catalog;
+            if (current == null || !current.isFrom(foodItems)) return carts.findByCustomer(customerId);
+
+            Map<Integer, Integer> lines = carts.findLines(customerId);
+            List<Cart> items = new ArrayList<>(lines.size());
+            for (Map.Entry<Integer, Integer> line : lines.entrySet()) {
+                FoodItem foodItem = current.foodItem(line.getKey());
+                if (foodItem == null) return carts.findByCustomer(customerId); // unavailable or newer than the menu
+
+                Cart cart = new Cart(customerId, line.getKey(), line.getValue());
+                cart.setFoodItem(foodItem);
+                items.add(cart);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+            return items;
+        });
     }
 
-    public java.util.List<Cart> getCartItems(int customerId) {
-        List<Cart> cartItems = new ArrayList<>();
-        String query = "SELECT c.cart_id, c.customer_id, c.food_id, c.quantity, f.name, f.price, f.restaurant_id " +
-                "FROM cart c JOIN food_items f ON c.food_id = f.food_id WHERE c.customer_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, customerId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Cart cart = new Cart();
-                    cart.setCartId(rs.getInt("cart_id"));
-                    cart.setCustomerId(rs.getInt("customer_id"));
-                    cart.setFoodId(rs.getInt("food_id"));
-                    cart.setQuantity(rs.getInt("quantity"));
-
-                    FoodItem foodItem = new FoodItem();
-                    foodItem.setFoodId(rs.getInt("food_id"));
-                    foodItem.setName(rs.getString("name"));
-                    foodItem.setPrice(rs.getDouble("price"));
-                    foodItem.setRestaurantId(rs.getInt("restaurant_id"));
-                    cart.setFoodItem(foodItem);
-
-                    cartItems.add(cart);
-                }
+    public boolean clearCart(int customerId) {
+        return METRICS.time("clearCart", () -> carts.clear(customerId));
+    }
+
+    // write buffered cart changes through now; false if they could not be written
+    public boolean flushCart(int customerId) {
+        return METRICS.time("flushCart", () -> carts.flush(customerId));
+    }
+
+    private MenuCatalog catalog() {
+        MenuCatalog current = catalog;
+        if (current != null && current.isFrom(foodItems)) return current;
+
+        synchronized (FoodService.class) {
+            if (catalog == null || !catalog.isFrom(foodItems)) {
+                MenuCatalog built = buildCatalog();
+                catalog = built != null ? built : new MenuCatalog(foodItems, Map.of()); // empty until a reload works
+                scheduleRefresh();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return catalog;
         }
-        return cartItems;
     }
 
-    public boolean clearCart(int customerId) {
-        String query = "DELETE FROM cart WHERE customer_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, customerId);
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+    // caller holds FoodService.class; the first catalog starts the schedule
+    private void scheduleRefresh() {
+        refreshedBy = this;
+        if (refresher != null || MENU_REFRESH_MILLIS <= 0) return;
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "menu-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(FoodService::refreshMenu, MENU_REFRESH_MILLIS, MENU_REFRESH_MILLIS,
+                TimeUnit.MILLISECONDS);
+        DatabaseConnection.runBeforeShutdown(refresher::shutdown);
+    }
+
+    // like reloadMenu, in the background; a failed build keeps the current catalog
+    private static void refreshMenu() {
+        try {
+            METRICS.time("refreshMenu", () -> {
+                synchronized (FoodService.class) {
+                    FoodService service = refreshedBy;
+                    MenuCatalog current = catalog;
+                    // repositories switched since: the next read builds from the new ones
+                    if (current == null || !current.isFrom(service.foodItems)) return false;
+
+                    MenuCatalog built = service.buildCatalog();
+                    if (built == null) return false;
+                    catalog = built;
+                    return true;
+                }
+            });
+        } catch (RuntimeException e) {
+            Metrics.failed(e); // keep the schedule alive
         }
     }
+
+    // streamed in food id order straight into the columns, no FoodItem per row; null on error
+    private MenuCatalog buildCatalog() {
+        MenuCatalog built = new MenuCatalog(foodItems, loadCuisines());
+        if (!foodItems.scanAvailable(built::add)) return null;
+        built.compact();
+        return built;
+    }
+
+    private Map<Integer, String> loadCuisines() {
+        Map<Integer, String> cuisines = new HashMap<>();
+        for (Restaurant r : users.findAllRestaurants()) cuisines.put(r.getUserId(), r.getCuisineType());
+        return cuisines;
+    }
 }
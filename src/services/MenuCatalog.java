@@ -0,0 +1,185 @@
+package services;
+
+import models.FoodItem;
+import models.MenuFacet;
+import models.MenuPage;
+import models.PriceBand;
+import repository.FoodItemRepository;
+import utils.CompressedBitSet;
+import utils.FacetIndex;
+import utils.InvertedIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory view of the available menu items for searching, faceted browsing
+ * and pricing. The items themselves live in a columnar MenuSnapshot, where
+ * their ordinals are their slots; the search index is keyed by food id and
+ * the facet index maps each category, cuisine and price band to a compressed
+ * bitset of ordinals. Items are added in ascending food id order.
+ *
+ * Each add publishes a new snapshot before indexing the item, so an ordinal
+ * or id a reader gets from an index is always in the snapshot it reads next.
+ */
+class MenuCatalog {
+
+    // search weights: a hit in the name counts most, then the category, then the description
+    private static final double NAME_WEIGHT = 3;
+    private static final double CATEGORY_WEIGHT = 2;
+    private static final double DESCRIPTION_WEIGHT = 1;
+
+    private final FoodItemRepository source;
+    private final InvertedIndex searchIndex = new InvertedIndex(NAME_WEIGHT, CATEGORY_WEIGHT, DESCRIPTION_WEIGHT);
+    private final FacetIndex facets = new FacetIndex(MenuFacet.values().length);
+    private final MenuSnapshot.Builder columns = new MenuSnapshot.Builder();   // writers hold this catalog's lock
+    private volatile MenuSnapshot snapshot = columns.snapshot();
+    private final Map<Integer, String> cuisines = new HashMap<>();            // restaurant id -> cuisine type
+
+    MenuCatalog(FoodItemRepository source, Map<Integer, String> cuisines) {
+        this.source = source;
+        this.cuisines.putAll(cuisines);
+    }
+
+    boolean isFrom(FoodItemRepository repository) {
+        return source == repository;
+    }
+
+    synchronized boolean knowsRestaurant(int restaurantId) {
+        return cuisines.containsKey(restaurantId);
+    }
+
+    synchronized void putCuisines(Map<Integer, String> more) {
+        cuisines.putAll(more);
+    }
+
+    void add(FoodItem item) {
+        add(item.getFoodId(), item.getRestaurantId(), item.getName(), item.getDescription(),
+                item.getPrice(), item.getCategory());
+    }
+
+    /**
+     * Adds an item after those already in; false (and left out until the next
+     * rebuild) if its id is not above theirs. Matches FoodItemRepository.RowVisitor.
+     */
+    synchronized boolean add(int foodId, int restaurantId, String name, String description, double price, String category) {
+        if (foodId <= columns.lastFoodId()) return false;
+
+        int ordinal = columns.add(foodId, restaurantId, name, description, price, category);
+        snapshot = columns.snapshot();
+
+        searchIndex.add(foodId, name, category, description);
+        facets.add(ordinal, facetValues(category, cuisines.get(restaurantId), price));
+        return true;
+    }
+
+    /** Call once the initial load is in: gives back the columns' spare capacity. */
+    synchronized void compact() {
+        columns.trimToSize();
+        snapshot = columns.snapshot();
+    }
+
+    int size() {
+        return snapshot.size();
+    }
+
+    /** Current price of the item in paise, or -1 if it is not on the menu. */
+    long pricePaise(int foodId) {
+        MenuSnapshot items = snapshot;
+        int ordinal = items.ordinalOf(foodId);
+        return ordinal < 0 ? -1 : items.pricePaise(ordinal);
+    }
+
+    /** The item as a new FoodItem, or null if it is not on the menu. */
+    FoodItem foodItem(int foodId) {
+        MenuSnapshot items = snapshot;
+        int ordinal = items.ordinalOf(foodId);
+        return ordinal < 0 ? null : items.toFoodItem(ordinal);
+    }
+
+    List<FoodItem> search(String query, Map<MenuFacet, Set<String>> selected, int limit) {
+        IntPredicate accept = null;
+        if (!isEmpty(selected)) {
+            CompressedBitSet matching = facets.filter(selection(selected));
+            accept = foodId -> {
+                int ordinal = snapshot.ordinalOf(foodId);
+                return ordinal >= 0 && matching.contains(ordinal);
+            };
+        }
+        int[] foodIds = searchIndex.search(query, limit, accept);
+
+        MenuSnapshot items = snapshot;
+        List<FoodItem> found = new ArrayList<>(foodIds.length);
+        for (int foodId : foodIds) {
+            int ordinal = items.ordinalOf(foodId);
+            if (ordinal >= 0) found.add(items.toFoodItem(ordinal));
+        }
+        return found;
+    }
+
+    MenuPage browse(Map<MenuFacet, Set<String>> selected, int offset, int limit) {
+        List<Set<String>> selection = selection(selected);
+        CompressedBitSet matching = facets.filter(selection);
+        List<Map<String, Integer>> counts = facets.counts(selection);
+
+        MenuSnapshot items = snapshot;
+        List<FoodItem> page = new ArrayList<>();
+        for (int ordinal : matching.toArray(offset, limit)) page.add(items.toFoodItem(ordinal));
+
+        Map<MenuFacet, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+        for (MenuFacet facet : MenuFacet.values()) facetCounts.put(facet, inDisplayOrder(facet, counts.get(facet.ordinal())));
+        return new MenuPage(page, matching.cardinality(), facetCounts);
+    }
+
+    // values in MenuFacet order
+    private static String[] facetValues(String category, String cuisine, double price) {
+        String[] values = new String[MenuFacet.values().length];
+        values[MenuFacet.CATEGORY.ordinal()] = blankToNull(category);
+        values[MenuFacet.CUISINE.ordinal()] = blankToNull(cuisine);
+        values[MenuFacet.PRICE.ordinal()] = PriceBand.of(price).getLabel();
+        return values;
+    }
+
+    private static List<Set<String>> selection(Map<MenuFacet, Set<String>> selected) {
+        List<Set<String>> selection = new ArrayList<>();
+        for (MenuFacet facet : MenuFacet.values()) {
+            selection.add(selected == null ? Collections.emptySet() : selected.getOrDefault(facet, Collections.emptySet()));
+        }
+        return selection;
+    }
+
+    private static boolean isEmpty(Map<MenuFacet, Set<String>> selected) {
+        if (selected == null) return true;
+        for (Set<String> values : selected.values()) {
+            if (values != null && !values.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    // price bands cheapest first, everything else alphabetically
+    private static Map<String, Integer> inDisplayOrder(MenuFacet facet, Map<String, Integer> counts) {
+        if (facet != MenuFacet.PRICE) {
+            Map<String, Integer> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder()));
+            sorted.putAll(counts);
+            return sorted;
+        }
+        Map<String, Integer> ordered = new LinkedHashMap<>();
+        for (PriceBand band : PriceBand.values()) {
+            Integer n = counts.get(band.getLabel());
+            if (n != null) ordered.put(band.getLabel(), n);
+        }
+        return ordered;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+}
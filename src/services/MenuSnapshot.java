@@ -0,0 +1,182 @@
+package services;
+
+import models.FoodItem;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only columnar copy of the available menu: item i (its ordinal) is
+ * slot i of parallel primitive arrays, in ascending food id order. Prices
+ * are whole paise, categories are codes into a small dictionary, and names
+ * and descriptions are UTF-8 bytes cut up by offset arrays, so a million
+ * items cost a few dozen bytes each plus their text, with no object per
+ * item. Lookups by food id are binary searches. A missing name or
+ * description reads back as "".
+ *
+ * A Builder appends items and hands out snapshots of what it has so far.
+ * Snapshots share its arrays: the builder only writes past the size of any
+ * snapshot already handed out, and copies an array before outgrowing it.
+ */
+final class MenuSnapshot {
+
+    private final int size;
+    private final int[] foodIds;
+    private final int[] restaurantIds;
+    private final long[] pricePaise;
+    private final int[] categoryCodes;  // -1 = none
+    private final String[] categories;  // code -> category
+    private final int[] nameEnds;       // item i's name is nameBytes[nameEnds[i - 1] (0 for i = 0) .. nameEnds[i])
+    private final byte[] nameBytes;
+    private final int[] descriptionEnds;
+    private final byte[] descriptionBytes;
+
+    private MenuSnapshot(Builder b) {
+        size = b.size;
+        foodIds = b.foodIds;
+        restaurantIds = b.restaurantIds;
+        pricePaise = b.pricePaise;
+        categoryCodes = b.categoryCodes;
+        categories = b.categories;
+        nameEnds = b.nameEnds;
+        nameBytes = b.nameBytes;
+        descriptionEnds = b.descriptionEnds;
+        descriptionBytes = b.descriptionBytes;
+    }
+
+    static long toPaise(double price) {
+        return Math.round(price * 100);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** The item's ordinal, or -1 if it is not in this snapshot. */
+    int ordinalOf(int foodId) {
+        int i = Arrays.binarySearch(foodIds, 0, size, foodId);
+        return i >= 0 ? i : -1;
+    }
+
+    int foodId(int ordinal) { return foodIds[ordinal]; }
+    int restaurantId(int ordinal) { return restaurantIds[ordinal]; }
+    long pricePaise(int ordinal) { return pricePaise[ordinal]; }
+
+    String category(int ordinal) {
+        int code = categoryCodes[ordinal];
+        return code < 0 ? null : categories[code];
+    }
+
+    String name(int ordinal) {
+        return text(nameBytes, nameEnds, ordinal);
+    }
+
+    String description(int ordinal) {
+        return text(descriptionBytes, descriptionEnds, ordinal);
+    }
+
+    /** A new FoodItem with the item's fields; for the few items a caller shows. */
+    FoodItem toFoodItem(int ordinal) {
+        FoodItem item = new FoodItem(restaurantIds[ordinal], name(ordinal), description(ordinal),
+                pricePaise[ordinal] / 100.0, category(ordinal));
+        item.setFoodId(foodIds[ordinal]);
+        return item;
+    }
+
+    private static String text(byte[] bytes, int[] ends, int ordinal) {
+        int start = ordinal == 0 ? 0 : ends[ordinal - 1];
+        return new String(bytes, start, ends[ordinal] - start, StandardCharsets.UTF_8);
+    }
+
+    /** Appends items in ascending food id order. Not thread-safe: one writer, any number of snapshot readers. */
+    static final class Builder {
+
+        private int size;
+        private int[] foodIds = new int[16];
+        private int[] restaurantIds = new int[16];
+        private long[] pricePaise = new long[16];
+        private int[] categoryCodes = new int[16];
+        private String[] categories = new String[8];
+        private final Map<String, Integer> categoryCodeOf = new HashMap<>();
+        private int[] nameEnds = new int[16];
+        private byte[] nameBytes = new byte[256];
+        private int nameLength;
+        private int[] descriptionEnds = new int[16];
+        private byte[] descriptionBytes = new byte[256];
+        private int descriptionLength;
+
+        /** Id of the last item added, or 0 for none. */
+        int lastFoodId() {
+            return size == 0 ? 0 : foodIds[size - 1];
+        }
+
+        /** Adds the item as the next ordinal, which it returns; food ids must ascend. */
+        int add(int foodId, int restaurantId, String name, String description, double price, String category) {
+            if (foodId <= lastFoodId()) throw new IllegalArgumentException("food id " + foodId + " out of order");
+            if (size == foodIds.length) {
+                int capacity = Math.max(16, size * 2);
+                foodIds = Arrays.copyOf(foodIds, capacity);
+                restaurantIds = Arrays.copyOf(restaurantIds, capacity);
+                pricePaise = Arrays.copyOf(pricePaise, capacity);
+                categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+                nameEnds = Arrays.copyOf(nameEnds, capacity);
+                descriptionEnds = Arrays.copyOf(descriptionEnds, capacity);
+            }
+
+            foodIds[size] = foodId;
+            restaurantIds[size] = restaurantId;
+            pricePaise[size] = toPaise(price);
+            categoryCodes[size] = categoryCode(category);
+
+            byte[] nameUtf8 = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+            nameBytes = appendBytes(nameBytes, nameLength, nameUtf8);
+            nameLength += nameUtf8.length;
+            nameEnds[size] = nameLength;
+
+            byte[] descriptionUtf8 = description == null ? new byte[0] : description.getBytes(StandardCharsets.UTF_8);
+            descriptionBytes = appendBytes(descriptionBytes, descriptionLength, descriptionUtf8);
+            descriptionLength += descriptionUtf8.length;
+            descriptionEnds[size] = descriptionLength;
+
+            return size++;
+        }
+
+        MenuSnapshot snapshot() {
+            return new MenuSnapshot(this);
+        }
+
+        /** Drops the spare capacity growth left behind; for after a bulk load. */
+        void trimToSize() {
+            foodIds = Arrays.copyOf(foodIds, size);
+            restaurantIds = Arrays.copyOf(restaurantIds, size);
+            pricePaise = Arrays.copyOf(pricePaise, size);
+            categoryCodes = Arrays.copyOf(categoryCodes, size);
+            nameEnds = Arrays.copyOf(nameEnds, size);
+            descriptionEnds = Arrays.copyOf(descriptionEnds, size);
+            nameBytes = Arrays.copyOf(nameBytes, nameLength);
+            descriptionBytes = Arrays.copyOf(descriptionBytes, descriptionLength);
+        }
+
+        private int categoryCode(String category) {
+            if (category == null) return -1;
+            Integer code = categoryCodeOf.get(category);
+            if (code != null) return code;
+
+            code = categoryCodeOf.size();
+            if (code == categories.length) categories = Arrays.copyOf(categories, code * 2);
+            categories[code] = category;
+            categoryCodeOf.put(category, code);
+            return code;
+        }
+
+        private static byte[] appendBytes(byte[] bytes, int length, byte[] more) {
+            if (length + more.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + more.length, bytes.length * 2));
+            }
+            System.arraycopy(more, 0, bytes, length, more.length);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package services;
+
+import models.Order;
+import repository.OrderRepository;
+import utils.DatabaseConnection;
+import utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for order placement.
+ *
+ * Callers submit orders into a bounded queue and get a future. One writer
+ * thread drains the queue into batches of up to maxBatchSize orders, waiting
+ * at most lingerMillis after the first order for more to arrive. It writes
+ * each batch with OrderRepository.insertAll (one transaction, one commit) and
+ * then completes every caller's future. When a batch fails, its orders are
+ * retried one at a time so one bad order only fails its own caller.
+ *
+ * Backpressure: when the queue is full, submit() waits up to
+ * enqueueTimeoutMillis for room and then completes the future with false.
+ *
+ * Off by default. Enable with -Dfooddb.ingest=true; tune with
+ * -Dfooddb.ingest.capacity, .maxBatch, .lingerMillis and .enqueueTimeoutMillis.
+ */
+public class OrderIngestionQueue {
+
+    public static final boolean ENABLED = Boolean.getBoolean("fooddb.ingest");
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("fooddb.ingest.capacity", 4096);
+    public static final int DEFAULT_MAX_BATCH = Integer.getInteger("fooddb.ingest.maxBatch", 64);
+    public static final long DEFAULT_LINGER_MILLIS = Long.getLong("fooddb.ingest.lingerMillis", 5);
+    public static final long DEFAULT_ENQUEUE_TIMEOUT_MILLIS = Long.getLong("fooddb.ingest.enqueueTimeoutMillis", 2_000);
+
+    private static OrderIngestionQueue shared;
+
+    private final OrderRepository orders;
+    private final BlockingQueue<Submission> queue;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final long enqueueTimeoutMillis;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public OrderIngestionQueue(OrderRepository orders, int capacity, int maxBatchSize,
+                               long lingerMillis, long enqueueTimeoutMillis) {
+        this.orders = orders;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+
+        writer = new Thread(this::writeLoop, "order-ingestion");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * The queue used by default-constructed OrderServices for this repository,
+     * or null when ingestion is not enabled.
+     */
+    public static synchronized OrderIngestionQueue shared(OrderRepository orders) {
+        if (!ENABLED) return null;
+        if (shared == null || shared.orders != orders) {
+            if (shared != null) shared.shutdown();
+            shared = new OrderIngestionQueue(orders, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH,
+                    DEFAULT_LINGER_MILLIS, DEFAULT_ENQUEUE_TIMEOUT_MILLIS);
+            DatabaseConnection.runBeforeShutdown(shared::shutdown);
+        }
+        return shared;
+    }
+
+    /**
+     * Queues an order (items in Order.getItems()). The future completes with true
+     * once the order is committed, with its id and timestamps set, or with false
+     * if it was rejected or failed.
+     */
+    public CompletableFuture<Boolean> submit(Order order) {
+        Submission s = new Submission(order);
+        try {
+            if (!running || !queue.offer(s, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                s.result.complete(false); // full for too long: shed load instead of queueing without bound
+            } else if (!running && queue.remove(s)) {
+                // shut down while we offered: the writer may have drained for the last time already
+                s.result.complete(false);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            s.result.complete(false);
+        }
+        return s.result;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Stops accepting orders and writes whatever is already queued. */
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Submission> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                // linger briefly so a burst shares one commit
+                long deadline = System.nanoTime() + lingerNanos;
+                while (running && batch.size() < maxBatchSize) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) break;
+                    Submission next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // shutdown: fall through and write what we have, then drain the rest
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Submission> batch) {
+        List<Order> pending = new ArrayList<>(batch.size());
+        for (Submission s : batch) pending.add(s.order);
+
+        try {
+            if (orders.insertAll(pending)) {
+                for (Submission s : batch) s.result.complete(true);
+                return;
+            }
+
+            // isolate the bad order(s)
+            for (Submission s : batch) {
+                s.result.complete(orders.insertAll(List.of(s.order)));
+            }
+        } catch (RuntimeException e) {
+            Metrics.failed(e);
+            for (Submission s : batch) s.result.complete(false);
+        }
+    }
+
+    private static final class Submission {
+        final Order order;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Submission(Order order) {
+            this.order = order;
+        }
+    }
+}
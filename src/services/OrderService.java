@@ -1,245 +1,241 @@
 package services;
 
+import events.OrderEvent;
+import events.OrderEventBus;
+import models.Cart;
+import models.GeoPoint;
 import models.Order;
 import models.Order.OrderItem;
-import utils.DatabaseConnection;
-
-import java.sql.*;
+import models.OrderChanges;
+import models.OrderPage;
+import models.OrderScope;
+import models.StatusUpdate;
+import repository.CartRepository;
+import repository.OrderRepository;
+import repository.Repositories;
+import utils.Metrics;
+import utils.OperationStats;
+
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class OrderService {
 
-    /** PLACE ORDER **/
-    public boolean placeOrder(Order order, List<models.Cart> cartItems) {
-        Connection conn = null;
-
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            String insertOrder =
-                    "INSERT INTO orders (customer_id, restaurant_id, status, total_amount, delivery_address) " +
-                            "VALUES (?, ?, ?, ?, ?)";
-
-            PreparedStatement orderStmt = conn.prepareStatement(insertOrder, Statement.RETURN_GENERATED_KEYS);
-            orderStmt.setInt(1, order.getCustomerId());
-            orderStmt.setInt(2, order.getRestaurantId());
-            orderStmt.setString(3, order.getStatus().name());
-            orderStmt.setDouble(4, order.getTotalAmount());
-            orderStmt.setString(5, order.getDeliveryAddress());
-            orderStmt.executeUpdate();
-
-            ResultSet keys = orderStmt.getGeneratedKeys();
-            keys.next();
-            int orderId = keys.getInt(1);
-
-            String insertItem = "INSERT INTO order_items (order_id, food_id, quantity, price) VALUES (?, ?, ?, ?)";
-            PreparedStatement itemStmt = conn.prepareStatement(insertItem);
-
-            for (models.Cart c : cartItems) {
-                itemStmt.setInt(1, orderId);
-                itemStmt.setInt(2, c.getFoodId());
-                itemStmt.setInt(3, c.getQuantity());
-                itemStmt.setDouble(4, c.getFoodItem().getPrice());
-                itemStmt.addBatch();
-            }
-
-            itemStmt.executeBatch();
+    // re-read this much before the watermark so late commits are not missed
+    private static final long CHANGE_OVERLAP_MILLIS = 2_000;
+    private static final int STATUS_UPDATE_ATTEMPTS = 3;
+    private static final Metrics.Group METRICS = Metrics.group("OrderService");
 
-            conn.commit();
-            return true;
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            try { if (conn != null) conn.rollback(); } catch (Exception ignored) {}
-            return false;
+    private final OrderRepository orders;
+    private final CartRepository carts;
+    private final OrderEventBus events;
+    private final OrderIngestionQueue ingestion; // null = insert on the caller's thread
 
-        } finally {
-            try { if (conn != null) conn.setAutoCommit(true); } catch (Exception ignored) {}
-        }
+    public OrderService() {
+        this(Repositories.orders(), Repositories.carts(), OrderEventBus.get(),
+                OrderIngestionQueue.shared(Repositories.orders()));
     }
 
-    /** GET ORDERS BY CUSTOMER **/
-    public List<Order> getOrdersByCustomer(int customerId) {
-        List<Order> orders = new ArrayList<>();
+    public OrderService(OrderRepository orders) {
+        this(orders, OrderEventBus.get());
+    }
 
-        String query = "SELECT * FROM orders WHERE customer_id = ? ORDER BY order_date DESC";
+    public OrderService(OrderRepository orders, OrderEventBus events) {
+        this(orders, Repositories.carts(), events);
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+    public OrderService(OrderRepository orders, CartRepository carts, OrderEventBus events) {
+        this(orders, carts, events, null);
+    }
 
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
+    public OrderService(OrderRepository orders, CartRepository carts, OrderEventBus events,
+                        OrderIngestionQueue ingestion) {
+        this.orders = orders;
+        this.carts = carts;
+        this.events = events;
+        this.ingestion = ingestion;
+    }
 
-            while (rs.next()) {
-                Order order = new Order(
-                        rs.getInt("customer_id"),
-                        rs.getInt("restaurant_id"),
-                        rs.getDouble("total_amount"),
-                        rs.getString("delivery_address")
-                );
+    /** PLACE ORDER **/
+    public boolean placeOrder(Order order, List<Cart> cartItems) {
+        return METRICS.time("placeOrder", () -> {
+            if (ingestion != null) return submitOrder(order, cartItems).join();
 
-                order.setOrderId(rs.getInt("order_id"));
-                order.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
-                order.setOrderDate(rs.getTimestamp("order_date"));
+            if (!orders.insert(order, cartItems)) return false;
 
-                orders.add(order);
-            }
+            events.publish(new OrderEvent.OrderPlaced(order)); // insert filled in id and timestamps
+            return true;
+        });
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+    /**
+     * PLACE ORDER WITHOUT WAITING: with an ingestion queue the order is committed
+     * together with other callers' orders; the future completes with true once it
+     * is stored (order id and timestamps set). Without one, inserts right away.
+     */
+    public CompletableFuture<Boolean> submitOrder(Order order, List<Cart> cartItems) {
+        if (ingestion == null) return CompletableFuture.completedFuture(placeOrder(order, cartItems));
+
+        List<OrderItem> items = new ArrayList<>(cartItems.size());
+        for (Cart c : cartItems) {
+            items.add(new OrderItem(c.getFoodId(), c.getQuantity(), c.getFoodItem().getPrice()));
         }
-        return orders;
+        order.setItems(items);
+
+        // timed until the batch holding it commits
+        OperationStats stats = METRICS.operation("submitOrder");
+        long start = System.nanoTime();
+        return ingestion.submit(order).thenApply(stored -> {
+            stats.record(System.nanoTime() - start, !stored);
+            if (stored) events.publish(new OrderEvent.OrderPlaced(order));
+            return stored;
+        });
     }
 
-    /** GET ORDERS BY RESTAURANT **/
-    public List<Order> getOrdersByRestaurant(int restaurantId) {
-        List<Order> orders = new ArrayList<>();
-
-        String query = "SELECT * FROM orders WHERE restaurant_id = ? ORDER BY order_date DESC";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, restaurantId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Order order = new Order(
-                        rs.getInt("customer_id"),
-                        rs.getInt("restaurant_id"),
-                        rs.getDouble("total_amount"),
-                        rs.getString("delivery_address")
-                );
+    /**
+     * CHECKOUT: the customer's cart becomes one order per restaurant at current prices
+     * and the cart is emptied, in one transaction. Returns the placed orders with their
+     * items; empty if nothing was placed.
+     */
+    public List<Order> checkout(int customerId, String deliveryAddress) {
+        return checkout(customerId, deliveryAddress, null);
+    }
 
-                order.setOrderId(rs.getInt("order_id"));
-                order.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
-                order.setOrderDate(rs.getTimestamp("order_date"));
+    /** CHECKOUT with the drop-off position (null if unknown), for distance-aware dispatch. */
+    public List<Order> checkout(int customerId, String deliveryAddress, GeoPoint deliveryLocation) {
+        return METRICS.time("checkout", () -> {
+            // buffered lines reach the table first (nothing is placed if they cannot),
+            // and adds made meanwhile wait for the new cart
+            List<Order> placed = carts.aroundCheckout(customerId,
+                    () -> orders.checkout(customerId, deliveryAddress, deliveryLocation), List.of());
+            if (placed.isEmpty()) return placed;
+
+            for (Order order : placed) events.publish(new OrderEvent.OrderPlaced(order));
+            return placed;
+        });
+    }
 
-                orders.add(order);
-            }
+    /** GET ORDERS BY CUSTOMER **/
+    public List<Order> getOrdersByCustomer(int customerId) {
+        return METRICS.time("getOrdersByCustomer", () -> orders.findByCustomer(customerId));
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return orders;
+    /** GET ORDERS BY RESTAURANT **/
+    public List<Order> getOrdersByRestaurant(int restaurantId) {
+        return METRICS.time("getOrdersByRestaurant", () -> orders.findByRestaurant(restaurantId));
     }
 
     /** GET ORDERS BY DELIVERY PERSON **/
     public List<Order> getOrdersByDeliveryPerson(int deliveryId) {
-        List<Order> orders = new ArrayList<>();
+        return METRICS.time("getOrdersByDeliveryPerson", () -> orders.findByDeliveryPerson(deliveryId));
+    }
 
-        String query = "SELECT * FROM orders WHERE delivery_id = ? ORDER BY order_date DESC";
+    /**
+     * Paged order history, newest first. Pass null as cursor for the first
+     * page, then page.getNextCursor() until it returns null.
+     */
+    public OrderPage getOrdersByCustomer(int customerId, OrderPage.Cursor after, int pageSize) {
+        return METRICS.time("getOrderPageByCustomer", () -> orders.findPageByCustomer(customerId, after, pageSize));
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+    public OrderPage getOrdersByRestaurant(int restaurantId, OrderPage.Cursor after, int pageSize) {
+        return METRICS.time("getOrderPageByRestaurant",
+                () -> orders.findPageByRestaurant(restaurantId, after, pageSize));
+    }
 
-            stmt.setInt(1, deliveryId);
-            ResultSet rs = stmt.executeQuery();
+    public OrderPage getOrdersByDeliveryPerson(int deliveryId, OrderPage.Cursor after, int pageSize) {
+        return METRICS.time("getOrderPageByDeliveryPerson",
+                () -> orders.findPageByDeliveryPerson(deliveryId, after, pageSize));
+    }
 
-            while (rs.next()) {
-                Order order = new Order(
-                        rs.getInt("customer_id"),
-                        rs.getInt("restaurant_id"),
-                        rs.getDouble("total_amount"),
-                        rs.getString("delivery_address")
-                );
+    /** Paged restaurant orders restricted to the given statuses (null or empty = all). */
+    public OrderPage getOrdersByRestaurant(int restaurantId, Set<Order.OrderStatus> statuses,
+                                           OrderPage.Cursor after, int pageSize) {
+        if (statuses == null || statuses.isEmpty()) return getOrdersByRestaurant(restaurantId, after, pageSize);
+        return METRICS.time("getOrderPageByRestaurantAndStatus",
+                () -> orders.findPageByRestaurantAndStatus(restaurantId, statuses, after, pageSize));
+    }
 
-                order.setOrderId(rs.getInt("order_id"));
-                order.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
-                order.setOrderDate(rs.getTimestamp("order_date"));
+    /** ORDER COUNT PER STATUS (FOR FILTER BADGES); missing statuses have no orders **/
+    public Map<Order.OrderStatus, Integer> getOrderCountsByStatus(int restaurantId) {
+        return METRICS.time("getOrderCountsByStatus", () -> orders.countByStatusForRestaurant(restaurantId));
+    }
 
-                orders.add(order);
+    /**
+     * Orders in scope inserted or changed since the watermark, for screens that
+     * merge deltas instead of reloading. Pass null to get a starting watermark
+     * (no orders), then pass back the watermark of each result. Orders may be
+     * returned more than once, so merge them by orderId.
+     */
+    public OrderChanges getOrderChangesSince(OrderScope scope, Timestamp watermark) {
+        return METRICS.time("getOrderChangesSince", () -> {
+            if (watermark == null) {
+                return new OrderChanges(new ArrayList<>(), orders.currentTime());
             }
 
-        } catch (SQLException e) { e.printStackTrace(); }
+            Timestamp since = new Timestamp(watermark.getTime() - CHANGE_OVERLAP_MILLIS);
+            List<Order> changed = orders.findChangedSince(scope, since);
 
-        return orders;
+            Timestamp next = watermark;
+            for (Order o : changed) {
+                if (o.getUpdatedAt() != null && o.getUpdatedAt().after(next)) next = o.getUpdatedAt();
+            }
+            return new OrderChanges(changed, next);
+        });
     }
 
-    /** UPDATE ORDER STATUS **/
-    public boolean updateOrderStatus(int orderId, Order.OrderStatus status) {
-
-        String query = "UPDATE orders SET status = ? WHERE order_id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setString(1, status.name());
-            stmt.setInt(2, orderId);
+    /**
+     * UPDATE ORDER STATUS, if the order is still at the version the caller read
+     * (Order.getVersion()). CONFLICT means someone else changed it first; re-read
+     * and decide again. Nothing is locked while the caller decides.
+     */
+    public StatusUpdate updateOrderStatus(int orderId, int expectedVersion, Order.OrderStatus status) {
+        return METRICS.time("updateOrderStatus", () -> {
+            if (orders.updateStatus(orderId, expectedVersion, status)) {
+                Order changed = orders.findById(orderId);
+                if (changed != null) events.publish(new OrderEvent.StatusChanged(changed));
+                return StatusUpdate.UPDATED;
+            }
 
-            return stmt.executeUpdate() > 0;
+            // tell the caller why (one read, only when the update did not apply)
+            Order current = orders.findById(orderId);
+            if (current == null) return StatusUpdate.NOT_FOUND;
+            if (current.getVersion() != expectedVersion) return StatusUpdate.CONFLICT;
+            if (!current.getStatus().canMoveTo(status)) return StatusUpdate.NOT_ALLOWED;
+            return StatusUpdate.FAILED;
+        });
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+    /**
+     * UPDATE ORDER STATUS from whatever it is now: reads the order, checks the
+     * transition, and retries on a concurrent change. NOT_ALLOWED once another
+     * terminal has moved it past status (e.g. DELIVERED before PREPARING).
+     */
+    public StatusUpdate updateOrderStatus(int orderId, Order.OrderStatus status) {
+        return METRICS.time("updateOrderStatusFromCurrent", () -> {
+            for (int attempt = 0; attempt < STATUS_UPDATE_ATTEMPTS; attempt++) {
+                Order current = orders.findById(orderId);
+                if (current == null) return StatusUpdate.NOT_FOUND;
+                if (!current.getStatus().canMoveTo(status)) return StatusUpdate.NOT_ALLOWED;
+
+                StatusUpdate result = updateOrderStatus(orderId, current.getVersion(), status);
+                if (result != StatusUpdate.CONFLICT) return result;
+            }
+            return StatusUpdate.CONFLICT;
+        });
     }
 
     /** GET ORDER ITEMS (FOR POPUP DETAILS) **/
     public List<OrderItem> getOrderItems(int orderId) {
-        List<OrderItem> items = new ArrayList<>();
-
-        String query =
-                "SELECT oi.food_id, oi.quantity, oi.price, f.name " +
-                "FROM order_items oi " +
-                "JOIN food_items f ON oi.food_id = f.food_id " +
-                "WHERE oi.order_id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, orderId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                OrderItem item = new OrderItem(
-                        rs.getInt("food_id"),
-                        rs.getInt("quantity"),
-                        rs.getDouble("price")
-                );
-
-                item.setFoodName(rs.getString("name")); // Now this works
-
-                items.add(item);
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return items;
+        return METRICS.time("getOrderItems", () -> orders.findItems(orderId));
     }
 
     /** GET ORDER BY ID (FOR LIVE TRACKING) **/
     public Order getOrderById(int orderId) {
-        String query = "SELECT * FROM orders WHERE order_id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, orderId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Order order = new Order(
-                        rs.getInt("customer_id"),
-                        rs.getInt("restaurant_id"),
-                        rs.getDouble("total_amount"),
-                        rs.getString("delivery_address")
-                );
-
-                order.setOrderId(rs.getInt("order_id"));
-                order.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
-                order.setOrderDate(rs.getTimestamp("order_date"));
-                order.setDeliveryId(rs.getInt("delivery_id"));
-
-                return order;
-            }
-
-        } catch (SQLException e) { e.printStackTrace(); }
-
-        return null;
+        return METRICS.time("getOrderById", () -> orders.findById(orderId));
     }
 }
@@ -1,128 +1,98 @@
 package services;
 
+import models.GeoPoint;
 import models.Restaurant;
-import models.User;
-import utils.DatabaseConnection;
+import repository.Repositories;
+import repository.UserRepository;
+import utils.GeoGrid;
+import utils.Metrics;
 
-import java.sql.*;
+import java.util.List;
 
 public class RestaurantService {
 
+    private static final double GRID_CELL_DEGREES = 0.02; // ~2 km
+    private static final Metrics.Group METRICS = Metrics.group("RestaurantService");
+
+    // restaurants by position, shared by every service on the same repository; built on first use
+    private static GeoGrid<Restaurant> nearbyIndex;
+    private static UserRepository indexedUsers;
+
+    private final UserRepository users;
+
+    public RestaurantService() {
+        this(Repositories.users());
+    }
+
+    public RestaurantService(UserRepository users) {
+        this.users = users;
+    }
+
     /**
      * Registers a new restaurant.
      * Inserts into users table AND restaurants table.
      * Rolls back transaction if any operation fails.
      */
     public boolean registerRestaurant(Restaurant restaurant) {
-        Connection conn = null;
-
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            // Insert user record
-            String userSql = "INSERT INTO users (username, email, password, phone, user_type) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement userStmt = conn.prepareStatement(userSql, Statement.RETURN_GENERATED_KEYS)) {
-
-                userStmt.setString(1, restaurant.getUsername());
-                userStmt.setString(2, restaurant.getEmail());
-                userStmt.setString(3, restaurant.getPassword());
-                userStmt.setString(4, restaurant.getPhone());
-                userStmt.setString(5, "RESTAURANT");
-
-                int affected = userStmt.executeUpdate();
-                if (affected == 0) {
-                    conn.rollback();
-                    return false;
-                }
-
-                ResultSet keys = userStmt.getGeneratedKeys();
-                if (!keys.next()) {
-                    conn.rollback();
-                    return false;
-                }
-
-                int userId = keys.getInt(1);
-                restaurant.setUserId(userId);
-            }
-
-            // Insert into restaurants table
-            String restaurantSql =
-                    "INSERT INTO restaurants (restaurant_id, name, address, cuisine_type) VALUES (?, ?, ?, ?)";
-
-            try (PreparedStatement restStmt = conn.prepareStatement(restaurantSql)) {
-
-                restStmt.setInt(1, restaurant.getUserId());
-                restStmt.setString(2, restaurant.getName());
-                restStmt.setString(3, restaurant.getAddress());
-                restStmt.setString(4, restaurant.getCuisineType());
-
-                int affected = restStmt.executeUpdate();
-                if (affected == 0) {
-                    conn.rollback();
-                    return false;
-                }
-            }
-
-            // Success
-            conn.commit();
+        return METRICS.time("registerRestaurant", () -> {
+            if (!users.insertRestaurant(restaurant)) return false;
+            GeoGrid<Restaurant> index = builtIndex();
+            if (index != null) index.put(restaurant.getUserId(), restaurant, restaurant.getLocation());
             return true;
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            try {
-                if (conn != null) conn.rollback();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-            }
-            return false;
-
-        } finally {
-            try {
-                if (conn != null) conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-        }
+        });
     }
 
     /**
      * Restaurant login authentication.
      */
     public Restaurant authenticateRestaurant(String username, String password) {
+        return METRICS.time("authenticateRestaurant", () -> users.findRestaurantByCredentials(username, password));
+    }
 
-        String sql =
-                "SELECT u.*, r.name, r.address, r.cuisine_type " +
-                "FROM users u " +
-                "JOIN restaurants r ON u.user_id = r.restaurant_id " +
-                "WHERE u.username = ? AND u.password = ? AND u.user_type = 'RESTAURANT'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Moves (or clears, with null) the restaurant's position.
+     */
+    public boolean setRestaurantLocation(Restaurant restaurant, GeoPoint location) {
+        return METRICS.time("setRestaurantLocation", () -> {
+            if (!users.setRestaurantLocation(restaurant.getUserId(), location)) return false;
+            restaurant.setLocation(location);
+            GeoGrid<Restaurant> index = builtIndex();
+            if (index != null) index.put(restaurant.getUserId(), restaurant, location);
+            return true;
+        });
+    }
 
-            stmt.setString(1, username);
-            stmt.setString(2, password);
+    /**
+     * Restaurants near me: up to limit restaurants within maxKm, nearest first.
+     * The first call loads every restaurant's position; later calls are in-memory.
+     */
+    public List<Restaurant> findRestaurantsNear(GeoPoint location, int limit, double maxKm) {
+        return METRICS.time("findRestaurantsNear", () -> nearbyIndex().nearest(location, limit, maxKm, null));
+    }
 
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * The restaurant if it has a position, else null; served from the same index.
+     */
+    public Restaurant findLocatedRestaurant(int restaurantId) {
+        return METRICS.time("findLocatedRestaurant", () -> nearbyIndex().get(restaurantId));
+    }
 
-            if (rs.next()) {
-                Restaurant r = new Restaurant();
-                r.setUserId(rs.getInt("user_id"));
-                r.setUsername(rs.getString("username"));
-                r.setEmail(rs.getString("email"));
-                r.setPassword(rs.getString("password"));
-                r.setPhone(rs.getString("phone"));
-                r.setName(rs.getString("name"));
-                r.setAddress(rs.getString("address"));
-                r.setCuisineType(rs.getString("cuisine_type"));
-                r.setUserType(User.UserType.RESTAURANT);
-                return r;
+    private GeoGrid<Restaurant> nearbyIndex() {
+        synchronized (RestaurantService.class) {
+            if (nearbyIndex == null || indexedUsers != users) {
+                GeoGrid<Restaurant> index = new GeoGrid<>(GRID_CELL_DEGREES);
+                for (Restaurant r : users.findAllRestaurants()) index.put(r.getUserId(), r, r.getLocation());
+                nearbyIndex = index;
+                indexedUsers = users;
             }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return nearbyIndex;
         }
+    }
 
-        return null; // Login failed
+    // the index if it has been built for this repository, else null (nothing to keep current)
+    private GeoGrid<Restaurant> builtIndex() {
+        synchronized (RestaurantService.class) {
+            return indexedUsers == users ? nearbyIndex : null;
+        }
     }
 }
@@ -0,0 +1,221 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of rows (e.g. orders) to columns (e.g. couriers).
+ *
+ * Exact: the Hungarian method with potentials and shortest augmenting paths,
+ * O(n^2 m) for n rows and m columns. Above a size limit, or once the time
+ * budget runs out mid-solve, the remaining rows are matched greedily: each
+ * row's few cheapest free columns become candidate pairs, cheapest pair first.
+ * Greedy is not optimal but runs in O(nm + E log E) and is usually close when
+ * costs are distances.
+ *
+ * Either way every row is matched while free columns remain, so
+ * min(rows, columns) pairs come out.
+ */
+public final class AssignmentSolver {
+
+    /** Above this many cells (rows * columns) the exact method is skipped. */
+    public static final long DEFAULT_EXACT_LIMIT = 4_000_000L; // e.g. 2000 x 2000
+
+    private static final int GREEDY_CANDIDATES = 16;
+
+    private AssignmentSolver() {}
+
+    /**
+     * For each row, its column, or -1 if it got none (more rows than columns).
+     * cost must be rectangular; the solve stops being exact after budgetNanos.
+     */
+    public static int[] solve(double[][] cost, long budgetNanos) {
+        return solve(cost, budgetNanos, DEFAULT_EXACT_LIMIT);
+    }
+
+    public static int[] solve(double[][] cost, long budgetNanos, long exactLimit) {
+        int rows = cost.length;
+        int cols = rows == 0 ? 0 : cost[0].length;
+        if (rows == 0 || cols == 0) return filled(rows, -1);
+
+        long deadline = System.nanoTime() + budgetNanos;
+        if ((long) rows * cols > exactLimit) return greedy(cost, filled(rows, -1));
+
+        if (rows <= cols) return hungarian(cost, deadline);
+
+        // the method wants rows <= columns: solve the transpose and flip the answer back
+        double[][] t = new double[cols][rows];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) t[j][i] = cost[i][j];
+        }
+        int[] byCol = hungarian(t, deadline);
+        int[] byRow = filled(rows, -1);
+        for (int j = 0; j < cols; j++) {
+            if (byCol[j] >= 0) byRow[byCol[j]] = j;
+        }
+        return byRow;
+    }
+
+    /** Total cost of an assignment returned by solve (unmatched rows cost nothing). */
+    public static double totalCost(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) total += cost[i][assignment[i]];
+        }
+        return total;
+    }
+
+    // rows <= cols; 1-based internally as in the textbook formulation
+    private static int[] hungarian(double[][] a, long deadline) {
+        int n = a.length;
+        int m = a[0].length;
+
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];     // p[j] = row matched to column j (0 = free)
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            if (System.nanoTime() > deadline) {
+                // out of time: keep the exact part, match the rest greedily
+                int[] partial = filled(n, -1);
+                for (int j = 1; j <= m; j++) {
+                    if (p[j] != 0) partial[p[j] - 1] = j - 1;
+                }
+                return greedy(a, partial);
+            }
+
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                double[] row = a[i0 - 1];
+                double ui0 = u[i0];
+
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double cur = row[j - 1] - ui0 - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] result = filled(n, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) result[p[j] - 1] = j - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Completes assignment (rows already matched are kept): each free row
+     * proposes its cheapest free columns, pairs are taken cheapest first, and
+     * rows left over after that take whatever column is still free.
+     */
+    private static int[] greedy(double[][] cost, int[] assignment) {
+        int rows = cost.length;
+        int cols = cost[0].length;
+
+        boolean[] colTaken = new boolean[cols];
+        int freeRows = 0;
+        for (int a : assignment) {
+            if (a >= 0) colTaken[a] = true;
+            else freeRows++;
+        }
+        if (freeRows == 0) return assignment;
+
+        int k = Math.min(GREEDY_CANDIDATES, cols);
+        long[] pairRow = new long[freeRows * k];
+        double[] pairCost = new double[freeRows * k];
+        int pairs = 0;
+
+        int[] best = new int[k];
+        for (int i = 0; i < rows; i++) {
+            if (assignment[i] >= 0) continue;
+            int found = cheapest(cost[i], colTaken, best, k);
+            for (int c = 0; c < found; c++) {
+                pairRow[pairs] = ((long) i << 32) | best[c];
+                pairCost[pairs] = cost[i][best[c]];
+                pairs++;
+            }
+        }
+
+        Integer[] order = new Integer[pairs];
+        for (int e = 0; e < pairs; e++) order[e] = e;
+        Arrays.sort(order, (x, y) -> Double.compare(pairCost[x], pairCost[y]));
+
+        for (Integer e : order) {
+            int i = (int) (pairRow[e] >>> 32);
+            int j = (int) pairRow[e];
+            if (assignment[i] >= 0 || colTaken[j]) continue;
+            assignment[i] = j;
+            colTaken[j] = true;
+        }
+
+        // all of a row's candidates went to others: any free column will do
+        int nextFree = 0;
+        for (int i = 0; i < rows; i++) {
+            if (assignment[i] >= 0) continue;
+            while (nextFree < cols && colTaken[nextFree]) nextFree++;
+            if (nextFree == cols) break;
+            assignment[i] = nextFree;
+            colTaken[nextFree] = true;
+        }
+        return assignment;
+    }
+
+    // indexes of up to k cheapest free columns of row, into best; returns how many
+    private static int cheapest(double[] row, boolean[] taken, int[] best, int k) {
+        int n = 0;
+        int worst = 0; // position in best of the most expensive kept candidate
+        for (int j = 0; j < row.length; j++) {
+            if (taken[j]) continue;
+            if (n < k) {
+                best[n] = j;
+                if (row[j] > row[best[worst]]) worst = n;
+                n++;
+            } else if (row[j] < row[best[worst]]) {
+                best[worst] = j;
+                for (int c = 0; c < k; c++) {
+                    if (row[best[c]] > row[best[worst]]) worst = c;
+                }
+            }
+        }
+        return n;
+    }
+
+    private static int[] filled(int n, int value) {
+        int[] a = new int[n];
+        Arrays.fill(a, value);
+        return a;
+    }
+}
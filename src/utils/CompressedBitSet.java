@@ -0,0 +1,369 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Set of non-negative ints, compressed the way Roaring bitmaps are: values
+ * are split into chunks of 65536 by their high 16 bits, and each chunk is
+ * stored as a sorted char array while it holds at most 4096 values (2 bytes
+ * each) or as a 1024-word bitmap (8 KB) once that is smaller. Sparse sets
+ * cost a couple of bytes per value, dense ones a bit per value, and and/or/
+ * count run chunk by chunk with word-wide operations on the dense parts.
+ *
+ * Not thread-safe; readers and writers share a lock or a finished set.
+ */
+public class CompressedBitSet {
+
+    private static final int MAX_ARRAY = 4096;
+    private static final int WORDS = 1024;
+
+    // chunk i: high bits keys[i]; values either arrays[i] (first counts[i] used) or bitmaps[i]
+    private char[] keys = new char[4];
+    private char[][] arrays = new char[4][];
+    private long[][] bitmaps = new long[4][];
+    private int[] counts = new int[4];
+    private int chunks;
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int i = chunkIndex(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key);
+        }
+
+        if (bitmaps[i] != null) {
+            long[] words = bitmaps[i];
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                counts[i]++;
+            }
+            return;
+        }
+
+        char[] values = arrays[i];
+        int n = counts[i];
+        int at = n > 0 && values[n - 1] < low ? -n - 1 : Arrays.binarySearch(values, 0, n, low); // appends are the common case
+        if (at >= 0) return;
+        at = -at - 1;
+
+        if (n == MAX_ARRAY) {
+            bitmaps[i] = toBitmap(values, n);
+            arrays[i] = null;
+            bitmaps[i][low >>> 6] |= 1L << low;
+            counts[i]++;
+            return;
+        }
+        if (n == values.length) values = arrays[i] = Arrays.copyOf(values, Math.min(MAX_ARRAY, n * 2));
+        System.arraycopy(values, at, values, at + 1, n - at);
+        values[at] = low;
+        counts[i]++;
+    }
+
+    public boolean contains(int value) {
+        int i = chunkIndex((char) (value >>> 16));
+        if (i < 0) return false;
+        char low = (char) value;
+        if (bitmaps[i] != null) return (bitmaps[i][low >>> 6] & (1L << low)) != 0;
+        return Arrays.binarySearch(arrays[i], 0, counts[i], low) >= 0;
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < chunks; i++) total += counts[i];
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return chunks == 0;
+    }
+
+    /** Values in both sets, as a new set. */
+    public CompressedBitSet and(CompressedBitSet other) {
+        CompressedBitSet result = new CompressedBitSet();
+        int i = 0;
+        int j = 0;
+        while (i < chunks && j < other.chunks) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.andChunk(keys[i], this, i, other, j);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** Size of the intersection, without building it. */
+    public int andCardinality(CompressedBitSet other) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < chunks && j < other.chunks) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += andCount(this, i, other, j);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    /** Values in either set, as a new set. */
+    public CompressedBitSet or(CompressedBitSet other) {
+        CompressedBitSet result = new CompressedBitSet();
+        int i = 0;
+        int j = 0;
+        while (i < chunks || j < other.chunks) {
+            if (j == other.chunks || (i < chunks && keys[i] < other.keys[j])) {
+                result.appendCopy(this, i++);
+            } else if (i == chunks || keys[i] > other.keys[j]) {
+                result.appendCopy(other, j++);
+            } else {
+                result.orChunk(keys[i], this, i, other, j);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** Union of all the sets (an empty set for none; the set itself for one). */
+    public static CompressedBitSet orAll(List<CompressedBitSet> sets) {
+        if (sets.isEmpty()) return new CompressedBitSet();
+        CompressedBitSet result = sets.get(0);
+        for (int k = 1; k < sets.size(); k++) result = result.or(sets.get(k));
+        return result;
+    }
+
+    /** Ascending values, skipping the first skip and stopping after limit. */
+    public int[] toArray(int skip, int limit) {
+        int[] out = new int[Math.max(0, Math.min(limit, cardinality() - skip))];
+        if (out.length == 0) return out;
+        int[] n = {0};
+        int[] skipped = {0};
+        forEach(value -> {
+            if (skipped[0] < skip) {
+                skipped[0]++;
+                return true;
+            }
+            out[n[0]++] = value;
+            return n[0] < out.length;
+        });
+        return out;
+    }
+
+    /** Visits values in ascending order until the action returns false. */
+    public void forEach(IntPredicate action) {
+        for (int i = 0; i < chunks; i++) {
+            int high = keys[i] << 16;
+            if (bitmaps[i] != null) {
+                long[] words = bitmaps[i];
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        if (!action.test(high | (w << 6) | Long.numberOfTrailingZeros(word))) return;
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = arrays[i];
+                for (int k = 0; k < counts[i]; k++) {
+                    if (!action.test(high | values[k])) return;
+                }
+            }
+        }
+    }
+
+    private int chunkIndex(char key) {
+        if (chunks > 0 && keys[chunks - 1] == key) return chunks - 1;
+        return Arrays.binarySearch(keys, 0, chunks, key);
+    }
+
+    private void insertChunk(int at, char key) {
+        if (chunks == keys.length) {
+            int capacity = chunks * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            arrays = Arrays.copyOf(arrays, capacity);
+            bitmaps = Arrays.copyOf(bitmaps, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        System.arraycopy(keys, at, keys, at + 1, chunks - at);
+        System.arraycopy(arrays, at, arrays, at + 1, chunks - at);
+        System.arraycopy(bitmaps, at, bitmaps, at + 1, chunks - at);
+        System.arraycopy(counts, at, counts, at + 1, chunks - at);
+        keys[at] = key;
+        arrays[at] = new char[4];
+        bitmaps[at] = null;
+        counts[at] = 0;
+        chunks++;
+    }
+
+    // chunks are only ever appended in key order by and/or
+    private void append(char key, char[] values, long[] words, int count) {
+        if (count == 0) return;
+        insertChunk(chunks, key);
+        arrays[chunks - 1] = values;
+        bitmaps[chunks - 1] = words;
+        counts[chunks - 1] = count;
+    }
+
+    private void appendCopy(CompressedBitSet from, int i) {
+        append(from.keys[i],
+                from.arrays[i] == null ? null : Arrays.copyOf(from.arrays[i], from.counts[i]),
+                from.bitmaps[i] == null ? null : from.bitmaps[i].clone(),
+                from.counts[i]);
+    }
+
+    private void andChunk(char key, CompressedBitSet a, int i, CompressedBitSet b, int j) {
+        if (a.bitmaps[i] != null && b.bitmaps[j] != null) {
+            // count first so a small result goes straight into an array
+            long[] x = a.bitmaps[i];
+            long[] y = b.bitmaps[j];
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) count += Long.bitCount(x[w] & y[w]);
+            if (count > MAX_ARRAY) {
+                long[] words = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) words[w] = x[w] & y[w];
+                append(key, null, words, count);
+            } else {
+                char[] values = new char[count];
+                int n = 0;
+                for (int w = 0; w < WORDS; w++) {
+                    long word = x[w] & y[w];
+                    while (word != 0) {
+                        values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+                append(key, values, null, count);
+            }
+            return;
+        }
+
+        char[] values;
+        int count = 0;
+        if (a.bitmaps[i] != null || b.bitmaps[j] != null) {
+            // filter the array side through the bitmap side
+            char[] array = a.bitmaps[i] == null ? a.arrays[i] : b.arrays[j];
+            int n = a.bitmaps[i] == null ? a.counts[i] : b.counts[j];
+            long[] words = a.bitmaps[i] != null ? a.bitmaps[i] : b.bitmaps[j];
+            values = new char[n];
+            for (int k = 0; k < n; k++) {
+                char v = array[k];
+                if ((words[v >>> 6] & (1L << v)) != 0) values[count++] = v;
+            }
+        } else {
+            char[] x = a.arrays[i];
+            char[] y = b.arrays[j];
+            int nx = a.counts[i];
+            int ny = b.counts[j];
+            values = new char[Math.min(nx, ny)];
+            for (int p = 0, q = 0; p < nx && q < ny; ) {
+                if (x[p] < y[q]) p++;
+                else if (x[p] > y[q]) q++;
+                else {
+                    values[count++] = x[p];
+                    p++;
+                    q++;
+                }
+            }
+        }
+        append(key, values, null, count);
+    }
+
+    private static int andCount(CompressedBitSet a, int i, CompressedBitSet b, int j) {
+        int count = 0;
+        if (a.bitmaps[i] != null && b.bitmaps[j] != null) {
+            long[] x = a.bitmaps[i];
+            long[] y = b.bitmaps[j];
+            for (int w = 0; w < WORDS; w++) count += Long.bitCount(x[w] & y[w]);
+        } else if (a.bitmaps[i] != null || b.bitmaps[j] != null) {
+            char[] array = a.bitmaps[i] == null ? a.arrays[i] : b.arrays[j];
+            int n = a.bitmaps[i] == null ? a.counts[i] : b.counts[j];
+            long[] words = a.bitmaps[i] != null ? a.bitmaps[i] : b.bitmaps[j];
+            for (int k = 0; k < n; k++) {
+                if ((words[array[k] >>> 6] & (1L << array[k])) != 0) count++;
+            }
+        } else {
+            char[] x = a.arrays[i];
+            char[] y = b.arrays[j];
+            for (int p = 0, q = 0, nx = a.counts[i], ny = b.counts[j]; p < nx && q < ny; ) {
+                if (x[p] < y[q]) p++;
+                else if (x[p] > y[q]) q++;
+                else {
+                    count++;
+                    p++;
+                    q++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void orChunk(char key, CompressedBitSet a, int i, CompressedBitSet b, int j) {
+        if (a.bitmaps[i] == null && b.bitmaps[j] == null && a.counts[i] + b.counts[j] <= MAX_ARRAY) {
+            char[] x = a.arrays[i];
+            char[] y = b.arrays[j];
+            int nx = a.counts[i];
+            int ny = b.counts[j];
+            char[] values = new char[nx + ny];
+            int count = 0;
+            int p = 0;
+            int q = 0;
+            while (p < nx || q < ny) {
+                if (q == ny || (p < nx && x[p] < y[q])) values[count++] = x[p++];
+                else if (p == nx || x[p] > y[q]) values[count++] = y[q++];
+                else {
+                    values[count++] = x[p++];
+                    q++;
+                }
+            }
+            append(key, values, null, count);
+            return;
+        }
+
+        long[] words = a.bitmaps[i] != null ? a.bitmaps[i].clone() : toBitmap(a.arrays[i], a.counts[i]);
+        if (b.bitmaps[j] != null) {
+            long[] y = b.bitmaps[j];
+            for (int w = 0; w < WORDS; w++) words[w] |= y[w];
+        } else {
+            char[] y = b.arrays[j];
+            for (int k = 0; k < b.counts[j]; k++) words[y[k] >>> 6] |= 1L << y[k];
+        }
+        int count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        if (count > MAX_ARRAY) append(key, null, words, count);
+        else append(key, toArray(words, count), null, count);
+    }
+
+    private static long[] toBitmap(char[] values, int n) {
+        long[] words = new long[WORDS];
+        for (int k = 0; k < n; k++) words[values[k] >>> 6] |= 1L << values[k];
+        return words;
+    }
+
+    private static char[] toArray(long[] words, int count) {
+        char[] values = new char[count];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,404 @@
+package utils;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Small bounded JDBC connection pool.
+ *
+ * Connections handed out are proxies: calling close() returns the physical
+ * connection to the pool instead of closing it, so the usual
+ * try-with-resources code in the services keeps working unchanged.
+ *
+ * - at most maxSize physical connections, topped up to minSize in the background
+ * - idle connections above minSize are closed after idleTimeoutMillis
+ * - a connection idle for more than a few seconds is validated with isValid()
+ *   before it is handed out; recently returned ones are trusted
+ * - with leakThresholdMillis > 0, connections held longer are reported once,
+ *   with the borrowing thread's stack at that moment (taken only then, so
+ *   borrows stay cheap); 0 turns this off
+ */
+public class ConnectionPool implements DataSource {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 5_000; // the server may have dropped it meanwhile
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    // LIFO: recently used connections are handed out first, cold ones age out
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    // statistics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalUsageNanos = new AtomicLong();
+    private final AtomicLong maxUsageNanos = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                0, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Borrow a connection, waiting up to maxWaitMillis for a free slot. */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (shutdown) throw new SQLException("Connection pool is shut down");
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + maxWaitMillis
+                        + " ms waiting for a database connection (pool max " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pc = takeValidConnection();
+            recordWait(System.nanoTime() - start);
+            borrowCount.incrementAndGet();
+
+            pc.borrowedAt = System.nanoTime();
+            pc.borrower = Thread.currentThread();
+            pc.leakReported = false;
+            borrowed.add(pc);
+            return pc.newLease();
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool is bound to a single set of credentials");
+    }
+
+    private PooledConnection takeValidConnection() throws SQLException {
+        while (true) {
+            PooledConnection pc = idle.pollFirst();
+            if (pc == null) {
+                if (reserveSlot()) return create();
+                // a connection is being returned concurrently, wait for it
+                try {
+                    pc = idle.pollFirst(maxWaitMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", e);
+                }
+                if (pc == null) {
+                    timeoutCount.incrementAndGet();
+                    throw new SQLException("Timed out waiting for an idle database connection");
+                }
+            }
+            if (System.currentTimeMillis() - pc.lastReturned < VALIDATE_AFTER_IDLE_MILLIS || isUsable(pc)) return pc;
+            validationFailures.incrementAndGet();
+            destroy(pc);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            return pc.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /** Claims room for one more physical connection, never exceeding maxSize. */
+    private boolean reserveSlot() {
+        int n;
+        do {
+            n = totalConnections.get();
+            if (n >= maxSize) return false;
+        } while (!totalConnections.compareAndSet(n, n + 1));
+        return true;
+    }
+
+    /** Opens a physical connection for a slot already claimed by reserveSlot(). */
+    private PooledConnection create() throws SQLException {
+        try {
+            Connection physical = DriverManager.getConnection(url, user, password);
+            createdCount.incrementAndGet();
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void destroy(PooledConnection pc) {
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {}
+    }
+
+    /** Called when a lease is closed by the service code. */
+    private void release(PooledConnection pc) {
+        borrowed.remove(pc);
+        recordUsage(System.nanoTime() - pc.borrowedAt);
+        pc.borrower = null;
+
+        try {
+            if (shutdown || pc.physical.isClosed()) {
+                destroy(pc);
+                return;
+            }
+            // never hand out a connection with a half-finished transaction
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            pc.lastReturned = System.currentTimeMillis();
+            idle.offerFirst(pc);
+
+        } catch (SQLException e) {
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            fillToMinimum();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > minSize) {
+            PooledConnection pc = it.next();
+            if (pc.lastReturned < cutoff && idle.remove(pc)) {
+                destroy(pc);
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && totalConnections.get() < minSize && reserveSlot()) {
+            try {
+                PooledConnection pc = create();
+                pc.lastReturned = System.currentTimeMillis();
+                idle.offerLast(pc);
+            } catch (SQLException e) {
+                System.err.println("Connection pool: could not open connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (leakThresholdMillis <= 0) return;
+        long now = System.nanoTime();
+        long threshold = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+        for (PooledConnection pc : borrowed) {
+            Thread borrower = pc.borrower;
+            if (!pc.leakReported && borrower != null && now - pc.borrowedAt > threshold) {
+                pc.leakReported = true;
+                leakCount.incrementAndGet();
+                System.err.println("Connection pool: possible connection leak, held for more than "
+                        + leakThresholdMillis + " ms by thread \"" + borrower.getName() + "\""
+                        + (borrower.isAlive() ? ", now at:" : ", which has ended"));
+                for (StackTraceElement frame : borrower.getStackTrace()) {
+                    System.err.println("\tat " + frame);
+                }
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void recordUsage(long nanos) {
+        totalUsageNanos.addAndGet(nanos);
+        maxUsageNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Snapshot of the pool counters. */
+    public PoolStats getStats() {
+        long borrows = borrowCount.get();
+        int active = borrowed.size();
+        return new PoolStats(
+                totalConnections.get(),
+                active,
+                idle.size(),
+                permits.getQueueLength(),
+                borrows,
+                timeoutCount.get(),
+                createdCount.get(),
+                destroyedCount.get(),
+                validationFailures.get(),
+                leakCount.get(),
+                borrows == 0 ? 0 : totalWaitNanos.get() / borrows,
+                maxWaitNanos.get(),
+                borrows == 0 ? 0 : totalUsageNanos.get() / borrows,
+                maxUsageNanos.get()
+        );
+    }
+
+    /** Closes every idle connection and stops the housekeeper. */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+    }
+
+    // ---- remaining DataSource methods ----
+
+    @Override
+    public PrintWriter getLogWriter() { return DriverManager.getLogWriter(); }
+
+    @Override
+    public void setLogWriter(PrintWriter out) { DriverManager.setLogWriter(out); }
+
+    @Override
+    public void setLoginTimeout(int seconds) { DriverManager.setLoginTimeout(seconds); }
+
+    @Override
+    public int getLoginTimeout() { return DriverManager.getLoginTimeout(); }
+
+    @Override
+    public Logger getParentLogger() { return Logger.getLogger("utils"); }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /** A physical connection plus its bookkeeping. */
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long borrowedAt;
+        volatile long lastReturned;
+        volatile Thread borrower;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newLease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(this));
+        }
+    }
+
+    /** One borrow of a pooled connection; close() hands it back exactly once. */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pc;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Lease(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) release(pc);
+                    return null;
+                case "isClosed":
+                    return closed.get() || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + (closed.get() ? ", closed]" : "]");
+                default:
+                    if (closed.get()) throw new SQLException("Connection has been returned to the pool");
+                    try {
+                        return method.invoke(pc.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
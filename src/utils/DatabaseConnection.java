@@ -1,13 +1,29 @@
 package utils;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/fooddb?useSSL=false&serverTimezone=UTC";
-    private static final String USER = "UserName";
-    private static final String PASSWORD = "my_Password"; // replace
+    // can be overridden with -Dfooddb.url / -Dfooddb.user / -Dfooddb.password (e.g. benchmarks on H2)
+    private static final String URL = System.getProperty("fooddb.url",
+            "jdbc:mysql://localhost:3306/fooddb?useSSL=false&serverTimezone=UTC");
+    private static final String USER = System.getProperty("fooddb.user", "UserName");
+    private static final String PASSWORD = System.getProperty("fooddb.password", "my_Password"); // replace
+
+    // pool sizing (terminals poll every few seconds, so keep a few warm connections)
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_MAX_WAIT_MILLIS = 5_000;
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+    // connections held longer than this are reported (0 = off); nothing is captured per borrow beyond the time and thread
+    private static final long POOL_LEAK_THRESHOLD_MILLIS = Long.getLong("fooddb.leakThresholdMillis", 60_000);
+
+    private static final ConnectionPool POOL;
+    private static final OperationStats ACQUIRE = Metrics.group("DatabaseConnection").operation("getConnection");
+    private static final List<Runnable> BEFORE_SHUTDOWN = new CopyOnWriteArrayList<>();
 
     static {
         try {
@@ -15,11 +31,47 @@ public class DatabaseConnection {
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
         }
+
+        POOL = new ConnectionPool(URL, USER, PASSWORD,
+                POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_MAX_WAIT_MILLIS,
+                POOL_IDLE_TIMEOUT_MILLIS, POOL_LEAK_THRESHOLD_MILLIS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Runnable task : BEFORE_SHUTDOWN) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            POOL.shutdown();
+        }, "db-pool-shutdown"));
     }
 
     private DatabaseConnection() {}
 
+    /** Borrows a pooled connection; close() returns it to the pool. Timed, including any wait for a free one. */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Connection conn = POOL.getConnection();
+            failed = false;
+            return conn;
+        } finally {
+            ACQUIRE.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /** Runs task at JVM exit while the pool is still open (e.g. flushing write-behind buffers). */
+    public static void runBeforeShutdown(Runnable task) {
+        BEFORE_SHUTDOWN.add(task);
+    }
+
+    public static DataSource getDataSource() {
+        return POOL;
+    }
+
+    public static PoolStats getPoolStats() {
+        return POOL.getStats();
     }
 }
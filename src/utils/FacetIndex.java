@@ -0,0 +1,143 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet filter over items numbered 0, 1, 2, ... (ordinals). Each
+ * item has at most one value per dimension (e.g. category, cuisine, price
+ * band), and each value maps to the set of ordinals that have it.
+ *
+ * A filter picks any number of values per dimension: values in the same
+ * dimension are OR-ed, dimensions are AND-ed, and an empty selection leaves a
+ * dimension unfiltered. The counts shown next to a dimension's values ignore
+ * that dimension's own selection, so they say how many items picking (also)
+ * that value would give. Those counts intersect bitsets when the rest of the
+ * selection is large and otherwise walk it once, reading each item's value
+ * from a per-dimension column of value codes.
+ *
+ * add() is incremental. Reads share a lock and writes take it exclusively.
+ */
+public class FacetIndex {
+
+    // walking a selection costs about this many bitset words per item it holds
+    private static final int TALLY_WORDS_PER_ITEM = 4;
+    private static final int WORDS_PER_SET = 1024 * 16; // a dense value over a million items
+
+    private final List<Map<String, CompressedBitSet>> dimensions = new ArrayList<>();
+    private final List<List<String>> valueNames = new ArrayList<>();   // per dimension: code -> value
+    private final List<Map<String, Integer>> valueCodes = new ArrayList<>();
+    private int[][] codes;                                             // per dimension: ordinal -> code + 1 (0 = none)
+    private final CompressedBitSet all = new CompressedBitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FacetIndex(int dimensionCount) {
+        for (int d = 0; d < dimensionCount; d++) {
+            dimensions.add(new HashMap<>());
+            valueNames.add(new ArrayList<>());
+            valueCodes.add(new HashMap<>());
+        }
+        codes = new int[dimensionCount][16];
+    }
+
+    /** Files the item under one value per dimension, in dimension order (null = none). */
+    public void add(int ordinal, String... values) {
+        lock.writeLock().lock();
+        try {
+            all.add(ordinal);
+            for (int d = 0; d < values.length && d < dimensions.size(); d++) {
+                if (values[d] == null) continue;
+                dimensions.get(d).computeIfAbsent(values[d], v -> new CompressedBitSet()).add(ordinal);
+
+                List<String> names = valueNames.get(d);
+                int code = valueCodes.get(d).computeIfAbsent(values[d], v -> {
+                    names.add(v);
+                    return names.size() - 1;
+                });
+                if (ordinal >= codes[d].length) codes[d] = Arrays.copyOf(codes[d], Math.max(ordinal + 1, codes[d].length * 2));
+                codes[d][ordinal] = code + 1;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ordinals matching the selection; one collection of values per dimension (null or empty = any). */
+    public CompressedBitSet filter(List<? extends Collection<String>> selected) {
+        lock.readLock().lock();
+        try {
+            CompressedBitSet matching = matchingExcept(picked(selected), -1);
+            return (matching != null ? matching : all).or(new CompressedBitSet()); // a copy: ours keep growing
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Per dimension: value -> number of items it would match alongside the other dimensions' selection. */
+    public List<Map<String, Integer>> counts(List<? extends Collection<String>> selected) {
+        lock.readLock().lock();
+        try {
+            CompressedBitSet[] picked = picked(selected);
+            List<Map<String, Integer>> counts = new ArrayList<>(dimensions.size());
+            for (int d = 0; d < dimensions.size(); d++) {
+                CompressedBitSet others = matchingExcept(picked, d);
+                Map<String, CompressedBitSet> values = dimensions.get(d);
+                Map<String, Integer> dimensionCounts = new HashMap<>();
+
+                if (others != null && (long) others.cardinality() * TALLY_WORDS_PER_ITEM < (long) values.size() * WORDS_PER_SET) {
+                    int[] column = codes[d];
+                    int[] tally = new int[valueNames.get(d).size() + 1];
+                    others.forEach(ordinal -> {
+                        tally[ordinal < column.length ? column[ordinal] : 0]++;
+                        return true;
+                    });
+                    for (int code = 0; code < valueNames.get(d).size(); code++) {
+                        dimensionCounts.put(valueNames.get(d).get(code), tally[code + 1]);
+                    }
+                } else {
+                    for (Map.Entry<String, CompressedBitSet> e : values.entrySet()) {
+                        int n = others == null ? e.getValue().cardinality() : others.andCardinality(e.getValue());
+                        dimensionCounts.put(e.getKey(), n);
+                    }
+                }
+                counts.add(dimensionCounts);
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // per dimension: the OR of its selected values; null when nothing is selected there
+    private CompressedBitSet[] picked(List<? extends Collection<String>> selected) {
+        CompressedBitSet[] picked = new CompressedBitSet[dimensions.size()];
+        for (int d = 0; d < dimensions.size() && d < selected.size(); d++) {
+            Collection<String> values = selected.get(d);
+            if (values == null || values.isEmpty()) continue;
+
+            List<CompressedBitSet> sets = new ArrayList<>(values.size());
+            for (String value : values) {
+                CompressedBitSet set = dimensions.get(d).get(value);
+                if (set != null) sets.add(set);
+            }
+            picked[d] = sets.size() == 1 ? sets.get(0) : CompressedBitSet.orAll(sets);
+        }
+        return picked;
+    }
+
+    // AND of every selected dimension but skip; null when nothing is selected
+    private static CompressedBitSet matchingExcept(CompressedBitSet[] picked, int skip) {
+        CompressedBitSet result = null;
+        for (int d = 0; d < picked.length; d++) {
+            if (d == skip || picked[d] == null) continue;
+            result = result == null ? picked[d] : result.and(picked[d]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,174 @@
+package utils;
+
+import models.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory spatial index: entities bucketed into fixed lat/lon grid cells.
+ *
+ * nearest() scans rings of cells outward from the query point and stops as
+ * soon as no unscanned cell can hold anything closer than the k-th hit, so a
+ * query touches a handful of cells however many entities are indexed. put()
+ * moves an entity between cells, so positions can be updated as often as they
+ * are reported. Writes are serialized; reads take no locks and may briefly
+ * miss an entity that is being moved.
+ *
+ * Cells do not wrap across the poles; longitude wraps at the antimeridian.
+ */
+public class GeoGrid<T> {
+
+    private static final double KM_PER_DEGREE = 111.2;
+
+    private final double cellDegrees;
+    private final int columns;
+
+    private final Map<Long, Map<Integer, Entry<T>>> cells = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    /** cellDegrees: cell edge, e.g. 0.01 (about 1.1 km); aim for a few entities per cell */
+    public GeoGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /** Adds or moves the entity; a null location removes it. */
+    public synchronized void put(int id, T value, GeoPoint location) {
+        if (location == null) {
+            remove(id);
+            return;
+        }
+
+        Entry<T> entry = new Entry<>(id, value, location, cellKey(row(location.getLatitude()), column(location.getLongitude())));
+        Entry<T> old = entries.put(id, entry);
+        if (old != null && old.cell != entry.cell) removeFromCell(old);
+        cells.computeIfAbsent(entry.cell, k -> new ConcurrentHashMap<>()).put(id, entry);
+    }
+
+    public synchronized void remove(int id) {
+        Entry<T> old = entries.remove(id);
+        if (old != null) removeFromCell(old);
+    }
+
+    public T get(int id) {
+        Entry<T> e = entries.get(id);
+        return e == null ? null : e.value;
+    }
+
+    public GeoPoint locationOf(int id) {
+        Entry<T> e = entries.get(id);
+        return e == null ? null : e.location;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Up to k entities nearest to from, nearest first. */
+    public List<T> nearest(GeoPoint from, int k) {
+        return nearest(from, k, Double.MAX_VALUE, null);
+    }
+
+    /**
+     * Up to k entities within maxKm of from that pass filter (null = all),
+     * nearest first.
+     */
+    public List<T> nearest(GeoPoint from, int k, double maxKm, Predicate<T> filter) {
+        if (k <= 0 || entries.isEmpty()) return new ArrayList<>();
+
+        // max-heap on distance: the head is the worst of the best k so far
+        PriorityQueue<Hit<T>> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble((Hit<T> h) -> -h.km));
+
+        int row = row(from.getLatitude());
+        int col = column(from.getLongitude());
+        int total = entries.size();
+        int seen = 0;
+
+        for (int ring = 0; ; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                boolean edgeRow = r == row - ring || r == row + ring;
+                int step = edgeRow ? 1 : 2 * ring; // inner rows: only the two edge columns
+                for (int c = col - ring; c <= col + ring; c += Math.max(step, 1)) {
+                    Map<Integer, Entry<T>> cell = cells.get(cellKey(r, Math.floorMod(c, columns)));
+                    if (cell == null) continue;
+
+                    for (Entry<T> e : cell.values()) {
+                        seen++;
+                        if (filter != null && !filter.test(e.value)) continue;
+                        double km = from.distanceKm(e.location);
+                        if (km > maxKm) continue;
+                        best.add(new Hit<>(e.value, km));
+                        if (best.size() > k) best.poll();
+                    }
+                }
+            }
+
+            // nothing outside this ring is closer than `reach`
+            double reach = ring * cellDegrees * KM_PER_DEGREE
+                    * Math.cos(Math.toRadians(Math.min(89.9, Math.abs(from.getLatitude()) + (ring + 1) * cellDegrees)));
+            boolean full = best.size() == k && best.peek().km <= reach;
+            if (full || reach > maxKm || seen >= total || ring > columns / 2) break;
+        }
+
+        List<Hit<T>> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(h -> h.km));
+        List<T> result = new ArrayList<>(hits.size());
+        for (Hit<T> h : hits) result.add(h.value);
+        return result;
+    }
+
+    /** Everything indexed, in no particular order. */
+    public List<T> values() {
+        List<T> list = new ArrayList<>(entries.size());
+        for (Entry<T> e : entries.values()) list.add(e.value);
+        return Collections.unmodifiableList(list);
+    }
+
+    private void removeFromCell(Entry<T> entry) {
+        Map<Integer, Entry<T>> cell = cells.get(entry.cell);
+        if (cell != null) cell.remove(entry.id, entry);
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    private static final class Entry<T> {
+        final int id;
+        final T value;
+        final GeoPoint location;
+        final long cell;
+
+        Entry(int id, T value, GeoPoint location, long cell) {
+            this.id = id;
+            this.value = value;
+            this.location = location;
+            this.cell = cell;
+        }
+    }
+
+    private static final class Hit<T> {
+        final T value;
+        final double km;
+
+        Hit(T value, double km) {
+            this.value = value;
+            this.km = km;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory full-text index over documents with a few weighted text fields
+ * (e.g. name, category, description).
+ *
+ * Text is split into lowercase letter/digit tokens. Each term keeps one
+ * posting list per field: ascending document ids, delta-encoded as varints,
+ * so a posting costs one or two bytes. A query matches documents that have
+ * every query token, where a token matches a term exactly, as a prefix
+ * (tokens of 2+ characters) or, for words, within a small edit distance (1
+ * for 4+ letters, 2 for 8+; a swap of neighbouring letters counts as one).
+ * Scores add up field weight times match quality per token. The rarest
+ * token is resolved first and the others only walk its candidates.
+ *
+ * add() is incremental. Reads share a lock and writes take it exclusively,
+ * so searches never see a half-appended posting list.
+ */
+public class InvertedIndex {
+
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.8;
+    private static final double TYPO = 0.6;
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int ONE_TYPO_LENGTH = 4;
+    private static final int TWO_TYPO_LENGTH = 8;
+
+    private final double[] fieldWeights;
+    private final NavigableMap<String, Postings[]> terms = new TreeMap<>();
+    private final List<List<String>> wordsByLength = new ArrayList<>(); // letter-only terms: typo candidates
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int documents;
+
+    /** One weight per field, in the order fields are passed to add(). */
+    public InvertedIndex(double... fieldWeights) {
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    /** Indexes a document; fields line up with the weights (null = empty). */
+    public void add(int docId, String... fields) {
+        lock.writeLock().lock();
+        try {
+            for (int f = 0; f < fields.length && f < fieldWeights.length; f++) {
+                for (String token : tokenize(fields[f])) {
+                    Postings[] lists = terms.get(token);
+                    if (lists == null) {
+                        lists = new Postings[fieldWeights.length];
+                        terms.put(token, lists);
+                        if (isWord(token)) {
+                            while (wordsByLength.size() <= token.length()) wordsByLength.add(new ArrayList<>());
+                            wordsByLength.get(token.length()).add(token);
+                        }
+                    }
+                    if (lists[f] == null) lists[f] = new Postings();
+                    lists[f].add(docId);
+                }
+            }
+            documents++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ids of up to limit documents matching every token of query, best first. */
+    public int[] search(String query, int limit) {
+        return search(query, limit, null);
+    }
+
+    /** As search(query, limit), counting only documents accept allows (null = all). */
+    public int[] search(String query, int limit, IntPredicate accept) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) return new int[0];
+
+        lock.readLock().lock();
+        try {
+            List<List<Match>> perToken = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                List<Match> matches = expand(token);
+                if (matches.isEmpty()) return new int[0];
+                perToken.add(matches);
+            }
+            // rarest token first: it bounds the candidates the others are checked against
+            perToken.sort(Comparator.comparingLong(InvertedIndex::postingCount));
+
+            Hits hits = union(perToken.get(0));
+            for (int t = 1; t < perToken.size() && hits.size > 0; t++) hits = intersect(hits, perToken.get(t));
+            return hits.top(limit, accept);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Lowercase runs of letters and digits. */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // every posting list the token hits, with the score a hit there is worth
+    private List<Match> expand(String token) {
+        List<Match> matches = new ArrayList<>();
+
+        Postings[] exact = terms.get(token);
+        if (exact != null) addMatches(matches, exact, EXACT);
+
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            for (Postings[] lists : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                addMatches(matches, lists, PREFIX);
+            }
+        }
+
+        int maxEdits = !isWord(token) ? 0
+                : token.length() >= TWO_TYPO_LENGTH ? 2 : token.length() >= ONE_TYPO_LENGTH ? 1 : 0;
+        for (int len = Math.max(1, token.length() - maxEdits); maxEdits > 0 && len <= token.length() + maxEdits; len++) {
+            if (len >= wordsByLength.size()) break;
+            for (String term : wordsByLength.get(len)) {
+                if (!term.equals(token) && withinEdits(token, term, maxEdits) >= 0) {
+                    addMatches(matches, terms.get(term), TYPO);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void addMatches(List<Match> matches, Postings[] lists, double quality) {
+        for (int f = 0; f < lists.length; f++) {
+            if (lists[f] != null) matches.add(new Match(lists[f], (float) (fieldWeights[f] * quality)));
+        }
+    }
+
+    private static long postingCount(List<Match> matches) {
+        long n = 0;
+        for (Match m : matches) n += m.postings.count;
+        return n;
+    }
+
+    // documents hit by any of the matches, each with its best score
+    private static Hits union(List<Match> matches) {
+        // (id, score) packed so one primitive sort orders by id, then score
+        long[] packed = new long[(int) postingCount(matches)];
+        int n = 0;
+        for (Match m : matches) {
+            long scoreBits = Float.floatToIntBits(m.score) & 0xFFFFFFFFL;
+            Postings p = m.postings;
+            int pos = 0;
+            int id = 0;
+            for (int k = 0; k < p.count; k++) {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = p.bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+                id += delta;
+                packed[n++] = ((long) id << 32) | scoreBits;
+            }
+        }
+        Arrays.sort(packed, 0, n);
+
+        Hits hits = new Hits(n);
+        for (int i = 0; i < n; i++) {
+            int id = (int) (packed[i] >>> 32);
+            float score = Float.intBitsToFloat((int) packed[i]);
+            if (hits.size > 0 && hits.ids[hits.size - 1] == id) {
+                hits.scores[hits.size - 1] = score; // ascending: the last one is the best
+            } else {
+                hits.ids[hits.size] = id;
+                hits.scores[hits.size++] = score;
+            }
+        }
+        return hits;
+    }
+
+    // the candidates that are also hit by one of the matches, scores added up
+    private static Hits intersect(Hits candidates, List<Match> matches) {
+        float[] best = new float[candidates.size];
+        for (Match m : matches) {
+            Postings p = m.postings;
+            int pos = 0;
+            int id = 0;
+            int c = 0;
+            for (int k = 0; k < p.count && c < candidates.size; k++) {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = p.bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+                id += delta;
+                while (c < candidates.size && candidates.ids[c] < id) c++;
+                if (c < candidates.size && candidates.ids[c] == id && m.score > best[c]) best[c] = m.score;
+            }
+        }
+
+        Hits hits = new Hits(candidates.size);
+        for (int c = 0; c < candidates.size; c++) {
+            if (best[c] == 0) continue;
+            hits.ids[hits.size] = candidates.ids[c];
+            hits.scores[hits.size++] = candidates.scores[c] + best[c];
+        }
+        return hits;
+    }
+
+    private static boolean isWord(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isLetter(token.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /*
+     * Edit distance between a and b (insert, delete, substitute, swap of two
+     * neighbours) if it is at most max, else -1. Gives up once two whole rows
+     * exceed max (a swap reaches back two rows).
+     */
+    static int withinEdits(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return -1;
+
+        int[] prev2 = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        int prevRowMin = 0;
+
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, prev2[j - 2] + 1);
+                }
+                cur[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max && prevRowMin > max) return -1;
+            prevRowMin = rowMin;
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m] <= max ? prev[m] : -1;
+    }
+
+    private static final class Match {
+        final Postings postings;
+        final float score;
+
+        Match(Postings postings, float score) {
+            this.postings = postings;
+            this.score = score;
+        }
+    }
+
+    // documents in ascending id order with their scores so far
+    private static final class Hits {
+        final int[] ids;
+        final float[] scores;
+        int size;
+
+        Hits(int capacity) {
+            ids = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        // best first, ties by id
+        int[] top(int limit, IntPredicate accept) {
+            PriorityQueue<Integer> worstFirst = new PriorityQueue<>(limit + 1, (a, b) -> {
+                int c = Float.compare(scores[a], scores[b]);
+                return c != 0 ? c : Integer.compare(ids[b], ids[a]);
+            });
+            for (int i = 0; i < size; i++) {
+                if (accept != null && !accept.test(ids[i])) continue;
+                worstFirst.add(i);
+                if (worstFirst.size() > limit) worstFirst.poll();
+            }
+            int[] top = new int[worstFirst.size()];
+            for (int i = top.length - 1; i >= 0; i--) top[i] = ids[worstFirst.poll()];
+            return top;
+        }
+    }
+
+    /** Ascending document ids as varint deltas; appends are O(1) while ids arrive in order. */
+    private static final class Postings {
+        byte[] bytes = new byte[4];
+        int length;
+        int count;
+        int last = -1;
+
+        void add(int docId) {
+            if (docId == last) return; // token repeated within the field
+            if (docId < last) {
+                rebuildWith(docId);
+                return;
+            }
+            append(last < 0 ? docId : docId - last);
+            last = docId;
+            count++;
+        }
+
+        void forEach(IntConsumer action) {
+            int pos = 0;
+            int id = 0;
+            for (int k = 0; k < count; k++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                id += delta;
+                action.accept(id);
+            }
+        }
+
+        private void append(int value) {
+            if (length + 5 > bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        // an id below the last one (rare: items indexed out of order) re-encodes the list
+        private void rebuildWith(int docId) {
+            int[] ids = new int[count + 1];
+            int[] n = {0};
+            forEach(id -> ids[n[0]++] = id);
+            int at = Arrays.binarySearch(ids, 0, count, docId);
+            if (at >= 0) return;
+            at = -at - 1;
+            System.arraycopy(ids, at, ids, at + 1, count - at);
+            ids[at] = docId;
+
+            bytes = new byte[Math.max(4, ids.length * 2)];
+            length = 0;
+            int prev = 0;
+            for (int id : ids) {
+                append(id - prev);
+                prev = id;
+            }
+            count = ids.length;
+            last = ids[ids.length - 1];
+        }
+    }
+}
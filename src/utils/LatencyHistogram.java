@@ -0,0 +1,83 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram in nanoseconds with HDR-style log-linear buckets: every
+ * power of two is split into 64 equal buckets, so a percentile is within
+ * 1.6% of the true value from 1 ns up to an hour, in a fixed 19 KB. Values
+ * below 128 ns get a bucket each; longer ones are capped at an hour.
+ *
+ * record() is a few atomic adds and never allocates; reads see counts as of
+ * some moment during the read.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;                      // 64 buckets per power of two
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_NANOS = 3_600_000_000_000L;         // an hour, just under 2^42
+    private static final int BUCKETS = bucketOf(MAX_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        nanos = Math.max(0, Math.min(nanos, MAX_NANOS));
+        counts.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / n;
+    }
+
+    /** Smallest bucket bound that at least percentile % of the recorded values fit under; 0 when empty. */
+    public long getValueAtPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) return Math.min(highestValueIn(bucket), maxNanos.get());
+        }
+        return maxNanos.get(); // counts grew while we read
+    }
+
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) counts.set(bucket, 0);
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    // values below 2 * SUB_BUCKETS map to themselves; above, a bucket spans 2^shift values
+    private static int bucketOf(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS) return (int) nanos;
+        int shift = 64 - Long.numberOfLeadingZeros(nanos) - (SUB_BUCKET_BITS + 1);
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((nanos >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long highestValueIn(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) return bucket;
+        int k = bucket - 2 * SUB_BUCKETS;
+        int shift = k / SUB_BUCKETS + 1;
+        long sub = k % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,101 @@
+package utils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-operation call counts, error counts and latency histograms, grouped by
+ * component (e.g. OrderService). Each operation is registered with the
+ * platform MBean server on its first call as
+ * fooddelivery:type=&lt;component&gt;,name=&lt;operation&gt;, so jconsole or a JMX
+ * exporter can read it from a running app.
+ *
+ * Failures in this code base are mostly logged and turned into false, null
+ * or an empty list several calls down. Code doing that reports them through
+ * {@link #failed}; every operation timed on the same thread while it happens
+ * counts as failed, as does one that throws.
+ */
+public final class Metrics {
+
+    private static final String DOMAIN = "fooddelivery";
+
+    private static final ConcurrentMap<String, Group> GROUPS = new ConcurrentHashMap<>();
+    // failures reported on this thread so far; a call failed if this grew while it ran
+    private static final ThreadLocal<long[]> FAILURES = ThreadLocal.withInitial(() -> new long[1]);
+
+    private Metrics() {}
+
+    /** The component's operations; one shared group per name. */
+    public static Group group(String component) {
+        return GROUPS.computeIfAbsent(component, Group::new);
+    }
+
+    /** Logs a failure that is being handled (e.g. turned into false) and charges it to the calls in progress. */
+    public static void failed(Throwable e) {
+        e.printStackTrace();
+        FAILURES.get()[0]++;
+    }
+
+    public static final class Group {
+        private final String component;
+        private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+        private Group(String component) {
+            this.component = component;
+        }
+
+        /** The operation's stats, created and registered over JMX on first use. */
+        public OperationStats operation(String name) {
+            OperationStats stats = operations.get(name);
+            return stats != null ? stats : operations.computeIfAbsent(name, this::register);
+        }
+
+        /** Runs call as one call of the operation. */
+        public <T> T time(String operation, Supplier<T> call) {
+            OperationStats stats = operation(operation);
+            long[] failures = FAILURES.get();
+            long failuresBefore = failures[0];
+            long start = System.nanoTime();
+            boolean threw = true;
+            try {
+                T result = call.get();
+                threw = false;
+                return result;
+            } finally {
+                stats.record(System.nanoTime() - start, threw || failures[0] != failuresBefore);
+            }
+        }
+
+        public void run(String operation, Runnable call) {
+            time(operation, () -> {
+                call.run();
+                return null;
+            });
+        }
+
+        /** Operation name -> stats, by name. */
+        public Map<String, OperationStats> operations() {
+            return new TreeMap<>(operations);
+        }
+
+        private OperationStats register(String name) {
+            OperationStats stats = new OperationStats();
+            Hashtable<String, String> keys = new Hashtable<>();
+            keys.put("type", component);
+            keys.put("name", name);
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(DOMAIN, keys));
+            } catch (JMException e) {
+                e.printStackTrace(); // still counted, just not visible over JMX
+            }
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, errors and latencies of one operation; see {@link Metrics}.
+ */
+public class OperationStats implements OperationStatsMXBean {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /** One finished call; failed calls count towards the latencies too. */
+    public void record(long nanos, boolean failed) {
+        calls.increment();
+        if (failed) errors.increment();
+        latency.record(nanos);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override public long getCalls() { return calls.sum(); }
+    @Override public long getErrors() { return errors.sum(); }
+    @Override public long getMeanMicros() { return latency.getMeanNanos() / 1_000; }
+    @Override public long getP50Micros() { return latency.getValueAtPercentile(50) / 1_000; }
+    @Override public long getP99Micros() { return latency.getValueAtPercentile(99) / 1_000; }
+    @Override public long getP999Micros() { return latency.getValueAtPercentile(99.9) / 1_000; }
+    @Override public long getMaxMicros() { return latency.getMaxNanos() / 1_000; }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("calls=%d, errors=%d, p50=%.3fms, p99=%.3fms, p999=%.3fms, max=%.3fms",
+                getCalls(), getErrors(),
+                latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(99) / 1e6,
+                latency.getValueAtPercentile(99.9) / 1e6, latency.getMaxNanos() / 1e6);
+    }
+}
@@ -0,0 +1,17 @@
+package utils;
+
+/**
+ * JMX view of one instrumented operation, e.g. fooddelivery:type=OrderService,name=checkout.
+ * Counts and times are since start or the last reset; times are in microseconds.
+ */
+public interface OperationStatsMXBean {
+    long getCalls();
+    long getErrors();
+    long getMeanMicros();
+    long getP50Micros();
+    long getP99Micros();
+    long getP999Micros();
+    long getMaxMicros();
+
+    void reset();
+}
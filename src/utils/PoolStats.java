@@ -0,0 +1,67 @@
+package utils;
+
+/**
+ * Immutable snapshot of {@link ConnectionPool} counters.
+ */
+public class PoolStats {
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waitingThreads;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long destroyedCount;
+    private final long validationFailures;
+    private final long leakCount;
+    private final long avgWaitNanos;
+    private final long maxWaitNanos;
+    private final long avgUsageNanos;
+    private final long maxUsageNanos;
+
+    public PoolStats(int totalConnections, int activeConnections, int idleConnections, int waitingThreads,
+                     long borrowCount, long timeoutCount, long createdCount, long destroyedCount,
+                     long validationFailures, long leakCount,
+                     long avgWaitNanos, long maxWaitNanos, long avgUsageNanos, long maxUsageNanos) {
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waitingThreads = waitingThreads;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.validationFailures = validationFailures;
+        this.leakCount = leakCount;
+        this.avgWaitNanos = avgWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.avgUsageNanos = avgUsageNanos;
+        this.maxUsageNanos = maxUsageNanos;
+    }
+
+    public int getTotalConnections() { return totalConnections; }
+    public int getActiveConnections() { return activeConnections; }
+    public int getIdleConnections() { return idleConnections; }
+    public int getWaitingThreads() { return waitingThreads; }
+    public long getBorrowCount() { return borrowCount; }
+    public long getTimeoutCount() { return timeoutCount; }
+    public long getCreatedCount() { return createdCount; }
+    public long getDestroyedCount() { return destroyedCount; }
+    public long getValidationFailures() { return validationFailures; }
+    public long getLeakCount() { return leakCount; }
+    public long getAvgWaitNanos() { return avgWaitNanos; }
+    public long getMaxWaitNanos() { return maxWaitNanos; }
+    public long getAvgUsageNanos() { return avgUsageNanos; }
+    public long getMaxUsageNanos() { return maxUsageNanos; }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "PoolStats[total=%d, active=%d, idle=%d, waiting=%d, borrows=%d, timeouts=%d, "
+                        + "created=%d, destroyed=%d, invalid=%d, leaks=%d, "
+                        + "avgWait=%.3fms, maxWait=%.3fms, avgUse=%.3fms, maxUse=%.3fms]",
+                totalConnections, activeConnections, idleConnections, waitingThreads,
+                borrowCount, timeoutCount, createdCount, destroyedCount, validationFailures, leakCount,
+                avgWaitNanos / 1e6, maxWaitNanos / 1e6, avgUsageNanos / 1e6, maxUsageNanos / 1e6);
+    }
+}
@@ -0,0 +1,216 @@
+package utils;
+
+import models.GeoPoint;
+import models.RouteStop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders a courier's stops into a short trip: nearest neighbour to build a
+ * route, then 2-opt (reverse a stretch of it while that makes it shorter)
+ * and relocation (move a single stop elsewhere), repeated until neither
+ * helps. An order is always picked up before it is dropped off; moves that
+ * would break that are skipped. The trip ends at its last stop.
+ *
+ * Stops without a position (and the drop-off of an order whose pickup has
+ * none) cannot be placed and come last, in the order given.
+ */
+public final class StopSequencer {
+
+    private static final int MAX_PASSES = 50;
+
+    private StopSequencer() {}
+
+    /** The stops in visiting order, starting from start (null = wherever the first stop is). */
+    public static List<RouteStop> sequence(GeoPoint start, List<RouteStop> stops) {
+        Map<Integer, RouteStop> pickups = new HashMap<>();
+        for (RouteStop s : stops) {
+            if (s.isPickup()) pickups.put(s.getOrderId(), s);
+        }
+
+        List<RouteStop> placed = new ArrayList<>();
+        List<RouteStop> unplaced = new ArrayList<>();
+        for (RouteStop s : stops) {
+            RouteStop pickup = s.isPickup() ? null : pickups.get(s.getOrderId());
+            boolean known = s.getLocation() != null && (pickup == null || pickup.getLocation() != null);
+            (known ? placed : unplaced).add(s);
+        }
+
+        int n = placed.size();
+        if (n > 1) {
+            double[][] km = distances(start, placed);
+            int[] route = nearestNeighbour(placed, km);
+            improve(route, placed, km, start != null);
+
+            List<RouteStop> ordered = new ArrayList<>(n);
+            for (int i : route) ordered.add(placed.get(i));
+            placed = ordered;
+        }
+        placed.addAll(unplaced);
+        return placed;
+    }
+
+    /** Trip length in km over the stops that have a position, from start if given. */
+    public static double lengthKm(GeoPoint start, List<RouteStop> stops) {
+        double total = 0;
+        GeoPoint at = start;
+        for (RouteStop s : stops) {
+            if (s.getLocation() == null) continue;
+            if (at != null) total += at.distanceKm(s.getLocation());
+            at = s.getLocation();
+        }
+        return total;
+    }
+
+    // index n is the start point
+    private static double[][] distances(GeoPoint start, List<RouteStop> stops) {
+        int n = stops.size();
+        double[][] km = new double[n + 1][n + 1];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                km[i][j] = km[j][i] = stops.get(i).getLocation().distanceKm(stops.get(j).getLocation());
+            }
+            if (start != null) km[n][i] = km[i][n] = start.distanceKm(stops.get(i).getLocation());
+        }
+        return km;
+    }
+
+    // without a start its distances are all 0, so the first stop that may go first does
+    private static int[] nearestNeighbour(List<RouteStop> stops, double[][] km) {
+        int n = stops.size();
+        boolean[] visited = new boolean[n];
+        int[] route = new int[n];
+        int at = n;
+
+        for (int step = 0; step < n; step++) {
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                if (visited[i] || !mayVisit(i, stops, visited)) continue;
+                if (next == -1 || km[at][i] < km[at][next]) next = i;
+            }
+            route[step] = next;
+            visited[next] = true;
+            at = next;
+        }
+        return route;
+    }
+
+    // a drop-off waits for its order's pickup, if that is on the route
+    private static boolean mayVisit(int i, List<RouteStop> stops, boolean[] visited) {
+        RouteStop s = stops.get(i);
+        if (s.isPickup()) return true;
+        for (int j = 0; j < stops.size(); j++) {
+            RouteStop p = stops.get(j);
+            if (p.isPickup() && p.getOrderId() == s.getOrderId()) return visited[j];
+        }
+        return true;
+    }
+
+    private static void improve(int[] route, List<RouteStop> stops, double[][] km, boolean fromStart) {
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean improved = twoOpt(route, stops, km, fromStart);
+            improved |= relocate(route, stops, km, fromStart);
+            if (!improved) return;
+        }
+    }
+
+    private static boolean twoOpt(int[] route, List<RouteStop> stops, double[][] km, boolean fromStart) {
+        int n = route.length;
+        int start = stops.size();
+        boolean improved = false;
+
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double before = 0;
+                double after = 0;
+                if (i > 0 || fromStart) { // without a start, reversing a prefix only moves its far edge
+                    int prev = i > 0 ? route[i - 1] : start;
+                    before += km[prev][route[i]];
+                    after += km[prev][route[j]];
+                }
+                if (j < n - 1) {
+                    before += km[route[j]][route[j + 1]];
+                    after += km[route[i]][route[j + 1]];
+                }
+                if (after < before - 1e-9 && keepsPickupFirst(route, i, j, stops)) {
+                    reverse(route, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // moves one stop to another place in the route when that is shorter and keeps pickups first
+    private static boolean relocate(int[] route, List<RouteStop> stops, double[][] km, boolean fromStart) {
+        int n = route.length;
+        boolean improved = false;
+        double best = length(route, km, fromStart);
+        int[] candidate = new int[n];
+
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                if (to == from) continue;
+                moveInto(candidate, route, from, to);
+                if (!pickupsFirst(candidate, stops)) continue;
+                double len = length(candidate, km, fromStart);
+                if (len < best - 1e-9) {
+                    System.arraycopy(candidate, 0, route, 0, n);
+                    best = len;
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void moveInto(int[] target, int[] route, int from, int to) {
+        int moved = route[from];
+        int k = 0;
+        for (int i = 0; i < route.length; i++) {
+            if (i == from) continue;
+            if (k == to) target[k++] = moved;
+            target[k++] = route[i];
+        }
+        if (k == to) target[k] = moved;
+    }
+
+    private static double length(int[] route, double[][] km, boolean fromStart) {
+        double total = fromStart ? km[km.length - 1][route[0]] : 0;
+        for (int i = 1; i < route.length; i++) total += km[route[i - 1]][route[i]];
+        return total;
+    }
+
+    private static boolean pickupsFirst(int[] route, List<RouteStop> stops) {
+        for (int a = 0; a < route.length; a++) {
+            if (!stops.get(route[a]).isPickup()) continue;
+            for (int b = 0; b < a; b++) {
+                if (stops.get(route[b]).getOrderId() == stops.get(route[a]).getOrderId()) return false;
+            }
+        }
+        return true;
+    }
+
+    // reversing route[i..j] puts a drop-off ahead of its pickup iff both lie in that stretch
+    private static boolean keepsPickupFirst(int[] route, int i, int j, List<RouteStop> stops) {
+        for (int a = i; a <= j; a++) {
+            RouteStop s = stops.get(route[a]);
+            if (!s.isPickup()) continue;
+            for (int b = a + 1; b <= j; b++) {
+                if (stops.get(route[b]).getOrderId() == s.getOrderId()) return false;
+            }
+        }
+        return true;
+    }
+
+    private static void reverse(int[] route, int i, int j) {
+        while (i < j) {
+            int t = route[i];
+            route[i++] = route[j];
+            route[j--] = t;
+        }
+    }
+}
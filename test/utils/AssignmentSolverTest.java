@@ -0,0 +1,107 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssignmentSolverTest {
+
+    private static final long NO_BUDGET_LIMIT = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void matchesBruteForceOnSmallMatrices() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 500; trial++) {
+            double[][] cost = randomCost(random, 1 + random.nextInt(6), 1 + random.nextInt(6));
+
+            int[] assignment = AssignmentSolver.solve(cost, NO_BUDGET_LIMIT);
+
+            assertValid(cost, assignment);
+            assertEquals(bruteForce(cost), AssignmentSolver.totalCost(cost, assignment), 1e-9,
+                    () -> "trial " + cost.length + "x" + cost[0].length);
+        }
+    }
+
+    @Test
+    void greedyFallbackStillMatchesEveryPossibleRow() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++) {
+            double[][] cost = randomCost(random, 1 + random.nextInt(8), 1 + random.nextInt(8));
+
+            int[] assignment = AssignmentSolver.solve(cost, NO_BUDGET_LIMIT, 0); // exact method skipped
+
+            assertValid(cost, assignment);
+            assertTrue(AssignmentSolver.totalCost(cost, assignment) >= bruteForce(cost) - 1e-9);
+        }
+    }
+
+    @Test
+    void picksTheCheaperCrossingOverTheGreedyChoice() {
+        // greedy takes the 1 and is left with 100; the optimum is 2 + 2
+        double[][] cost = {
+                {1, 2},
+                {2, 100},
+        };
+        assertArrayEquals(new int[] {1, 0}, AssignmentSolver.solve(cost, NO_BUDGET_LIMIT));
+    }
+
+    @Test
+    void leavesRowsUnmatchedWhenColumnsRunOut() {
+        double[][] cost = {{5}, {1}, {3}};
+        assertArrayEquals(new int[] {-1, 0, -1}, AssignmentSolver.solve(cost, NO_BUDGET_LIMIT));
+    }
+
+    @Test
+    void emptyInputs() {
+        assertArrayEquals(new int[0], AssignmentSolver.solve(new double[0][0], NO_BUDGET_LIMIT));
+        assertArrayEquals(new int[] {-1, -1}, AssignmentSolver.solve(new double[2][0], NO_BUDGET_LIMIT));
+    }
+
+    // each column used at most once, and min(rows, columns) pairs
+    private static void assertValid(double[][] cost, int[] assignment) {
+        int cols = cost[0].length;
+        assertEquals(cost.length, assignment.length);
+        boolean[] used = new boolean[cols];
+        int matched = 0;
+        for (int column : assignment) {
+            if (column < 0) continue;
+            assertTrue(column < cols);
+            assertTrue(!used[column], "column " + column + " used twice");
+            used[column] = true;
+            matched++;
+        }
+        assertEquals(Math.min(cost.length, cols), matched);
+    }
+
+    private static double[][] randomCost(Random random, int rows, int cols) {
+        double[][] cost = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) cost[i][j] = random.nextInt(50); // ties included
+        }
+        return cost;
+    }
+
+    // cheapest way to give min(rows, columns) rows distinct columns, by trying them all
+    private static double bruteForce(double[][] cost) {
+        int rows = cost.length;
+        int cols = cost[0].length;
+        return best(cost, 0, new boolean[cols], Math.min(rows, cols), rows - Math.min(rows, cols));
+    }
+
+    private static double best(double[][] cost, int row, boolean[] used, int toMatch, int maySkip) {
+        if (row == cost.length) return toMatch == 0 ? 0 : Double.POSITIVE_INFINITY;
+        double best = maySkip > 0 ? best(cost, row + 1, used, toMatch, maySkip - 1) : Double.POSITIVE_INFINITY;
+        for (int j = 0; j < used.length; j++) {
+            if (used[j]) continue;
+            used[j] = true;
+            best = Math.min(best, cost[row][j] + best(cost, row + 1, used, toMatch - 1, maySkip));
+            used[j] = false;
+        }
+        return best;
+    }
+}
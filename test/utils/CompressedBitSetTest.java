@@ -0,0 +1,141 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Checked against java.util.BitSet on sets that are sparse, dense, and mixed across chunks. */
+class CompressedBitSetTest {
+
+    private static final int CHUNK = 1 << 16;
+
+    @Test
+    void addContainsAndCardinality() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 30; trial++) {
+            BitSet expected = new BitSet();
+            CompressedBitSet set = randomSet(random, expected);
+
+            assertEquals(expected.cardinality(), set.cardinality());
+            assertEquals(expected.isEmpty(), set.isEmpty());
+            for (int probe = 0; probe < 2_000; probe++) {
+                int value = random.nextInt(4 * CHUNK);
+                assertEquals(expected.get(value), set.contains(value), "value " + value);
+            }
+            assertArrayEquals(expected.stream().toArray(), set.toArray(0, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void andOrAndAndCardinality() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 30; trial++) {
+            BitSet a = new BitSet();
+            BitSet b = new BitSet();
+            CompressedBitSet x = randomSet(random, a);
+            CompressedBitSet y = randomSet(random, b);
+
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+
+            assertArrayEquals(and.stream().toArray(), x.and(y).toArray(0, Integer.MAX_VALUE));
+            assertArrayEquals(or.stream().toArray(), x.or(y).toArray(0, Integer.MAX_VALUE));
+            assertEquals(and.cardinality(), x.andCardinality(y));
+            assertEquals(and.cardinality(), x.and(y).cardinality());
+            assertEquals(or.cardinality(), x.or(y).cardinality());
+        }
+    }
+
+    @Test
+    void operandsAreNotChanged() {
+        BitSet a = new BitSet();
+        BitSet b = new BitSet();
+        Random random = new Random(3);
+        CompressedBitSet x = randomSet(random, a);
+        CompressedBitSet y = randomSet(random, b);
+
+        x.and(y);
+        x.or(y);
+
+        assertArrayEquals(a.stream().toArray(), x.toArray(0, Integer.MAX_VALUE));
+        assertArrayEquals(b.stream().toArray(), y.toArray(0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void orAllMatchesRepeatedOr() {
+        Random random = new Random(4);
+        BitSet expected = new BitSet();
+        List<CompressedBitSet> sets = new ArrayList<>();
+        for (int k = 0; k < 5; k++) {
+            BitSet part = new BitSet();
+            sets.add(randomSet(random, part));
+            expected.or(part);
+        }
+        assertArrayEquals(expected.stream().toArray(), CompressedBitSet.orAll(sets).toArray(0, Integer.MAX_VALUE));
+        assertTrue(CompressedBitSet.orAll(List.of()).isEmpty());
+    }
+
+    @Test
+    void toArrayPagesInAscendingOrder() {
+        BitSet expected = new BitSet();
+        CompressedBitSet set = randomSet(new Random(5), expected);
+        int[] all = expected.stream().toArray();
+
+        for (int skip : new int[] {0, 1, 100, all.length / 2, all.length - 1, all.length, all.length + 10}) {
+            int[] page = set.toArray(skip, 250);
+            int from = Math.min(skip, all.length);
+            int to = Math.min(all.length, from + 250);
+            assertArrayEquals(Arrays.copyOfRange(all, from, to), page, "skip " + skip);
+        }
+    }
+
+    @Test
+    void forEachStopsWhenAsked() {
+        CompressedBitSet set = new CompressedBitSet();
+        for (int v = 0; v < 10_000; v += 3) set.add(v);
+
+        List<Integer> seen = new ArrayList<>();
+        set.forEach(v -> {
+            seen.add(v);
+            return seen.size() < 4;
+        });
+        assertEquals(List.of(0, 3, 6, 9), seen);
+    }
+
+    @Test
+    void duplicatesAndChunkEdges() {
+        CompressedBitSet set = new CompressedBitSet();
+        int[] values = {0, CHUNK - 1, CHUNK, 2 * CHUNK + 1, Integer.MAX_VALUE};
+        for (int v : values) {
+            set.add(v);
+            set.add(v);
+        }
+        assertEquals(values.length, set.cardinality());
+        assertArrayEquals(values, set.toArray(0, Integer.MAX_VALUE));
+    }
+
+    // values over four chunks; each chunk is empty, sparse (array), or dense (bitmap), at random
+    private static CompressedBitSet randomSet(Random random, BitSet expected) {
+        CompressedBitSet set = new CompressedBitSet();
+        for (int chunk = 0; chunk < 4; chunk++) {
+            int kind = random.nextInt(3);
+            int count = kind == 0 ? 0 : kind == 1 ? random.nextInt(4_000) : 4_097 + random.nextInt(40_000);
+            for (int i = 0; i < count; i++) {
+                int value = chunk * CHUNK + random.nextInt(CHUNK);
+                set.add(value);
+                expected.set(value);
+            }
+        }
+        return set;
+    }
+}
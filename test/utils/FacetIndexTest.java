@@ -0,0 +1,135 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** filter and counts checked against a scan of the items on random catalogues. */
+class FacetIndexTest {
+
+    private static final String[][] VALUES = {
+            {"Starter", "Main", "Dessert", "Drink"},
+            {"Indian", "Chinese", "Italian"},
+            {"Under 100", "100-250", "Over 250"},
+    };
+
+    @Test
+    void filterOrsWithinADimensionAndAndsAcross() {
+        FacetIndex index = new FacetIndex(3);
+        index.add(0, "Main", "Indian", "Under 100");
+        index.add(1, "Main", "Chinese", "100-250");
+        index.add(2, "Dessert", "Indian", "100-250");
+        index.add(3, null, "Indian", "Over 250");
+
+        assertArrayEquals(new int[] {0, 1, 2}, filter(index, Set.of("Main", "Dessert"), Set.of(), Set.of()));
+        assertArrayEquals(new int[] {0, 2}, filter(index, Set.of("Main", "Dessert"), Set.of("Indian"), Set.of()));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, filter(index, Set.of(), Set.of(), Set.of()));
+        assertArrayEquals(new int[0], filter(index, Set.of("Drink"), Set.of(), Set.of()));
+    }
+
+    @Test
+    void countsIgnoreTheirOwnDimensionsSelection() {
+        FacetIndex index = new FacetIndex(3);
+        index.add(0, "Main", "Indian", "Under 100");
+        index.add(1, "Main", "Chinese", "100-250");
+        index.add(2, "Dessert", "Indian", "100-250");
+
+        List<Map<String, Integer>> counts = index.counts(List.of(Set.of("Main"), Set.of(), Set.of()));
+
+        assertEquals(Map.of("Main", 2, "Dessert", 1), counts.get(0)); // what picking (also) that value gives
+        assertEquals(Map.of("Indian", 1, "Chinese", 1), counts.get(1));
+        assertEquals(Map.of("Under 100", 1, "100-250", 1), counts.get(2));
+    }
+
+    @Test
+    void matchesAScanOnRandomCatalogues() {
+        Random random = new Random(21);
+        for (int trial = 0; trial < 40; trial++) {
+            int size = random.nextInt(3) == 0 ? 20 + random.nextInt(50) : 2_000 + random.nextInt(20_000);
+            String[][] items = new String[size][];
+            FacetIndex index = new FacetIndex(3);
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                items[ordinal] = randomValues(random);
+                index.add(ordinal, items[ordinal]);
+            }
+
+            for (int query = 0; query < 10; query++) {
+                List<Set<String>> selected = randomSelection(random);
+
+                assertArrayEquals(scanFilter(items, selected, -1),
+                        index.filter(selected).toArray(0, Integer.MAX_VALUE));
+
+                List<Map<String, Integer>> counts = index.counts(selected);
+                for (int d = 0; d < 3; d++) {
+                    assertEquals(scanCounts(items, selected, d), withoutZeros(counts.get(d)), "dimension " + d);
+                }
+            }
+        }
+    }
+
+    private static int[] filter(FacetIndex index, Set<String> a, Set<String> b, Set<String> c) {
+        return index.filter(List.of(a, b, c)).toArray(0, Integer.MAX_VALUE);
+    }
+
+    // items matching every dimension's selection except skip's
+    private static int[] scanFilter(String[][] items, List<? extends Collection<String>> selected, int skip) {
+        List<Integer> matching = new ArrayList<>();
+        for (int ordinal = 0; ordinal < items.length; ordinal++) {
+            if (matches(items[ordinal], selected, skip)) matching.add(ordinal);
+        }
+        return matching.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Map<String, Integer> scanCounts(String[][] items, List<? extends Collection<String>> selected, int d) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String[] item : items) {
+            if (item[d] != null && matches(item, selected, d)) counts.merge(item[d], 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static boolean matches(String[] item, List<? extends Collection<String>> selected, int skip) {
+        for (int d = 0; d < selected.size(); d++) {
+            if (d == skip || selected.get(d).isEmpty()) continue;
+            if (item[d] == null || !selected.get(d).contains(item[d])) return false;
+        }
+        return true;
+    }
+
+    private static Map<String, Integer> withoutZeros(Map<String, Integer> counts) {
+        Map<String, Integer> nonZero = new HashMap<>(counts);
+        nonZero.values().removeIf(n -> n == 0);
+        return nonZero;
+    }
+
+    private static String[] randomValues(Random random) {
+        String[] values = new String[3];
+        for (int d = 0; d < 3; d++) {
+            // skewed, with the odd missing value
+            values[d] = random.nextInt(20) == 0 ? null : VALUES[d][Math.min(random.nextInt(VALUES[d].length + 1), VALUES[d].length - 1)];
+        }
+        return values;
+    }
+
+    private static List<Set<String>> randomSelection(Random random) {
+        List<Set<String>> selection = new ArrayList<>();
+        for (int d = 0; d < 3; d++) {
+            Set<String> picked = new HashSet<>();
+            for (String value : VALUES[d]) {
+                if (random.nextInt(3) == 0) picked.add(value);
+            }
+            selection.add(picked);
+        }
+        return selection;
+    }
+}
@@ -0,0 +1,100 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    // name, category, description
+    private static InvertedIndex menu() {
+        InvertedIndex index = new InvertedIndex(3, 2, 1);
+        index.add(1, "Masala Dosa", "South Indian", "Crisp rice crepe with potato");
+        index.add(2, "Paneer Tikka", "North Indian", "Grilled cottage cheese");
+        index.add(3, "Veg Biryani", "Rice", "Basmati rice with vegetables and masala");
+        index.add(4, "Chocolate Brownie", "Dessert", "Warm, with ice cream");
+        index.add(5, "Cheese Pizza", "Italian", "Mozzarella and tomato");
+        return index;
+    }
+
+    @Test
+    void tokenizesIntoLowercaseLettersAndDigits() {
+        assertEquals(List.of("veg", "biryani", "500g", "x2"), InvertedIndex.tokenize("Veg-Biryani (500g) x2!"));
+        assertTrue(InvertedIndex.tokenize(null).isEmpty());
+        assertTrue(InvertedIndex.tokenize("  --  ").isEmpty());
+    }
+
+    @Test
+    void everyTokenMustMatch() {
+        InvertedIndex index = menu();
+        assertArrayEquals(new int[] {2}, index.search("paneer indian", 10));
+        assertArrayEquals(new int[0], index.search("paneer dessert", 10));
+        assertArrayEquals(new int[0], index.search("sushi", 10));
+        assertArrayEquals(new int[0], index.search("   ", 10));
+    }
+
+    @Test
+    void prefixesMatchFromTwoCharacters() {
+        InvertedIndex index = menu();
+        assertArrayEquals(new int[] {4}, index.search("choc", 10));
+        assertArrayEquals(new int[] {2, 4, 5}, sorted(index.search("ch", 10))); // cheese, chocolate
+        assertArrayEquals(new int[0], index.search("x", 10));
+    }
+
+    @Test
+    void typosAreForgivenByWordLength() {
+        InvertedIndex index = menu();
+        assertArrayEquals(new int[] {3}, index.search("biryanni", 10)); // one insert, 8 letters
+        assertArrayEquals(new int[] {5}, index.search("piza", 10));     // one delete, 4 letters
+        assertArrayEquals(new int[] {1}, index.search("dsoa", 10));     // neighbour swap counts as one
+        assertArrayEquals(new int[0], index.search("vgg", 10));         // under 4 letters: exact or prefix only
+        assertArrayEquals(new int[0], index.search("pzzia", 10));       // two edits on a short word
+    }
+
+    @Test
+    void editDistanceCountsASwapAsOne() {
+        assertEquals(0, InvertedIndex.withinEdits("dosa", "dosa", 1));
+        assertEquals(1, InvertedIndex.withinEdits("dsoa", "dosa", 1));
+        assertEquals(1, InvertedIndex.withinEdits("pizza", "piza", 1));
+        assertEquals(2, InvertedIndex.withinEdits("biriyani", "biryanni", 2));
+        assertEquals(-1, InvertedIndex.withinEdits("pizza", "pasta", 1));
+        assertEquals(-1, InvertedIndex.withinEdits("a", "abcd", 2));
+    }
+
+    @Test
+    void heavierFieldsAndBetterMatchesRankFirst() {
+        InvertedIndex index = menu();
+        // "masala" is the name of 1 but only in the description of 3
+        assertArrayEquals(new int[] {1, 3}, index.search("masala", 10));
+        // "cheese" is the name of 5 but only in the description of 2
+        assertArrayEquals(new int[] {5, 2}, index.search("cheese", 10));
+    }
+
+    @Test
+    void limitAndFilterApply() {
+        InvertedIndex index = menu();
+        assertEquals(1, index.search("indian", 1).length);
+        assertArrayEquals(new int[] {2}, index.search("indian", 10, id -> id != 1));
+        assertArrayEquals(new int[0], index.search("indian", 0));
+    }
+
+    @Test
+    void addIsIncremental() {
+        InvertedIndex index = menu();
+        assertArrayEquals(new int[0], index.search("samosa", 10));
+        index.add(6, "Samosa", "Snacks", null);
+        assertArrayEquals(new int[] {6}, index.search("samosa", 10));
+        assertEquals(6, index.size());
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,144 @@
+package utils;
+
+import models.GeoPoint;
+import models.RouteStop;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StopSequencerTest {
+
+    @Test
+    void picksUpBeforeDroppingOffAndKeepsEveryStop() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 300; trial++) {
+            List<RouteStop> stops = randomTrip(random, 1 + random.nextInt(5));
+            List<RouteStop> route = StopSequencer.sequence(point(random), stops);
+
+            assertEquals(new HashSet<>(stops), new HashSet<>(route));
+            assertEquals(stops.size(), route.size());
+            assertPickupsFirst(stops, route);
+        }
+    }
+
+    // local search, not exact: close to the shortest valid trip on average, never far off
+    @Test
+    void staysCloseToTheShortestValidTrip() {
+        Random random = new Random(8);
+        int trials = 300;
+        double ratios = 0;
+        for (int trial = 0; trial < trials; trial++) {
+            List<RouteStop> stops = randomTrip(random, 1 + random.nextInt(4));
+            GeoPoint start = point(random);
+
+            double got = StopSequencer.lengthKm(start, StopSequencer.sequence(start, stops));
+            double best = shortest(start, new ArrayList<>(), stops);
+
+            assertTrue(got >= best - 1e-9);
+            assertTrue(got <= best * 1.5 + 1e-9, "trial " + trial + ": " + got + " km vs best " + best);
+            ratios += best == 0 ? 1 : got / best;
+        }
+        assertTrue(ratios / trials < 1.03, "mean ratio " + ratios / trials);
+    }
+
+    @Test
+    void followsTheRoadWhenStopsLieOnALine() {
+        GeoPoint start = new GeoPoint(12.90, 77.50);
+        List<RouteStop> stops = List.of(
+                stop(RouteStop.Kind.DROP_OFF, 1, 12.90, 77.56),
+                stop(RouteStop.Kind.PICKUP, 2, 12.90, 77.53),
+                stop(RouteStop.Kind.DROP_OFF, 2, 12.90, 77.54),
+                stop(RouteStop.Kind.PICKUP, 1, 12.90, 77.51));
+
+        List<RouteStop> route = StopSequencer.sequence(start, stops);
+
+        assertEquals(List.of(stops.get(3), stops.get(1), stops.get(2), stops.get(0)), route);
+    }
+
+    @Test
+    void stopsWithoutAPositionComeLastInTheGivenOrder() {
+        RouteStop unknownPickup = new RouteStop(RouteStop.Kind.PICKUP, 1, "r", null);
+        RouteStop itsDropOff = stop(RouteStop.Kind.DROP_OFF, 1, 12.95, 77.55);
+        RouteStop pickup = stop(RouteStop.Kind.PICKUP, 2, 12.91, 77.51);
+        RouteStop dropOff = stop(RouteStop.Kind.DROP_OFF, 2, 12.92, 77.52);
+
+        List<RouteStop> route = StopSequencer.sequence(new GeoPoint(12.90, 77.50),
+                List.of(unknownPickup, itsDropOff, dropOff, pickup));
+
+        assertEquals(List.of(pickup, dropOff, unknownPickup, itsDropOff), route);
+    }
+
+    @Test
+    void lengthSkipsStopsWithoutAPosition() {
+        GeoPoint a = new GeoPoint(12.90, 77.50);
+        GeoPoint b = new GeoPoint(12.95, 77.55);
+        List<RouteStop> stops = List.of(
+                new RouteStop(RouteStop.Kind.PICKUP, 1, "r", b),
+                new RouteStop(RouteStop.Kind.DROP_OFF, 1, "d", null));
+
+        assertEquals(a.distanceKm(b), StopSequencer.lengthKm(a, stops), 1e-9);
+        assertEquals(0, StopSequencer.lengthKm(null, stops), 1e-9);
+    }
+
+    private static void assertPickupsFirst(List<RouteStop> stops, List<RouteStop> route) {
+        Set<Integer> withPickup = new HashSet<>();
+        for (RouteStop s : stops) {
+            if (s.isPickup()) withPickup.add(s.getOrderId());
+        }
+        Set<Integer> collected = new HashSet<>();
+        for (RouteStop s : route) {
+            if (s.isPickup()) collected.add(s.getOrderId());
+            else if (withPickup.contains(s.getOrderId())) {
+                assertTrue(collected.contains(s.getOrderId()), "order " + s.getOrderId() + " dropped before pickup");
+            }
+        }
+    }
+
+    // shortest valid visiting order, by trying them all
+    private static double shortest(GeoPoint start, List<RouteStop> done, List<RouteStop> left) {
+        if (left.isEmpty()) return StopSequencer.lengthKm(start, done);
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < left.size(); i++) {
+            RouteStop s = left.get(i);
+            if (!s.isPickup() && pickupLeft(left, s.getOrderId())) continue;
+            List<RouteStop> rest = new ArrayList<>(left);
+            rest.remove(i);
+            done.add(s);
+            best = Math.min(best, shortest(start, done, rest));
+            done.remove(done.size() - 1);
+        }
+        return best;
+    }
+
+    private static boolean pickupLeft(List<RouteStop> left, int orderId) {
+        for (RouteStop s : left) {
+            if (s.isPickup() && s.getOrderId() == orderId) return true;
+        }
+        return false;
+    }
+
+    // orders with a pickup and a drop-off each; some already collected (drop-off only)
+    private static List<RouteStop> randomTrip(Random random, int orders) {
+        List<RouteStop> stops = new ArrayList<>();
+        for (int order = 0; order < orders; order++) {
+            if (random.nextInt(4) != 0) stops.add(new RouteStop(RouteStop.Kind.PICKUP, order, "r", point(random)));
+            stops.add(new RouteStop(RouteStop.Kind.DROP_OFF, order, "d", point(random)));
+        }
+        return stops;
+    }
+
+    private static RouteStop stop(RouteStop.Kind kind, int orderId, double lat, double lon) {
+        return new RouteStop(kind, orderId, kind + " " + orderId, new GeoPoint(lat, lon));
+    }
+
+    private static GeoPoint point(Random random) {
+        return new GeoPoint(12.9 + random.nextDouble() * 0.1, 77.5 + random.nextDouble() * 0.1);
+    }
+}